@@ -0,0 +1,181 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * The BoundingBox class represents an immutable axis-aligned box in three-dimensional space.
+ * It bounds a geometry for acceleration structures - a ray that misses the box misses the geometry as well.
+ * Unbounded geometries (e.g. {@link Plane}) have no bounding box at all.
+ */
+public final class BoundingBox {
+    /** The empty box - it contains nothing and is missed by every ray */
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    /** The minimal corner of the box */
+    final double minX, minY, minZ;
+    /** The maximal corner of the box */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * Constructs a box from its minimal and maximal coordinates.
+     *
+     * @param minX minimal X coordinate
+     * @param minY minimal Y coordinate
+     * @param minZ minimal Z coordinate
+     * @param maxX maximal X coordinate
+     * @param maxY maximal Y coordinate
+     * @param maxZ maximal Z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest box containing all the given points.
+     *
+     * @param points the points
+     * @return the bounding box of the points
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            minX = Math.min(minX, p.getX());
+            minY = Math.min(minY, p.getY());
+            minZ = Math.min(minZ, p.getZ());
+            maxX = Math.max(maxX, p.getX());
+            maxY = Math.max(maxY, p.getY());
+            maxZ = Math.max(maxZ, p.getZ());
+        }
+        return new BoundingBox(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    /**
+     * Gets the minimal corner of the box.
+     *
+     * @return the minimal corner
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * Gets the maximal corner of the box.
+     *
+     * @return the maximal corner
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * Checks whether the box is empty.
+     *
+     * @return true if the box contains nothing
+     */
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    /**
+     * Constructs the smallest box containing both this box and another one.
+     *
+     * @param other the other box
+     * @return the union box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Calculates the surface area of the box.
+     *
+     * @return the surface area, 0 for an empty box
+     */
+    public double surfaceArea() {
+        if (isEmpty()) return 0;
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a ray hits the box within a maximal distance (slab test).
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @return true if the ray hits the box
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        return intersects(head.getX(), head.getY(), head.getZ(),
+                1 / dir.getX(), 1 / dir.getY(), 1 / dir.getZ(), maxDistance);
+    }
+
+    /**
+     * Checks whether a ray hits the box within a maximal distance (slab test)
+     * using the precalculated reciprocal of the ray direction.
+     *
+     * @return true if the ray hits the box
+     */
+    boolean intersects(double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        return slab(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, ix, iy, iz, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Calculates the entry distance of a ray into a box (slab test).
+     *
+     * @return the entry distance (0 if the ray starts inside the box),
+     * or {@link Double#POSITIVE_INFINITY} if the ray misses the box within the maximal distance
+     */
+    static double slab(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                       double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        // NaN (a ray parallel to a slab and starting on its boundary) is treated as a hit to stay conservative
+        if (Double.isNaN(tNear) || Double.isNaN(tFar)) return 0;
+        // a relative tolerance keeps grazing hits of flat boxes against rounding errors
+        tFar += Math.abs(tFar) * 1e-9;
+        if (tNear > tFar || tFar < 0 || tNear > maxDistance) return Double.POSITIVE_INFINITY;
+        return Math.max(tNear, 0);
+    }
+
+    /**
+     * Writes the box coordinates into an array (minimal corner followed by the maximal corner).
+     *
+     * @param array  the destination array
+     * @param offset offset of the first coordinate in the array
+     */
+    void writeTo(double[] array, int offset) {
+        array[offset] = minX;
+        array[offset + 1] = minY;
+        array[offset + 2] = minZ;
+        array[offset + 3] = maxX;
+        array[offset + 4] = maxY;
+        array[offset + 5] = maxZ;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{min=(" + minX + "," + minY + "," + minZ + "), max=(" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
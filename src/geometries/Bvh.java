@@ -0,0 +1,372 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Bounding volume hierarchy over primitives identified by their index.
+ * The nodes are stored in parallel arrays in depth-first order - the first child of an inner node follows it
+ * directly, so traversal walks mostly forward through memory. Each leaf refers to a range of the primitive order
+ * array.
+ */
+final class Bvh {
+
+    /**
+     * Visitor of the primitives of the leaves hit by a ray.
+     */
+    @FunctionalInterface
+    interface LeafVisitor {
+        /**
+         * Visits a primitive.
+         *
+         * @param primitive   index of the primitive
+         * @param maxDistance current maximal distance along the ray
+         * @return the new maximal distance (lower to look only for closer hits)
+         */
+        double visit(int primitive, double maxDistance);
+    }
+
+    /**
+     * The traversal stacks of a thread, reused by all its traversals so that tracing a ray allocates nothing.
+     * A visitor may traverse a nested hierarchy (of a nested collection, a mesh or an instance) on the same thread,
+     * so each nesting level has its own stack.
+     */
+    private static final class Stacks {
+        /** Per nesting level - the pending nodes */
+        private int[][] nodes = new int[4][];
+        /** Per nesting level - the entry distances of the pending nodes */
+        private double[][] entries = new double[4][];
+        /** The nesting level of the next traversal */
+        private int depth = 0;
+    }
+
+    /** Per traversing thread - its traversal stacks */
+    private static final ThreadLocal<Stacks> STACKS = ThreadLocal.withInitial(Stacks::new);
+
+    /**
+     * A node of a hierarchy under construction - an inner node has two children, a leaf has a range of primitives.
+     * Builders produce a tree of nodes, and the hierarchy flattens it into arrays.
+     */
+    static final class Node {
+        final double minX, minY, minZ, maxX, maxY, maxZ;
+        final Node left, right;
+        final int first, count;
+
+        /**
+         * Constructs an inner node.
+         */
+        Node(double[] box, Node left, Node right) {
+            this.minX = box[0];
+            this.minY = box[1];
+            this.minZ = box[2];
+            this.maxX = box[3];
+            this.maxY = box[4];
+            this.maxZ = box[5];
+            this.left = left;
+            this.right = right;
+            this.first = 0;
+            this.count = 0;
+        }
+
+        /**
+         * Constructs a leaf.
+         */
+        Node(double[] box, int first, int count) {
+            this.minX = box[0];
+            this.minY = box[1];
+            this.minZ = box[2];
+            this.maxX = box[3];
+            this.maxY = box[4];
+            this.maxZ = box[5];
+            this.left = null;
+            this.right = null;
+            this.first = first;
+            this.count = count;
+        }
+
+        boolean isLeaf() {
+            return left == null;
+        }
+
+        double area() {
+            if (minX > maxX) return 0;
+            double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+            return 2 * (dx * dy + dy * dz + dz * dx);
+        }
+    }
+
+    /** Node bounds - minimal corner followed by maximal corner, 6 values per node in depth-first order */
+    final double[] bounds;
+    /** Per node - the index of the second child of an inner node, or the first primitive of a leaf */
+    final int[] offsets;
+    /** Per node - the amount of primitives of a leaf, 0 for an inner node (its first child follows it) */
+    final int[] counts;
+    /** Primitive indices in leaf order */
+    final int[] primitives;
+    /** Statistics of the hierarchy, updated by {@link #refit(double[], int)} */
+    volatile BvhStats stats;
+    /** SAH cost of the hierarchy as built, before any refit */
+    final double builtCost;
+
+    /**
+     * Constructs a hierarchy by flattening a built tree into arrays in depth-first order,
+     * and calculates its statistics.
+     *
+     * @param root       the root node
+     * @param primitives primitive indices in leaf order
+     * @param buildNanos build time in nanoseconds
+     */
+    Bvh(Node root, int[] primitives, long buildNanos) {
+        this.primitives = primitives;
+        int[] counters = new int[3]; // nodes, leaves, max depth
+        double weightedCost = collect(root, 0, counters);
+        double rootArea = root.area();
+        double cost = rootArea == 0 ? primitives.length : weightedCost / rootArea;
+        this.stats = new BvhStats(primitives.length, counters[0], counters[1], counters[2], cost, buildNanos);
+        this.builtCost = cost;
+
+        bounds = new double[6 * counters[0]];
+        offsets = new int[counters[0]];
+        counts = new int[counters[0]];
+        flatten(root, 0);
+    }
+
+    /**
+     * Gets the bounds of the root node - the bounding box of all the primitives as built or last refitted.
+     *
+     * @return the bounding box, empty for a hierarchy with no primitives
+     */
+    BoundingBox getBounds() {
+        if (primitives.length == 0) return BoundingBox.EMPTY;
+        return new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * Collects node statistics of a sub-tree.
+     *
+     * @return the SAH cost of the sub-tree multiplied by the root area
+     */
+    private static double collect(Node node, int depth, int[] counters) {
+        ++counters[0];
+        if (node.isLeaf()) {
+            ++counters[1];
+            counters[2] = Math.max(counters[2], depth);
+            return node.area() * node.count;
+        }
+        return node.area() + collect(node.left, depth + 1, counters) + collect(node.right, depth + 1, counters);
+    }
+
+    /**
+     * Writes a sub-tree into the node arrays.
+     *
+     * @param node  the root of the sub-tree
+     * @param index the array index of the node
+     * @return the array index following the sub-tree
+     */
+    private int flatten(Node node, int index) {
+        bounds[6 * index] = node.minX;
+        bounds[6 * index + 1] = node.minY;
+        bounds[6 * index + 2] = node.minZ;
+        bounds[6 * index + 3] = node.maxX;
+        bounds[6 * index + 4] = node.maxY;
+        bounds[6 * index + 5] = node.maxZ;
+        if (node.isLeaf()) {
+            offsets[index] = node.first;
+            counts[index] = node.count;
+            return index + 1;
+        }
+        int second = flatten(node.left, index + 1);
+        offsets[index] = second;
+        return flatten(node.right, second);
+    }
+
+    /**
+     * Recalculates the node bounds bottom-up from new primitive bounds, keeping the topology of the hierarchy.
+     * Sub-trees near the root are refitted in parallel. It must not run while the hierarchy is traversed.
+     *
+     * @param primitiveBounds   packed primitive bounds, in the same layout as given to the builder
+     * @param parallelDepth     sub-trees down to this depth are refitted in separate tasks
+     * @return the updated statistics - the SAH cost of the refitted nodes and the refit time
+     */
+    BvhStats refit(double[] primitiveBounds, int parallelDepth) {
+        long start = System.nanoTime();
+        if (primitives.length > 0)
+            ForkJoinPool.commonPool().invoke(new Refit(primitiveBounds, 0, parallelDepth));
+        double rootArea = area(0), weightedCost = 0;
+        for (int node = 0; node < counts.length; ++node)
+            weightedCost += area(node) * (counts[node] > 0 ? counts[node] : 1);
+        double cost = rootArea == 0 ? primitives.length : weightedCost / rootArea;
+        BvhStats old = stats;
+        stats = new BvhStats(old.primitives(), old.nodes(), old.leaves(), old.maxDepth(), cost, System.nanoTime() - start);
+        return stats;
+    }
+
+    /**
+     * Calculates the surface area of the box of a node.
+     */
+    private double area(int node) {
+        int b = 6 * node;
+        if (bounds[b] > bounds[b + 3]) return 0;
+        double dx = bounds[b + 3] - bounds[b], dy = bounds[b + 4] - bounds[b + 1], dz = bounds[b + 5] - bounds[b + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /** Task refitting the bounds of a sub-tree */
+    @SuppressWarnings("serial")
+    private class Refit extends RecursiveAction {
+        final double[] primitiveBounds;
+        final int node, parallelDepth;
+
+        Refit(double[] primitiveBounds, int node, int parallelDepth) {
+            this.primitiveBounds = primitiveBounds;
+            this.node = node;
+            this.parallelDepth = parallelDepth;
+        }
+
+        @Override
+        protected void compute() {
+            refit(node, parallelDepth);
+        }
+
+        /**
+         * Refits a sub-tree, forking its first child while above the parallel depth.
+         */
+        private void refit(int node, int depth) {
+            int b = 6 * node;
+            if (counts[node] > 0) {
+                Arrays.fill(bounds, b, b + 3, Double.POSITIVE_INFINITY);
+                Arrays.fill(bounds, b + 3, b + 6, Double.NEGATIVE_INFINITY);
+                for (int i = offsets[node], end = i + counts[node]; i < end; ++i)
+                    union(b, primitiveBounds, 6 * primitives[i]);
+                return;
+            }
+            int first = node + 1, second = offsets[node];
+            if (depth > 0) {
+                Refit task = new Refit(primitiveBounds, first, depth - 1);
+                task.fork();
+                refit(second, depth - 1);
+                task.join();
+            } else {
+                refit(first, 0);
+                refit(second, 0);
+            }
+            System.arraycopy(bounds, 6 * first, bounds, b, 6);
+            union(b, bounds, 6 * second);
+        }
+
+        /**
+         * Grows the bounds of a node to contain a box from a packed array.
+         */
+        private void union(int b, double[] boxes, int offset) {
+            for (int k = 0; k < 3; ++k) {
+                bounds[b + k] = Math.min(bounds[b + k], boxes[offset + k]);
+                bounds[b + k + 3] = Math.max(bounds[b + k + 3], boxes[offset + k + 3]);
+            }
+        }
+    }
+
+    /**
+     * Calculates the entry distance of a ray into the box of a node.
+     *
+     * @return the entry distance, or {@link Double#POSITIVE_INFINITY} if the ray misses the node
+     */
+    private double entry(int node, double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance) {
+        int b = 6 * node;
+        return BoundingBox.slab(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                ox, oy, oz, ix, iy, iz, maxDistance);
+    }
+
+    /**
+     * Traverses the hierarchy with a ray and visits the primitives of the leaves hit by it.
+     * The nearer child of each node is visited first, and nodes beyond the current maximal distance are skipped,
+     * so a visitor that lowers the maximal distance on each hit finds the closest hit quickly.
+     * The pending nodes are kept on a per-thread stack of the nesting level of the traversal.
+     *
+     * @param ray         the ray
+     * @param maxDistance the maximal distance along the ray
+     * @param visitor     the visitor of the primitives
+     * @return the maximal distance after the traversal
+     */
+    double traverse(Ray ray, double maxDistance, LeafVisitor visitor) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double ix = 1 / dir.getX(), iy = 1 / dir.getY(), iz = 1 / dir.getZ();
+
+        if (primitives.length == 0 || entry(0, ox, oy, oz, ix, iy, iz, maxDistance) == Double.POSITIVE_INFINITY)
+            return maxDistance;
+
+        Stacks stacks = STACKS.get();
+        int level = stacks.depth++;
+        try {
+            if (level == stacks.nodes.length) {
+                stacks.nodes = Arrays.copyOf(stacks.nodes, level * 2);
+                stacks.entries = Arrays.copyOf(stacks.entries, level * 2);
+            }
+            if (stacks.nodes[level] == null) {
+                stacks.nodes[level] = new int[64];
+                stacks.entries[level] = new double[64];
+            }
+            return traverse(ox, oy, oz, ix, iy, iz, maxDistance, visitor, stacks, level);
+        } finally {
+            stacks.depth = level;
+        }
+    }
+
+    /**
+     * Traverses the hierarchy from its root, which is hit by the ray, with the stack of a nesting level.
+     *
+     * @param maxDistance the maximal distance along the ray
+     * @param visitor     the visitor of the primitives
+     * @param stacks      the traversal stacks of the thread
+     * @param level       the nesting level of the traversal
+     * @return the maximal distance after the traversal
+     */
+    private double traverse(double ox, double oy, double oz, double ix, double iy, double iz, double maxDistance,
+                            LeafVisitor visitor, Stacks stacks, int level) {
+        int[] stack = stacks.nodes[level];
+        double[] entries = stacks.entries[level];
+        int size = 0;
+        int node = 0;
+        while (true) {
+            if (counts[node] > 0) {
+                for (int i = offsets[node], end = i + counts[node]; i < end; ++i)
+                    maxDistance = visitor.visit(primitives[i], maxDistance);
+            } else {
+                int near = node + 1, far = offsets[node];
+                double tNear = entry(near, ox, oy, oz, ix, iy, iz, maxDistance);
+                double tFar = entry(far, ox, oy, oz, ix, iy, iz, maxDistance);
+                if (tFar < tNear) {
+                    int n = near;
+                    near = far;
+                    far = n;
+                    double t = tNear;
+                    tNear = tFar;
+                    tFar = t;
+                }
+                if (tNear != Double.POSITIVE_INFINITY) {
+                    if (tFar != Double.POSITIVE_INFINITY) {
+                        if (size == stack.length) {
+                            stack = stacks.nodes[level] = Arrays.copyOf(stack, size * 2);
+                            entries = stacks.entries[level] = Arrays.copyOf(entries, size * 2);
+                        }
+                        stack[size] = far;
+                        entries[size++] = tFar;
+                    }
+                    node = near;
+                    continue;
+                }
+            }
+            // pop the next node that may still hold a hit within the (possibly lowered) maximal distance
+            do {
+                if (size == 0) return maxDistance;
+                node = stack[--size];
+            } while (entries[size] > maxDistance);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package geometries;
+
+/**
+ * The BvhBuilder class is a base for the algorithms building a bounding volume hierarchy
+ * over the primitives of {@link Geometries} or of a {@link Mesh}.
+ */
+public abstract class BvhBuilder {
+
+    /**
+     * Builds a hierarchy over primitives given by their bounding boxes.
+     *
+     * @param bounds packed bounding boxes of the primitives - minimal corner followed by maximal corner
+     * @param count  amount of primitives
+     * @return the hierarchy
+     */
+    abstract Bvh build(double[] bounds, int count);
+}
@@ -0,0 +1,42 @@
+package geometries;
+
+/**
+ * Statistics of a built bounding volume hierarchy - build time and tree quality.
+ * <p>
+ * The SAH cost is the expected cost of tracing a ray through the tree according to the Surface Area Heuristic,
+ * with the cost of a node traversal and of a primitive intersection both taken as 1.
+ * Lower cost means a better tree, and the costs of trees built by different builders are comparable.
+ *
+ * @param primitives amount of primitives in the tree
+ * @param nodes      amount of nodes (inner nodes and leaves)
+ * @param leaves     amount of leaves
+ * @param maxDepth   depth of the deepest leaf (the root is at depth 0)
+ * @param sahCost    SAH cost of the tree
+ * @param buildNanos build time in nanoseconds
+ */
+public record BvhStats(int primitives, int nodes, int leaves, int maxDepth, double sahCost, long buildNanos) {
+
+    /**
+     * Calculates the average amount of primitives in a leaf.
+     *
+     * @return the average leaf size
+     */
+    public double averageLeafSize() {
+        return leaves == 0 ? 0 : (double) primitives / leaves;
+    }
+
+    /**
+     * Gets the build time in milliseconds.
+     *
+     * @return the build time
+     */
+    public double buildMillis() {
+        return buildNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BVH: %d primitives, %d nodes, %d leaves (avg %.2f), depth %d, SAH cost %.2f, built in %.2f ms",
+                primitives, nodes, leaves, averageLeafSize(), maxDepth, sahCost, buildMillis());
+    }
+}
@@ -24,4 +24,25 @@ public class Cylinder extends Tube{
     public Cylinder(float radius, Ray ray) {
         super(radius, ray);
     }
+
+    /**
+     * cylinder constructor based on radius, direction and height.
+     *
+     * @param radius radius of the cylinder
+     * @param ray    a ray that describes the orientation of the cylinder
+     * @param height the height of the cylinder
+     */
+    public Cylinder(float radius, Ray ray, double height) {
+        super(radius, ray);
+        this.height = height;
+    }
+
+    /**
+     * Gets the height of the cylinder.
+     *
+     * @return the height of the cylinder
+     */
+    public double getHeight() {
+        return height;
+    }
 }
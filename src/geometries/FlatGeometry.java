@@ -1,4 +1,16 @@
 package geometries;
 
+
+import primitives.Vector;
+
+/**
+ * A geometry lying in a plane - its normal is the same at every point, so it is calculated once.
+ */
 public interface FlatGeometry {
+    /**
+     * Gets the normal of the geometry, which is the same at every point.
+     *
+     * @return the precomputed normal
+     */
+    Vector getNormal();
 }
@@ -1,12 +1,36 @@
 package geometries;
 
+import primitives.Point;
 import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.stream.IntStream;
 
 
 public class Geometries extends Intersectable{
-    private final List<Intersectable> geo = new LinkedList<>();
+    private final List<Intersectable> geo = new ArrayList<>();
+
+    /** Depth of the sub-trees refitted in separate tasks */
+    private static final int REFIT_PARALLEL_DEPTH = 6;
+
+    /**
+     * Acceleration of the collection - a hierarchy over the bounded geometries and a list of the unbounded ones.
+     *
+     * @param bvh       hierarchy over the bounded geometries, its primitives are indices into {@code bounded}
+     * @param bounded   indices of the bounded geometries in the collection
+     * @param unbounded indices of the unbounded geometries in the collection, tested linearly
+     * @param empty     indices of the geometries with an empty bounding box (e.g. an empty collection),
+     *                  which cannot be hit and are left out
+     * @param builder   the builder of the hierarchy, used again when a refit degrades it too much
+     */
+    private record Acceleration(Bvh bvh, int[] bounded, int[] unbounded, int[] empty, BvhBuilder builder) {}
+
+    /** Acceleration of the collection, null while not built */
+    private volatile Acceleration acceleration = null;
 
     public Geometries() {}
 
@@ -16,10 +40,192 @@ public class Geometries extends Intersectable{
 
     public void add(Intersectable... geometries){
         geo.addAll(List.of(geometries));
+        acceleration = null;
+    }
+
+    /**
+     * Gets the geometries of the collection.
+     *
+     * @return an unmodifiable view of the geometries in the collection
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geo);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries with the default {@link SahBvhBuilder}.
+     *
+     * @return statistics of the built hierarchy, or null if the collection is not accelerated
+     * @see #buildBvh(BvhBuilder)
+     */
+    public BvhStats buildBvh() {
+        return buildBvh(new SahBvhBuilder());
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the geometries. Nested collections and meshes are accelerated first,
+     * and so are the shared geometries of instances that are not accelerated yet.
+     * The hierarchy is dropped when geometries are added, and must be rebuilt then.
+     * Unbounded geometries (e.g. a {@link Plane}) are kept out of the hierarchy and are tested linearly.
+     * Geometries with an empty bounding box (e.g. an empty collection) cannot be hit and are left out -
+     * their undefined centroids would otherwise prevent any split.
+     *
+     * @param builder the hierarchy builder
+     * @return statistics of the built hierarchy, or null if the collection has no bounded geometries
+     */
+    public BvhStats buildBvh(BvhBuilder builder) {
+        for (Intersectable child : geo) {
+            if (child instanceof Geometries geometries) geometries.buildBvh(builder);
+            else if (child instanceof Mesh mesh) mesh.buildBvh(builder);
+            else if (child instanceof Instance instance) accelerate(instance.getPrototype(), builder);
+        }
+        int size = geo.size();
+        int[] bounded = new int[size], unbounded = new int[size], empty = new int[size];
+        int boundedCount = 0, unboundedCount = 0, emptyCount = 0;
+        double[] bounds = new double[6 * size];
+        for (int i = 0; i < size; i++) {
+            BoundingBox box = geo.get(i).getBoundingBox();
+            if (box == null) unbounded[unboundedCount++] = i;
+            else if (box.isEmpty()) empty[emptyCount++] = i;
+            else {
+                box.writeTo(bounds, 6 * boundedCount);
+                bounded[boundedCount++] = i;
+            }
+        }
+        Bvh built = boundedCount == 0 ? null : builder.build(bounds, boundedCount);
+        acceleration = new Acceleration(built,
+                Arrays.copyOf(bounded, boundedCount), Arrays.copyOf(unbounded, unboundedCount),
+                Arrays.copyOf(empty, emptyCount), builder);
+        return built == null ? null : built.stats;
+    }
+
+    /**
+     * Refits the bounding volume hierarchy to geometries that moved since it was built
+     * (e.g. {@link Instance}s with a new transformation). The node bounds are recalculated bottom-up in parallel
+     * while the tree topology is kept, which is much cheaper than a rebuild for small motions.
+     * Nested collections and meshes are refitted first. A collection with no hierarchy is built.
+     *
+     * @return statistics of the refitted hierarchy, or null if the collection has no bounded geometries
+     */
+    public BvhStats refitBvh() {
+        return refitBvh(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Refits the bounding volume hierarchy to geometries that moved since it was built, and rebuilds it
+     * when the refitted tree became too loose - when its SAH cost grew by more than the given factor
+     * relative to its cost as built. Hierarchies are built and rebuilt with the builder of this collection,
+     * or with the default {@link SahBvhBuilder} if it has none.
+     *
+     * @param maxInflation the maximal ratio between the refitted cost and the built cost (at least 1)
+     * @return statistics of the refitted or rebuilt hierarchy, or null if the collection has no bounded geometries
+     * @see #refitBvh()
+     */
+    public BvhStats refitBvh(double maxInflation) {
+        Acceleration current = acceleration;
+        return refitBvh(current == null ? new SahBvhBuilder() : current.builder, maxInflation);
+    }
+
+    /**
+     * Refits the bounding volume hierarchy to geometries that moved since it was built, and rebuilds it
+     * when the refitted tree became too loose. Nested collections, meshes and shared geometries of instances
+     * that have no hierarchy (e.g. after geometries were added to them) are built with the given builder, and so is this collection
+     * if it has none - a collection that has a hierarchy keeps its own builder for rebuilds and for its
+     * nested geometries.
+     *
+     * @param builder      the builder of the missing hierarchies
+     * @param maxInflation the maximal ratio between the refitted cost and the built cost (at least 1)
+     * @return statistics of the refitted or rebuilt hierarchy, or null if the collection has no bounded geometries
+     * @see #refitBvh(double)
+     */
+    public BvhStats refitBvh(BvhBuilder builder, double maxInflation) {
+        if (maxInflation < 1) throw new IllegalArgumentException("Inflation threshold must be at least 1");
+        Acceleration current = acceleration;
+        if (current == null) return buildBvh(builder);
+        for (Intersectable child : geo) {
+            if (child instanceof Geometries geometries) geometries.refitBvh(current.builder, maxInflation);
+            else if (child instanceof Mesh mesh) {
+                if (mesh.getBvhStats() == null) mesh.buildBvh(current.builder);
+                else mesh.refitBvh();
+            } else if (child instanceof Instance instance) accelerate(instance.getPrototype(), current.builder);
+        }
+        // an empty geometry that is no longer empty changes the partition
+        for (int i : current.empty) {
+            BoundingBox box = geo.get(i).getBoundingBox();
+            if (box == null || !box.isEmpty()) return buildBvh(current.builder);
+        }
+        if (current.bvh == null) return null;
+
+        int[] bounded = current.bounded;
+        double[] bounds = new double[6 * bounded.length];
+        boolean stillBounded = IntStream.range(0, bounded.length).parallel().allMatch(i -> {
+            BoundingBox box = geo.get(bounded[i]).getBoundingBox();
+            if (box == null || box.isEmpty()) return false;
+            box.writeTo(bounds, 6 * i);
+            return true;
+        });
+        // a geometry that became unbounded or empty changes the partition
+        if (!stillBounded) return buildBvh(current.builder);
+
+        BvhStats stats = current.bvh.refit(bounds, REFIT_PARALLEL_DEPTH);
+        return stats.sahCost() > current.bvh.builtCost * maxInflation ? buildBvh(current.builder) : stats;
+    }
+
+    /**
+     * Accelerates the shared geometry of an instance if it is not accelerated yet -
+     * a shared geometry is accelerated once for all its instances.
+     *
+     * @param prototype the shared geometry
+     * @param builder   the hierarchy builder
+     */
+    private static void accelerate(Intersectable prototype, BvhBuilder builder) {
+        if (prototype instanceof Geometries geometries && geometries.getBvhStats() == null)
+            geometries.buildBvh(builder);
+        else if (prototype instanceof Mesh mesh && mesh.getBvhStats() == null) mesh.buildBvh(builder);
+    }
+
+    /**
+     * Gets the statistics of the bounding volume hierarchy of the collection.
+     *
+     * @return the statistics, or null if there is no hierarchy
+     */
+    public BvhStats getBvhStats() {
+        Acceleration current = acceleration;
+        return current == null || current.bvh == null ? null : current.bvh.stats;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        // the root of the hierarchy bounds the geometries as built or last refitted, empty ones bound nothing
+        Acceleration current = acceleration;
+        if (current != null) {
+            if (current.unbounded.length > 0) return null;
+            return current.bvh == null ? BoundingBox.EMPTY : current.bvh.getBounds();
+        }
+        BoundingBox box = BoundingBox.EMPTY;
+        for (Intersectable child : geo) {
+            BoundingBox childBox = child.getBoundingBox();
+            if (childBox == null) return null;
+            box = box.union(childBox);
+        }
+        return box;
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance) {
+        Acceleration current = acceleration;
+        if (current != null) {
+            List<GeoPoint> intersections = new LinkedList<>();
+            Bvh.LeafVisitor visitor = (i, max) -> {
+                var geoPoints = geo.get(i).findGeoIntersections(ray, max);
+                if (geoPoints != null) intersections.addAll(geoPoints);
+                return max;
+            };
+            for (int i : current.unbounded) visitor.visit(i, maxDistance);
+            if (current.bvh != null)
+                current.bvh.traverse(ray, maxDistance, (i, max) -> visitor.visit(current.bounded[i], max));
+            return intersections.isEmpty() ? null : intersections;
+        }
 
         List<GeoPoint> intersections = null;
 
@@ -32,4 +238,29 @@ public class Geometries extends Intersectable{
         }
         return intersections;
     }
-}
\ No newline at end of file
+
+    @Override
+    GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        GeoPoint[] closest = new GeoPoint[1];
+        Bvh.LeafVisitor visitor = (i, max) -> {
+            GeoPoint gp = geo.get(i).findClosestGeoIntersection(ray, max);
+            if (gp == null) return max;
+            double distance = head.distance(gp.point);
+            if (closest[0] != null && distance >= max) return max;
+            closest[0] = gp;
+            return distance;
+        };
+
+        Acceleration current = acceleration;
+        if (current == null) {
+            for (int i = 0; i < geo.size(); i++) maxDistance = visitor.visit(i, maxDistance);
+            return closest[0];
+        }
+        // the unbounded geometries (typically a floor) go first, so their closest hit already limits the hierarchy
+        for (int i : current.unbounded) maxDistance = visitor.visit(i, maxDistance);
+        if (current.bvh != null)
+            current.bvh.traverse(ray, maxDistance, (i, max) -> visitor.visit(current.bounded[i], max));
+        return closest[0];
+    }
+}
@@ -0,0 +1,331 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.List;
+
+/**
+ * The Instance class places a shared geometry in the scene with its own affine transformation.
+ * Rays are transformed into the local space of the shared geometry, so a geometry (with its prebuilt
+ * acceleration structure) is stored once no matter how many times it appears in the scene.
+ * A {@link Geometries} of instances forms the top level of a two-level acceleration structure.
+ * <p>
+ * An instance may move linearly between two transformations over the motion interval - a ray meets it
+ * placed by the transformation interpolated at the time of the ray (see {@link Ray#getTime()}),
+ * and its bounding box covers the whole motion.
+ */
+public class Instance extends Intersectable {
+    /**
+     * A placement of the shared geometry.
+     *
+     * @param toWorld transformation from the local space of the shared geometry into the scene
+     * @param toLocal transformation from the scene into the local space of the shared geometry
+     */
+    private record Frame(Transform toWorld, Transform toLocal) {
+        /**
+         * Constructs a placement from its transformation into the scene.
+         *
+         * @param toWorld transformation from the local space of the shared geometry into the scene
+         * @throws IllegalArgumentException if the transformation is singular
+         */
+        Frame(Transform toWorld) {
+            this(toWorld, toWorld.inverse());
+        }
+    }
+
+    /** The shared geometry */
+    private final Intersectable prototype;
+    /** Placement at the start of the motion interval */
+    private Frame frame;
+    /** Transformation into the scene at the end of the motion interval, null if the instance does not move */
+    private Transform endTransform;
+
+    /**
+     * Constructs an instance of a shared geometry.
+     *
+     * @param prototype the shared geometry
+     * @param transform transformation from the local space of the shared geometry into the scene
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Instance(Intersectable prototype, Transform transform) {
+        this.prototype = prototype;
+        this.frame = new Frame(transform);
+    }
+
+    /**
+     * Gets the shared geometry of the instance.
+     *
+     * @return the shared geometry
+     */
+    public Intersectable getPrototype() {
+        return prototype;
+    }
+
+    /**
+     * Gets the transformation of the instance (at the start of its motion).
+     *
+     * @return transformation from the local space of the shared geometry into the scene
+     */
+    public Transform getTransform() {
+        return frame.toWorld;
+    }
+
+    /**
+     * Gets the transformation of the instance at a time of the motion interval.
+     *
+     * @param time the time, 0 for the start of the motion interval and 1 for its end
+     * @return transformation from the local space of the shared geometry into the scene
+     */
+    public Transform getTransform(double time) {
+        return endTransform == null ? frame.toWorld : frame.toWorld.interpolate(endTransform, time);
+    }
+
+    /**
+     * Checks whether the instance moves over the motion interval.
+     *
+     * @return true if the instance has a motion
+     */
+    public boolean isMoving() {
+        return endTransform != null;
+    }
+
+    /**
+     * Moves the instance by replacing its transformation, e.g. between animation frames.
+     * The motion of the instance, if any, is dropped.
+     * It must not be called while the scene is rendered - refit the containing collections afterwards
+     * (see {@link Geometries#refitBvh()}).
+     *
+     * @param transform transformation from the local space of the shared geometry into the scene
+     * @return the instance itself for method chaining
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Instance setTransform(Transform transform) {
+        this.frame = new Frame(transform);
+        this.endTransform = null;
+        return this;
+    }
+
+    /**
+     * Sets a linear motion of the instance over the motion interval. The instance is placed by the element-wise
+     * interpolation of the two transformations, so every point of it moves along a segment - the in-between
+     * transformations must not be singular (e.g. a half turn must be split into smaller turns).
+     * It must not be called while the scene is rendered - refit the containing collections afterwards
+     * (see {@link Geometries#refitBvh()}).
+     *
+     * @param start transformation from the local space of the shared geometry into the scene at the start
+     *              of the motion interval
+     * @param end   transformation at the end of the motion interval
+     * @return the instance itself for method chaining
+     * @throws IllegalArgumentException if a transformation is singular
+     */
+    public Instance setMotion(Transform start, Transform end) {
+        requireInvertible(end);
+        this.frame = new Frame(start);
+        this.endTransform = end;
+        return this;
+    }
+
+    /**
+     * Checks that a transformation can place the instance - the end of a motion is inverted only when
+     * interpolated, so a singular one must be rejected when the motion is set.
+     *
+     * @param transform the transformation
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    private static void requireInvertible(Transform transform) {
+        if (transform.isSingular()) throw new IllegalArgumentException("Singular transformation has no inverse");
+    }
+
+    /**
+     * Gets the placement of the instance at the time of a ray.
+     *
+     * @param ray the ray
+     * @return the placement
+     */
+    private Frame frame(Ray ray) {
+        double time = ray.getTime();
+        return endTransform == null || time == 0 ? frame : new Frame(frame.toWorld.interpolate(endTransform, time));
+    }
+
+    /**
+     * Calculates the bounding box of a local box placed by a transformation.
+     *
+     * @param box       the local box
+     * @param transform transformation from the local space into the scene
+     * @return the placed box
+     */
+    private static BoundingBox place(BoundingBox box, Transform transform) {
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; ++i)
+            corners[i] = transform.apply(new Point(
+                    (i & 1) == 0 ? box.minX : box.maxX,
+                    (i & 2) == 0 ? box.minY : box.maxY,
+                    (i & 4) == 0 ? box.minZ : box.maxZ));
+        return BoundingBox.of(corners);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return bounds(prototype.getBoundingBox());
+    }
+
+    /**
+     * Calculates the bounding box of a local box placed by the instance over its whole motion.
+     *
+     * @param box the local box
+     * @return the placed box, null for an unbounded local box
+     */
+    private BoundingBox bounds(BoundingBox box) {
+        if (box == null || box.isEmpty()) return box;
+        // every point moves along a segment, so the boxes at both ends bound the whole motion
+        BoundingBox start = place(box, frame.toWorld);
+        return endTransform == null ? start : start.union(place(box, endTransform));
+    }
+
+    /**
+     * Transforms a ray into the local space of the shared geometry.
+     * The local ray direction is normalized, so distances along it are scaled by the length of the
+     * transformed direction.
+     *
+     * @param ray   the ray in the scene
+     * @param frame the placement at the time of the ray
+     * @return the local ray
+     */
+    private static Ray localRay(Ray ray, Frame frame) {
+        return new Ray(frame.toLocal.apply(ray.getHead()), frame.toLocal.applyLinear(ray.getDirection()),
+                ray.getTime());
+    }
+
+    /**
+     * Calculates the scale of distances along a ray in the local space of the shared geometry.
+     *
+     * @param ray   the ray in the scene
+     * @param frame the placement at the time of the ray
+     * @return the local distance of a unit distance along the ray
+     */
+    private static double distanceScale(Ray ray, Frame frame) {
+        return frame.toLocal.applyLinear(ray.getDirection()).length();
+    }
+
+    /**
+     * Transforms a local intersection into the scene.
+     *
+     * @param gp    the intersection with the shared geometry
+     * @param frame the placement at the time of the ray
+     * @return the intersection with the instance
+     */
+    private GeoPoint toWorld(GeoPoint gp, Frame frame) {
+        // a precomputed local normal is transformed by the inverse transpose of the transformation
+        return new GeoPoint(new Placed(gp.geometry, frame), frame.toWorld.apply(gp.point),
+                gp.normal == null ? null : frame.toLocal.applyTranspose(gp.normal));
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Frame placement = frame(ray);
+        List<GeoPoint> intersections = prototype.findGeoIntersections(localRay(ray, placement),
+                maxDistance * distanceScale(ray, placement));
+        return intersections == null ? null : intersections.stream().map(gp -> toWorld(gp, placement)).toList();
+    }
+
+    @Override
+    GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        Frame placement = frame(ray);
+        GeoPoint gp = prototype.findClosestGeoIntersection(localRay(ray, placement),
+                maxDistance * distanceScale(ray, placement));
+        return gp == null ? null : toWorld(gp, placement);
+    }
+
+    /**
+     * A geometry of the shared geometry as placed by the instance. It is a light-weight view sharing
+     * the material and emission of the geometry, and it is created for intersection results only.
+     * Its normals are those of the placement it was hit at, and rays meet it placed at their own time.
+     */
+    public final class Placed extends Geometry {
+        /** The geometry in the local space of the shared geometry */
+        private final Geometry geometry;
+        /** The placement of the instance at the time of the hit */
+        private final Frame frame;
+
+        /**
+         * Constructs a placed view of a geometry.
+         *
+         * @param geometry the geometry in the local space
+         * @param frame    the placement of the instance at the time of the hit
+         */
+        private Placed(Geometry geometry, Frame frame) {
+            this.geometry = geometry;
+            this.frame = frame;
+        }
+
+        /**
+         * Gets the instance placing the geometry.
+         *
+         * @return the instance
+         */
+        public Instance getInstance() {
+            return Instance.this;
+        }
+
+        /**
+         * Gets the geometry in the local space of the shared geometry.
+         *
+         * @return the local geometry
+         */
+        public Geometry getGeometry() {
+            return geometry;
+        }
+
+        @Override
+        public Color getEmission() {
+            return geometry.getEmission();
+        }
+
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("Placed geometry emission is defined by the shared geometry");
+        }
+
+        @Override
+        public Material getMaterial() {
+            return geometry.getMaterial();
+        }
+
+        @Override
+        public Geometry setMaterial(Material material) {
+            throw new UnsupportedOperationException("Placed geometry material is defined by the shared geometry");
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            // normals are transformed by the inverse transpose of the transformation
+            return frame.toLocal.applyTranspose(geometry.getNormal(frame.toLocal.apply(point)));
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            return bounds(geometry.getBoundingBox());
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            Frame placement = frame(ray);
+            List<GeoPoint> intersections = geometry.findGeoIntersections(localRay(ray, placement),
+                    maxDistance * distanceScale(ray, placement));
+            return intersections == null ? null
+                    : intersections.stream().map(gp -> new GeoPoint(this, placement.toWorld.apply(gp.point))).toList();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof Placed placed && placed.getInstance() == Instance.this
+                    && placed.geometry.equals(geometry);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Instance.this) * 31 + geometry.hashCode();
+        }
+    }
+}
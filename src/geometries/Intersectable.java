@@ -1,7 +1,9 @@
 package geometries;
 
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 
 import java.util.List;
 
@@ -34,12 +36,39 @@ public abstract class Intersectable {
         public Geometry geometry;
         /** The point of intersection. */
         public Point point;
+        /** The normal of the geometry at the point, null until it is needed (see {@link #getNormal()}). */
+        public Vector normal;
+        /** The material of the geometry at the point, set by the renderer once per hit. */
+        public Material material;
 
         public GeoPoint(Geometry geometry, Point point){
             this.geometry = geometry;
             this.point = point;
         }
 
+        /**
+         * Constructs a geometric point with a known normal - flat geometries pass their precomputed normal.
+         *
+         * @param geometry the intersected geometry
+         * @param point    the point of intersection
+         * @param normal   the normal of the geometry at the point
+         */
+        public GeoPoint(Geometry geometry, Point point, Vector normal){
+            this.geometry = geometry;
+            this.point = point;
+            this.normal = normal;
+        }
+
+        /**
+         * Gets the normal of the geometry at the point. It is calculated on the first call only.
+         *
+         * @return the normal
+         */
+        public Vector getNormal() {
+            if (normal == null) normal = geometry.getNormal(point);
+            return normal;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -79,6 +108,50 @@ public abstract class Intersectable {
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
+    /**
+     * Finds the closest geometric intersection between the current object and the specified ray.
+     *
+     * @param ray The ray to be intersected with the object.
+     * @return The intersection closest to the head of the ray, or null if there are no intersections.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest geometric intersection between the current object and the specified ray
+     * within a maximum distance.
+     *
+     * @param ray         The ray to be intersected with the object.
+     * @param maxDistance The maximum distance to consider for intersections.
+     * @return The intersection closest to the head of the ray, or null if there are no intersections
+     *         within the maximum distance.
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * Finds the closest geometric intersection between the current object and the specified ray.
+     * Collections override it to stop looking beyond the closest intersection found so far.
+     *
+     * @param ray         The ray to be intersected with the object.
+     * @param maxDistance The maximum distance to consider for intersections.
+     * @return The closest intersection within the maximum distance, or null if there is none.
+     */
+    GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+    }
+
+    /**
+     * Gets the axis-aligned box bounding the object, used by the acceleration structures.
+     *
+     * @return the bounding box of the object, or null if the object is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
     /**
      * Finds the geometric intersections between the current object and the specified ray.
      * This method is responsible for handling the maximum distance for intersection calculations.
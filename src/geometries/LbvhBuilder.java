@@ -0,0 +1,293 @@
+package geometries;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * The LbvhBuilder class builds a linear bounding volume hierarchy from Morton codes.
+ * <p>
+ * The primitive centroids are quantized on a 1024<sup>3</sup> grid, interleaved into 30 bit Morton codes and
+ * sorted with a parallel radix sort. Every inner node of the hierarchy is then found independently from the
+ * sorted codes (Karras 2012), and the node bounds are gathered bottom-up. All the passes are linear and parallel,
+ * so rebuilding is much faster than with {@link SahBvhBuilder}, at the cost of a somewhat lower tree quality.
+ */
+public class LbvhBuilder extends BvhBuilder {
+    /** Bits of a radix sort digit */
+    private static final int RADIX_BITS = 8;
+    /** Amount of radix sort buckets */
+    private static final int RADIX = 1 << RADIX_BITS;
+    /** Amount of primitives handled by a parallel radix sort chunk */
+    private static final int SORT_CHUNK = 1 << 16;
+
+    /** Maximal amount of primitives in a leaf */
+    private int maxLeafSize = 4;
+    /** Minimal amount of primitives in a sub-tree for gathering its bounds in a separate task */
+    private int parallelThreshold = 4096;
+
+    /**
+     * Sets the maximal amount of primitives in a leaf. Sub-trees over at most this amount of primitives
+     * are collapsed into leaves.
+     *
+     * @param maxLeafSize maximal amount of primitives (at least 1)
+     * @return the builder instance for method chaining
+     */
+    public LbvhBuilder setMaxLeafSize(int maxLeafSize) {
+        if (maxLeafSize < 1) throw new IllegalArgumentException("Leaf must hold at least 1 primitive");
+        this.maxLeafSize = maxLeafSize;
+        return this;
+    }
+
+    /**
+     * Sets the minimal amount of primitives in a sub-tree for gathering its bounds in a separate task.
+     *
+     * @param parallelThreshold the amount of primitives
+     * @return the builder instance for method chaining
+     */
+    public LbvhBuilder setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    @Override
+    Bvh build(double[] bounds, int count) {
+        long start = System.nanoTime();
+
+        // the centroid bounds define the quantization grid
+        double[] centroidBox = IntStream.range(0, count).parallel().collect(
+                () -> new double[]{
+                        Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY},
+                (box, i) -> {
+                    for (int axis = 0; axis < 3; ++axis) {
+                        double c = (bounds[6 * i + axis] + bounds[6 * i + axis + 3]) / 2;
+                        box[axis] = Math.min(box[axis], c);
+                        box[axis + 3] = Math.max(box[axis + 3], c);
+                    }
+                },
+                (box, other) -> {
+                    for (int axis = 0; axis < 3; ++axis) {
+                        box[axis] = Math.min(box[axis], other[axis]);
+                        box[axis + 3] = Math.max(box[axis + 3], other[axis + 3]);
+                    }
+                });
+
+        int[] codes = new int[count];
+        int[] order = new int[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            order[i] = i;
+            codes[i] = morton(bounds, i, centroidBox);
+        });
+        radixSort(codes, order);
+
+        Bvh.Node root;
+        if (count <= 1) root = new Gather(bounds, order, null, -1, 0, count).leaf();
+        else {
+            // every inner node is found independently from the sorted codes
+            int[] left = new int[count - 1], right = new int[count - 1];
+            int[] first = new int[count - 1], last = new int[count - 1];
+            IntStream.range(0, count - 1).parallel().forEach(i -> emit(codes, i, left, right, first, last));
+            Topology topology = new Topology(left, right, first, last);
+            root = ForkJoinPool.commonPool().invoke(new Gather(bounds, order, topology, 0, first[0], last[0] + 1));
+        }
+        return new Bvh(root, order, System.nanoTime() - start);
+    }
+
+    /**
+     * Calculates the Morton code of a primitive centroid.
+     *
+     * @param bounds      packed primitive bounds
+     * @param primitive   index of the primitive
+     * @param centroidBox bounds of all the centroids
+     * @return the 30 bit Morton code
+     */
+    private static int morton(double[] bounds, int primitive, double[] centroidBox) {
+        int code = 0;
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = centroidBox[axis + 3] - centroidBox[axis];
+            double c = (bounds[6 * primitive + axis] + bounds[6 * primitive + axis + 3]) / 2;
+            int cell = extent > 0 ? (int) Math.min(1023, (c - centroidBox[axis]) / extent * 1024) : 0;
+            code |= expandBits(cell) << (2 - axis);
+        }
+        return code;
+    }
+
+    /**
+     * Spreads the 10 low bits of a value so there are two zero bits between every two bits.
+     */
+    private static int expandBits(int v) {
+        v = (v * 0x00010001) & 0xFF0000FF;
+        v = (v * 0x00000101) & 0x0F00F00F;
+        v = (v * 0x00000011) & 0xC30C30C3;
+        v = (v * 0x00000005) & 0x49249249;
+        return v;
+    }
+
+    /**
+     * Sorts the codes together with the primitive order with a parallel least significant digit radix sort.
+     * Each pass counts the digits of fixed chunks in parallel, and after a prefix sum over the chunk counters
+     * every chunk scatters its keys into its own stable positions in parallel.
+     *
+     * @param codes the 30 bit codes
+     * @param order the primitive indices, permuted along with the codes
+     */
+    private static void radixSort(int[] codes, int[] order) {
+        int n = codes.length;
+        int chunks = Math.max(1, (n + SORT_CHUNK - 1) / SORT_CHUNK);
+        int[] codesTmp = new int[n], orderTmp = new int[n];
+        int[] srcCodes = codes, srcOrder = order, dstCodes = codesTmp, dstOrder = orderTmp;
+        for (int shift = 0; shift < 30; shift += RADIX_BITS) {
+            final int s = shift;
+            final int[] sc = srcCodes, so = srcOrder, dc = dstCodes, dor = dstOrder;
+            int[][] histograms = new int[chunks][RADIX];
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] histogram = histograms[c];
+                for (int i = c * SORT_CHUNK, end = Math.min(n, i + SORT_CHUNK); i < end; ++i)
+                    ++histogram[(sc[i] >>> s) & (RADIX - 1)];
+            });
+            // turn the counters into the starting positions of each digit in each chunk
+            int sum = 0;
+            for (int digit = 0; digit < RADIX; ++digit)
+                for (int c = 0; c < chunks; ++c) {
+                    int k = histograms[c][digit];
+                    histograms[c][digit] = sum;
+                    sum += k;
+                }
+            IntStream.range(0, chunks).parallel().forEach(c -> {
+                int[] position = histograms[c];
+                for (int i = c * SORT_CHUNK, end = Math.min(n, i + SORT_CHUNK); i < end; ++i) {
+                    int p = position[(sc[i] >>> s) & (RADIX - 1)]++;
+                    dc[p] = sc[i];
+                    dor[p] = so[i];
+                }
+            });
+            srcCodes = dc;
+            srcOrder = dor;
+            dstCodes = sc;
+            dstOrder = so;
+        }
+        if (srcCodes != codes) {
+            System.arraycopy(srcCodes, 0, codes, 0, n);
+            System.arraycopy(srcOrder, 0, order, 0, n);
+        }
+    }
+
+    /**
+     * Calculates the length of the common prefix of two sorted codes. Equal codes are told apart
+     * by their positions, so every two positions have a distinct prefix length.
+     *
+     * @return the common prefix length, or -1 if j is out of range
+     */
+    private static int delta(int[] codes, int i, int j) {
+        if (j < 0 || j >= codes.length) return -1;
+        int x = codes[i] ^ codes[j];
+        return x != 0 ? Integer.numberOfLeadingZeros(x) : 32 + Integer.numberOfLeadingZeros(i ^ j);
+    }
+
+    /**
+     * Finds the range and the children of an inner node. Inner node i has one end of its range at position i,
+     * and its split is at the highest differing bit of the codes in the range.
+     * Children are encoded as inner node indices, or as {@code ~position} for single primitive leaves.
+     */
+    private static void emit(int[] codes, int i, int[] left, int[] right, int[] first, int[] last) {
+        // direction of the range
+        int d = delta(codes, i, i + 1) - delta(codes, i, i - 1) > 0 ? 1 : -1;
+        int deltaMin = delta(codes, i, i - d);
+
+        // the other end of the range - exponential search followed by a binary search
+        int lengthMax = 2;
+        while (delta(codes, i, i + lengthMax * d) > deltaMin) lengthMax <<= 1;
+        int length = 0;
+        for (int t = lengthMax >> 1; t > 0; t >>= 1)
+            if (delta(codes, i, i + (length + t) * d) > deltaMin) length += t;
+        int j = i + length * d;
+
+        // the split position - binary search for the last position sharing more than the node prefix
+        int deltaNode = delta(codes, i, j);
+        int split = 0;
+        for (int divisor = 2; ; divisor <<= 1) {
+            int t = (length + divisor - 1) / divisor;
+            if (delta(codes, i, i + (split + t) * d) > deltaNode) split += t;
+            if (t <= 1) break;
+        }
+        int gamma = i + split * d + Math.min(d, 0);
+
+        first[i] = Math.min(i, j);
+        last[i] = Math.max(i, j);
+        left[i] = first[i] == gamma ? ~gamma : gamma;
+        right[i] = last[i] == gamma + 1 ? ~(gamma + 1) : gamma + 1;
+    }
+
+    /**
+     * Children and ranges of the inner nodes.
+     */
+    private record Topology(int[] left, int[] right, int[] first, int[] last) {}
+
+    /** Task creating the nodes of a sub-tree with their bounds gathered bottom-up */
+    @SuppressWarnings("serial")
+    private class Gather extends RecursiveTask<Bvh.Node> {
+        final double[] bounds;
+        final int[] order;
+        final Topology topology;
+        /** Inner node index, or -1 for a leaf */
+        final int node;
+        final int start, end;
+
+        Gather(double[] bounds, int[] order, Topology topology, int node, int start, int end) {
+            this.bounds = bounds;
+            this.order = order;
+            this.topology = topology;
+            this.node = node;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Creates a gathering task of an encoded child.
+         */
+        private Gather child(int code) {
+            if (code < 0) return new Gather(bounds, order, topology, -1, ~code, ~code + 1);
+            return new Gather(bounds, order, topology, code, topology.first[code], topology.last[code] + 1);
+        }
+
+        /**
+         * Creates a leaf over the range of the task.
+         */
+        Bvh.Node leaf() {
+            double[] box = {
+                    Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (int i = start; i < end; ++i) {
+                int p = order[i];
+                for (int axis = 0; axis < 3; ++axis) {
+                    box[axis] = Math.min(box[axis], bounds[6 * p + axis]);
+                    box[axis + 3] = Math.max(box[axis + 3], bounds[6 * p + axis + 3]);
+                }
+            }
+            return new Bvh.Node(box, start, end - start);
+        }
+
+        @Override
+        protected Bvh.Node compute() {
+            int n = end - start;
+            if (node < 0 || n <= maxLeafSize) return leaf();
+
+            Gather leftTask = child(topology.left[node]);
+            Gather rightTask = child(topology.right[node]);
+            Bvh.Node leftNode, rightNode;
+            if (n < parallelThreshold) {
+                leftNode = leftTask.compute();
+                rightNode = rightTask.compute();
+            } else {
+                leftTask.fork();
+                rightNode = rightTask.compute();
+                leftNode = leftTask.join();
+            }
+            return new Bvh.Node(new double[]{
+                    Math.min(leftNode.minX, rightNode.minX), Math.min(leftNode.minY, rightNode.minY),
+                    Math.min(leftNode.minZ, rightNode.minZ), Math.max(leftNode.maxX, rightNode.maxX),
+                    Math.max(leftNode.maxY, rightNode.maxY), Math.max(leftNode.maxZ, rightNode.maxZ)},
+                    leftNode, rightNode);
+        }
+    }
+}
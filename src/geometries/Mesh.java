@@ -0,0 +1,499 @@
+package geometries;
+
+import primitives.*;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * The Mesh class represents a compact triangle mesh in three-dimensional space.
+ * The vertices are kept as packed x,y,z coordinates and the triangles as packed triples of vertex indices,
+ * so a mesh may be backed either by plain arrays or by a memory-mapped file without creating a
+ * {@link Point} per vertex. All the triangles of the mesh share its material and emission.
+ */
+public class Mesh extends Geometry {
+
+    /** Packed x,y,z coordinates of the vertices. */
+    private final DoubleBuffer vertices;
+
+    /** Packed vertex index triples of the triangles. */
+    private final IntBuffer indices;
+
+    /** Index of the first triangle of this mesh inside the index buffer. */
+    private final int first;
+
+    /** The amount of triangles in the mesh. */
+    private final int count;
+
+    /** Depth of the sub-trees refitted in separate tasks. */
+    private static final int REFIT_PARALLEL_DEPTH = 6;
+
+    /** Bounding volume hierarchy over the triangles, null while not built. */
+    private volatile Bvh bvh = null;
+
+    /** Packed x,y,z coordinates of the triangle normals, null while not calculated. */
+    private volatile double[] normals = null;
+
+    /**
+     * Constructs a mesh over arrays of packed vertex coordinates and packed triangle indices.
+     *
+     * @param vertices x,y,z coordinates of the vertices
+     * @param indices  three vertex indices per triangle
+     */
+    public Mesh(double[] vertices, int[] indices) {
+        this(DoubleBuffer.wrap(vertices), IntBuffer.wrap(indices), 0, indices.length / 3);
+    }
+
+    /**
+     * Constructs a mesh over a range of triangles of (possibly shared) vertex and index buffers.
+     *
+     * @param vertices      x,y,z coordinates of the vertices
+     * @param indices       three vertex indices per triangle
+     * @param firstTriangle index of the first triangle of the mesh
+     * @param triangleCount the amount of triangles in the mesh
+     * @throws IllegalArgumentException if the triangle range exceeds the index buffer
+     */
+    public Mesh(DoubleBuffer vertices, IntBuffer indices, int firstTriangle, int triangleCount) {
+        if (firstTriangle < 0 || triangleCount < 0 || (long) (firstTriangle + triangleCount) * 3 > indices.limit())
+            throw new IllegalArgumentException("Triangle range exceeds the index buffer");
+        if (vertices.limit() % 3 != 0)
+            throw new IllegalArgumentException("Vertex buffer must hold x,y,z triples");
+        this.vertices = vertices;
+        this.indices = indices;
+        this.first = firstTriangle;
+        this.count = triangleCount;
+    }
+
+    /**
+     * Gets the vertex buffer of the mesh (it may be shared with other meshes).
+     *
+     * @return read-only view of the packed vertex coordinates
+     */
+    public DoubleBuffer getVertices() {
+        return vertices.asReadOnlyBuffer();
+    }
+
+    /**
+     * Gets the amount of vertices in the vertex buffer.
+     *
+     * @return the amount of vertices
+     */
+    public int getVertexCount() {
+        return vertices.limit() / 3;
+    }
+
+    /**
+     * Gets the amount of triangles in the mesh.
+     *
+     * @return the amount of triangles
+     */
+    public int getTriangleCount() {
+        return count;
+    }
+
+    /**
+     * Gets the index of a vertex of a triangle.
+     *
+     * @param triangle index of the triangle in the mesh
+     * @param corner   0, 1 or 2
+     * @return index of the vertex in the vertex buffer
+     */
+    public int getVertexIndex(int triangle, int corner) {
+        return indices.get((first + triangle) * 3 + corner);
+    }
+
+    /**
+     * Gets a coordinate of a vertex.
+     *
+     * @param vertex index of the vertex
+     * @param axis   0 for X, 1 for Y and 2 for Z
+     * @return the coordinate value
+     */
+    public double getCoordinate(int vertex, int axis) {
+        return vertices.get(vertex * 3 + axis);
+    }
+
+    /**
+     * Gets a single triangle of the mesh as a geometry sharing the material and emission of the mesh.
+     *
+     * @param triangle index of the triangle in the mesh
+     * @return the face of the triangle
+     */
+    public Face getFace(int triangle) {
+        if (triangle < 0 || triangle >= count) throw new IndexOutOfBoundsException(triangle);
+        return new Face(triangle);
+    }
+
+    /**
+     * Builds a bounding volume hierarchy over the triangles of the mesh.
+     *
+     * @param builder the hierarchy builder
+     * @return statistics of the built hierarchy
+     */
+    public BvhStats buildBvh(BvhBuilder builder) {
+        double[] bounds = new double[6 * count];
+        IntStream.range(0, count).parallel().forEach(i -> triangleBounds(i, bounds, 6 * i));
+        Bvh built = builder.build(bounds, count);
+        bvh = built;
+        normals = null;
+        return built.stats;
+    }
+
+    /**
+     * Refits the bounding volume hierarchy of the mesh to vertices that moved since it was built,
+     * keeping the tree topology. A mesh with no hierarchy is built with the default {@link SahBvhBuilder}.
+     *
+     * @return statistics of the refitted hierarchy
+     */
+    public BvhStats refitBvh() {
+        Bvh current = bvh;
+        if (current == null) return buildBvh(new SahBvhBuilder());
+        double[] bounds = new double[6 * count];
+        IntStream.range(0, count).parallel().forEach(i -> triangleBounds(i, bounds, 6 * i));
+        normals = null;
+        return current.refit(bounds, REFIT_PARALLEL_DEPTH);
+    }
+
+    /**
+     * Gets the statistics of the bounding volume hierarchy of the mesh.
+     *
+     * @return the statistics, or null if there is no hierarchy
+     */
+    public BvhStats getBvhStats() {
+        Bvh current = bvh;
+        return current == null ? null : current.stats;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        // the root of the hierarchy bounds the triangles as built or last refitted
+        Bvh current = bvh;
+        if (current != null) return current.getBounds();
+        double[] box = new double[6];
+        double[] all = {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < count; ++i) {
+            triangleBounds(i, box, 0);
+            for (int axis = 0; axis < 3; ++axis) {
+                all[axis] = Math.min(all[axis], box[axis]);
+                all[axis + 3] = Math.max(all[axis + 3], box[axis + 3]);
+            }
+        }
+        return new BoundingBox(all[0], all[1], all[2], all[3], all[4], all[5]);
+    }
+
+    /**
+     * Calculates the bounding box of a triangle of the mesh.
+     *
+     * @param triangle index of the triangle in the mesh
+     * @param box      the destination array - minimal corner followed by maximal corner
+     * @param offset   offset of the box in the array
+     */
+    void triangleBounds(int triangle, double[] box, int offset) {
+        int base = (first + triangle) * 3;
+        for (int axis = 0; axis < 3; ++axis) {
+            double c0 = vertices.get(indices.get(base) * 3 + axis);
+            double c1 = vertices.get(indices.get(base + 1) * 3 + axis);
+            double c2 = vertices.get(indices.get(base + 2) * 3 + axis);
+            box[offset + axis] = Math.min(c0, Math.min(c1, c2));
+            box[offset + axis + 3] = Math.max(c0, Math.max(c1, c2));
+        }
+    }
+
+    /**
+     * Gets the normal of a triangle of the mesh. The normals of all the triangles are calculated together
+     * on the first call, and again after the hierarchy is built or refitted to moved vertices.
+     *
+     * @param triangle index of the triangle in the mesh
+     * @return the normalized normal of the triangle
+     */
+    Vector faceNormal(int triangle) {
+        double[] current = normals;
+        if (current == null) {
+            double[] calculated = new double[3 * count];
+            IntStream.range(0, count).parallel().forEach(i -> calculateNormal(i, calculated, 3 * i));
+            normals = current = calculated;
+        }
+        int offset = 3 * triangle;
+        return new Vector(current[offset], current[offset + 1], current[offset + 2]);
+    }
+
+    /**
+     * Calculates the normal of a triangle of the mesh.
+     *
+     * @param triangle    index of the triangle in the mesh
+     * @param destination the destination array
+     * @param offset      offset of the normal in the array
+     */
+    private void calculateNormal(int triangle, double[] destination, int offset) {
+        int base = (first + triangle) * 3;
+        int i0 = indices.get(base) * 3, i1 = indices.get(base + 1) * 3, i2 = indices.get(base + 2) * 3;
+        double e1x = vertices.get(i1) - vertices.get(i0);
+        double e1y = vertices.get(i1 + 1) - vertices.get(i0 + 1);
+        double e1z = vertices.get(i1 + 2) - vertices.get(i0 + 2);
+        double e2x = vertices.get(i2) - vertices.get(i0);
+        double e2y = vertices.get(i2 + 1) - vertices.get(i0 + 1);
+        double e2z = vertices.get(i2 + 2) - vertices.get(i0 + 2);
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        destination[offset] = nx / length;
+        destination[offset + 1] = ny / length;
+        destination[offset + 2] = nz / length;
+    }
+
+    /**
+     * Intersects a ray with a single triangle of the mesh (Möller–Trumbore algorithm).
+     * The edges of the triangle are not considered as a part of it, as in {@link Triangle}.
+     *
+     * @param triangle    index of the triangle in the mesh
+     * @param ray         the ray
+     * @param maxDistance the maximum distance to consider
+     * @return the distance of the intersection from the ray head, or {@link Double#NaN} if there is none
+     */
+    double intersect(int triangle, Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+
+        int base = (first + triangle) * 3;
+        int i0 = indices.get(base) * 3, i1 = indices.get(base + 1) * 3, i2 = indices.get(base + 2) * 3;
+        double v0x = vertices.get(i0), v0y = vertices.get(i0 + 1), v0z = vertices.get(i0 + 2);
+        double e1x = vertices.get(i1) - v0x, e1y = vertices.get(i1 + 1) - v0y, e1z = vertices.get(i1 + 2) - v0z;
+        double e2x = vertices.get(i2) - v0x, e2y = vertices.get(i2 + 1) - v0y, e2z = vertices.get(i2 + 2) - v0z;
+
+        // p = dir x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        // the ray is parallel to the triangle plane
+        if (isZero(det)) return Double.NaN;
+        double inv = 1 / det;
+
+        double sx = head.getX() - v0x, sy = head.getY() - v0y, sz = head.getZ() - v0z;
+        double u = alignZero((sx * px + sy * py + sz * pz) * inv);
+        if (u <= 0 || alignZero(u - 1) >= 0) return Double.NaN;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inv);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.NaN;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        return t > 0 && alignZero(t - maxDistance) <= 0 ? t : Double.NaN;
+    }
+
+    /**
+     * Gets the normal of the mesh at a point on its surface - the normal of the face closest to the point.
+     * The faces are searched linearly, so the intersections of the mesh (which are its {@link Face}s) should
+     * be preferred in any frequent use.
+     *
+     * @param point a point on the mesh
+     * @return the normal of the closest face
+     * @throws IllegalArgumentException if the mesh has no triangles
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        if (count == 0) throw new IllegalArgumentException("Mesh has no triangles");
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int closest = 0;
+        double minDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; ++i) {
+            double distance = distance2(i, px, py, pz);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = i;
+            }
+        }
+        return faceNormal(closest);
+    }
+
+    /**
+     * Calculates the squared distance of a point from a triangle of the mesh, by the region of the triangle
+     * (vertex, edge or face) the point is projected into.
+     *
+     * @param triangle index of the triangle in the mesh
+     * @param px       x coordinate of the point
+     * @param py       y coordinate of the point
+     * @param pz       z coordinate of the point
+     * @return the squared distance
+     */
+    private double distance2(int triangle, double px, double py, double pz) {
+        int base = (first + triangle) * 3;
+        int i0 = indices.get(base) * 3, i1 = indices.get(base + 1) * 3, i2 = indices.get(base + 2) * 3;
+        double ax = vertices.get(i0), ay = vertices.get(i0 + 1), az = vertices.get(i0 + 2);
+        double abx = vertices.get(i1) - ax, aby = vertices.get(i1 + 1) - ay, abz = vertices.get(i1 + 2) - az;
+        double acx = vertices.get(i2) - ax, acy = vertices.get(i2 + 1) - ay, acz = vertices.get(i2 + 2) - az;
+        double apx = px - ax, apy = py - ay, apz = pz - az;
+
+        double d1 = abx * apx + aby * apy + abz * apz, d2 = acx * apx + acy * apy + acz * apz;
+        double ab2 = abx * abx + aby * aby + abz * abz, ac2 = acx * acx + acy * acy + acz * acz;
+        double abac = abx * acx + aby * acy + abz * acz;
+        // the projections on AB and AC of the point relative to B and C
+        double d3 = d1 - ab2, d4 = d2 - abac, d5 = d1 - abac, d6 = d2 - ac2;
+        double u, v;
+        if (d1 <= 0 && d2 <= 0) { // vertex A
+            u = 0;
+            v = 0;
+        } else if (d3 >= 0 && d4 <= d3) { // vertex B
+            u = 1;
+            v = 0;
+        } else if (d6 >= 0 && d5 <= d6) { // vertex C
+            u = 0;
+            v = 1;
+        } else {
+            double va = d3 * d6 - d5 * d4, vb = d5 * d2 - d1 * d6, vc = d1 * d4 - d3 * d2;
+            if (vc <= 0 && d1 >= 0 && d3 <= 0) { // edge AB
+                u = d1 / (d1 - d3);
+                v = 0;
+            } else if (vb <= 0 && d2 >= 0 && d6 <= 0) { // edge AC
+                u = 0;
+                v = d2 / (d2 - d6);
+            } else if (va <= 0 && d4 - d3 >= 0 && d5 - d6 >= 0) { // edge BC
+                v = (d4 - d3) / ((d4 - d3) + (d5 - d6));
+                u = 1 - v;
+            } else { // face
+                double denominator = va + vb + vc;
+                u = vb / denominator;
+                v = vc / denominator;
+            }
+        }
+        double dx = apx - u * abx - v * acx, dy = apy - u * aby - v * acy, dz = apz - u * abz - v * acz;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Bvh current = bvh;
+        if (current != null) {
+            List<GeoPoint> intersections = new LinkedList<>();
+            current.traverse(ray, maxDistance, (i, max) -> {
+                double t = intersect(i, ray, max);
+                if (!Double.isNaN(t)) intersections.add(new GeoPoint(new Face(i), ray.getPoint(t)));
+                return max;
+            });
+            return intersections.isEmpty() ? null : intersections;
+        }
+
+        List<GeoPoint> intersections = null;
+        for (int i = 0; i < count; ++i) {
+            double t = intersect(i, ray, maxDistance);
+            if (Double.isNaN(t)) continue;
+            if (intersections == null) intersections = new LinkedList<>();
+            intersections.add(new GeoPoint(new Face(i), ray.getPoint(t)));
+        }
+        return intersections;
+    }
+
+    @Override
+    GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        int[] closest = {-1};
+        Bvh.LeafVisitor visitor = (i, max) -> {
+            double t = intersect(i, ray, max);
+            if (Double.isNaN(t) || closest[0] >= 0 && t >= max) return max;
+            closest[0] = i;
+            return t;
+        };
+
+        Bvh current = bvh;
+        double t = maxDistance;
+        if (current != null) t = current.traverse(ray, maxDistance, visitor);
+        else for (int i = 0; i < count; ++i) t = visitor.visit(i, t);
+        return closest[0] < 0 ? null : new GeoPoint(new Face(closest[0]), ray.getPoint(t));
+    }
+
+    /**
+     * A single triangle of a mesh. It is a light-weight view sharing the material and emission of the mesh,
+     * and it is created for intersection results only.
+     */
+    public final class Face extends Geometry implements FlatGeometry {
+        /** Index of the triangle in the mesh. */
+        private final int triangle;
+
+        /**
+         * Constructs a face view of a triangle of the mesh.
+         *
+         * @param triangle index of the triangle in the mesh
+         */
+        private Face(int triangle) {
+            this.triangle = triangle;
+        }
+
+        /**
+         * Gets the mesh of the face.
+         *
+         * @return the mesh
+         */
+        public Mesh getMesh() {
+            return Mesh.this;
+        }
+
+        /**
+         * Gets the index of the triangle in the mesh.
+         *
+         * @return index of the triangle
+         */
+        public int getTriangle() {
+            return triangle;
+        }
+
+        @Override
+        public Color getEmission() {
+            return Mesh.this.getEmission();
+        }
+
+        @Override
+        public Geometry setEmission(Color emission) {
+            throw new UnsupportedOperationException("Face emission is defined by its mesh");
+        }
+
+        @Override
+        public Material getMaterial() {
+            return Mesh.this.getMaterial();
+        }
+
+        @Override
+        public Geometry setMaterial(Material material) {
+            throw new UnsupportedOperationException("Face material is defined by its mesh");
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return faceNormal(triangle);
+        }
+
+        @Override
+        public Vector getNormal() {
+            return faceNormal(triangle);
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            double[] box = new double[6];
+            triangleBounds(triangle, box, 0);
+            return new BoundingBox(box[0], box[1], box[2], box[3], box[4], box[5]);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double t = intersect(triangle, ray, maxDistance);
+            return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof Face face && face.getMesh() == Mesh.this && face.triangle == triangle;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(Mesh.this) * 31 + triangle;
+        }
+    }
+}
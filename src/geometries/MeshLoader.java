@@ -0,0 +1,572 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Material;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The MeshLoader class imports Wavefront OBJ and binary PLY models into a {@link Mesh}.
+ * <p>
+ * The file is memory-mapped and parsed in parallel chunks directly into packed vertex and index arrays,
+ * without creating any intermediate object per vertex or per face. Polygonal faces are triangulated as fans.
+ * Only the vertex positions and the faces are imported - the whole model gets a single material and emission.
+ */
+public final class MeshLoader {
+    /** Minimal size in bytes of a chunk of a file parsed by a single task */
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    /** Minimal amount of records of a binary file parsed by a single task */
+    private static final int MIN_CHUNK_RECORDS = 1 << 16;
+
+    /** Don't let anyone instantiate this class. */
+    private MeshLoader() {}
+
+    /**
+     * Loads a model file according to its extension (.obj or .ply).
+     *
+     * @param path the model file
+     * @return the mesh of the model
+     * @throws IOException              in case of an I/O failure
+     * @throws IllegalArgumentException if the file format is not supported or the file is malformed
+     */
+    public static Mesh load(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj")) return loadObj(path);
+        if (name.endsWith(".ply")) return loadPly(path);
+        throw new IllegalArgumentException("Unsupported mesh file " + path);
+    }
+
+    /**
+     * Loads a model file according to its extension (.obj or .ply) and assigns material and emission to
+     * all of its triangles at once.
+     *
+     * @param path     the model file
+     * @param material the material of the model
+     * @param emission the emission color of the model
+     * @return the mesh of the model
+     * @throws IOException              in case of an I/O failure
+     * @throws IllegalArgumentException if the file format is not supported or the file is malformed
+     */
+    public static Mesh load(Path path, Material material, Color emission) throws IOException {
+        Mesh mesh = load(path);
+        mesh.setMaterial(material).setEmission(emission);
+        return mesh;
+    }
+
+    /**
+     * Loads a Wavefront OBJ model. Only "v" and "f" statements are imported, other statements are ignored.
+     *
+     * @param path the model file
+     * @return the mesh of the model
+     * @throws IOException              in case of an I/O failure
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static Mesh loadObj(Path path) throws IOException {
+        ByteBuffer data = map(path);
+        int[] bounds = lineChunks(data);
+        ObjChunk[] chunks = new ObjChunk[bounds.length - 1];
+        IntStream.range(0, chunks.length).parallel()
+                .forEach(c -> chunks[c] = new ObjChunk(data, bounds[c], bounds[c + 1]).parse());
+
+        // resolve the relative indices of each chunk by the amount of vertices in the preceding chunks
+        int[] vertexBase = new int[chunks.length + 1];
+        int[] indexBase = new int[chunks.length + 1];
+        for (int c = 0; c < chunks.length; ++c) {
+            vertexBase[c + 1] = vertexBase[c] + chunks[c].vertexSize / 3;
+            indexBase[c + 1] = indexBase[c] + chunks[c].indexSize;
+        }
+        double[] vertices = new double[vertexBase[chunks.length] * 3];
+        int[] indices = new int[indexBase[chunks.length]];
+        IntStream.range(0, chunks.length).parallel().forEach(c -> {
+            ObjChunk chunk = chunks[c];
+            System.arraycopy(chunk.vertices, 0, vertices, vertexBase[c] * 3, chunk.vertexSize);
+            System.arraycopy(chunk.indices, 0, indices, indexBase[c], chunk.indexSize);
+            for (int i = 0; i < chunk.relativeSize; ++i)
+                indices[indexBase[c] + chunk.relative[i]] += vertexBase[c];
+        });
+        return createMesh(vertices, indices);
+    }
+
+    /**
+     * Loads a binary (little or big endian) PLY model. The vertex element must have x, y and z properties
+     * and the face element must have a vertex index list property.
+     *
+     * @param path the model file
+     * @return the mesh of the model
+     * @throws IOException              in case of an I/O failure
+     * @throws IllegalArgumentException if the file is malformed or is not a binary PLY file
+     */
+    public static Mesh loadPly(Path path) throws IOException {
+        ByteBuffer data = map(path);
+        PlyHeader header = new PlyHeader(data);
+        ByteBuffer body = data.duplicate().order(header.order);
+
+        int offset = header.bodyOffset;
+        double[] vertices = null;
+        int[] indices = null;
+        for (PlyElement element : header.elements) {
+            if (element.name.equals("vertex")) vertices = readPlyVertices(body, offset, element);
+            else if (element.name.equals("face")) {
+                int[] end = new int[1];
+                indices = readPlyFaces(body, offset, element, end);
+                offset = end[0];
+                continue;
+            }
+            if (element.recordSize < 0)
+                throw new IllegalArgumentException("Unsupported variable size PLY element " + element.name);
+            offset += element.recordSize * element.count;
+        }
+        if (vertices == null || indices == null)
+            throw new IllegalArgumentException("PLY file must have vertex and face elements");
+        return createMesh(vertices, indices);
+    }
+
+    /**
+     * Creates a mesh after validating that all the indices refer to existing vertices.
+     *
+     * @param vertices packed vertex coordinates
+     * @param indices  packed triangle indices
+     * @return the mesh
+     */
+    private static Mesh createMesh(double[] vertices, int[] indices) {
+        int vertexCount = vertices.length / 3;
+        if (IntStream.range(0, indices.length).parallel().anyMatch(i -> indices[i] < 0 || indices[i] >= vertexCount))
+            throw new IllegalArgumentException("Face refers to a missing vertex");
+        return new Mesh(vertices, indices);
+    }
+
+    /**
+     * Maps a whole file into memory.
+     *
+     * @param path the file
+     * @return the mapped file content
+     * @throws IOException in case of an I/O failure
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Splits a text into chunks of whole lines for parallel parsing.
+     *
+     * @param data the text
+     * @return the chunk boundaries - the first chunk starts at the first position and the last one ends at the last
+     */
+    private static int[] lineChunks(ByteBuffer data) {
+        int size = data.limit();
+        int chunks = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 4, size / MIN_CHUNK_SIZE));
+        int[] bounds = new int[chunks + 1];
+        bounds[chunks] = size;
+        for (int c = 1; c < chunks; ++c) {
+            int p = Math.max(bounds[c - 1], (int) ((long) size * c / chunks));
+            while (p < size && data.get(p++) != '\n') ;
+            bounds[c] = p;
+        }
+        return bounds;
+    }
+
+    /** A chunk of an OBJ file parsed into its own packed arrays */
+    private static class ObjChunk {
+        final ByteBuffer data;
+        final int end;
+        int pos;
+
+        double[] vertices = new double[3 * 1024];
+        int vertexSize = 0;
+        int[] indices = new int[3 * 1024];
+        int indexSize = 0;
+        /** Positions in the indices array of the relative (negative) indices, resolved after all chunks are parsed */
+        int[] relative = new int[16];
+        int relativeSize = 0;
+        /** Vertex indices of the current face */
+        int[] face = new int[16];
+        boolean[] faceRelative = new boolean[16];
+
+        ObjChunk(ByteBuffer data, int start, int end) {
+            this.data = data;
+            this.pos = start;
+            this.end = end;
+        }
+
+        /**
+         * Parses all the lines of the chunk.
+         *
+         * @return this chunk
+         */
+        ObjChunk parse() {
+            while (pos < end) {
+                skipSpaces();
+                byte statement = pos + 1 < end ? data.get(pos) : 0;
+                if ((statement == 'v' || statement == 'f') && isSpace(data.get(pos + 1))) {
+                    pos += 2;
+                    if (statement == 'v') parseVertex();
+                    else parseFace();
+                }
+                // skip the rest of the line
+                while (pos < end && data.get(pos++) != '\n') ;
+            }
+            return this;
+        }
+
+        void parseVertex() {
+            if (vertexSize + 3 > vertices.length) vertices = Arrays.copyOf(vertices, vertices.length * 2);
+            vertices[vertexSize++] = parseDouble();
+            vertices[vertexSize++] = parseDouble();
+            vertices[vertexSize++] = parseDouble();
+        }
+
+        void parseFace() {
+            int corners = 0;
+            skipSpaces();
+            while (pos < end && !isLineEnd(data.get(pos))) {
+                int index = parseInt();
+                if (index == 0) throw new IllegalArgumentException("OBJ face index cannot be 0");
+                if (corners == face.length) {
+                    face = Arrays.copyOf(face, corners * 2);
+                    faceRelative = Arrays.copyOf(faceRelative, corners * 2);
+                }
+                // positive indices are absolute (1-based), negative ones are relative to the last vertex
+                faceRelative[corners] = index < 0;
+                face[corners++] = index < 0 ? vertexSize / 3 + index : index - 1;
+                // skip texture and normal indices
+                while (pos < end && !isSpace(data.get(pos)) && !isLineEnd(data.get(pos))) ++pos;
+                skipSpaces();
+            }
+            if (corners < 3) throw new IllegalArgumentException("OBJ face must have at least 3 vertices");
+            for (int i = 1; i < corners - 1; ++i) {
+                addIndex(0);
+                addIndex(i);
+                addIndex(i + 1);
+            }
+        }
+
+        void addIndex(int corner) {
+            if (indexSize == indices.length) indices = Arrays.copyOf(indices, indices.length * 2);
+            if (faceRelative[corner]) {
+                if (relativeSize == relative.length) relative = Arrays.copyOf(relative, relativeSize * 2);
+                relative[relativeSize++] = indexSize;
+            }
+            indices[indexSize++] = face[corner];
+        }
+
+        void skipSpaces() {
+            while (pos < end && isSpace(data.get(pos))) ++pos;
+        }
+
+        int parseInt() {
+            boolean negative = data.get(pos) == '-';
+            if (negative || data.get(pos) == '+') ++pos;
+            int start = pos;
+            int value = 0;
+            byte b;
+            while (pos < end && (b = data.get(pos)) >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                ++pos;
+            }
+            if (pos == start) throw new IllegalArgumentException("Malformed OBJ index at byte " + pos);
+            return negative ? -value : value;
+        }
+
+        double parseDouble() {
+            skipSpaces();
+            int start = pos;
+            boolean negative = false;
+            if (pos < end && (data.get(pos) == '-' || data.get(pos) == '+')) negative = data.get(pos++) == '-';
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean exact = true;
+            byte b = 0;
+            for (boolean fraction = false; pos < end; ++pos) {
+                b = data.get(pos);
+                if (b >= '0' && b <= '9') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (mantissa != 0) ++digits;
+                        if (fraction) --exponent;
+                    } else {
+                        exact = false;
+                        if (!fraction) ++exponent;
+                    }
+                } else if (b == '.' && !fraction) fraction = true;
+                else break;
+            }
+            if (pos < end && (b == 'e' || b == 'E')) {
+                ++pos;
+                exponent += parseInt();
+            }
+            if (pos == start || pos < end && !isSpace(data.get(pos)) && !isLineEnd(data.get(pos)))
+                return slowParseDouble(start);
+            double value = mantissa;
+            // exact fast path: both the mantissa and the power of ten are exactly representable
+            if (exact && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22)
+                value = exponent < 0 ? value / POWERS_OF_TEN[-exponent] : value * POWERS_OF_TEN[exponent];
+            else
+                return slowParseDouble(start);
+            return negative ? -value : value;
+        }
+
+        /** Fallback for numbers that cannot be converted exactly by the fast path */
+        double slowParseDouble(int start) {
+            pos = start;
+            while (pos < end && !isSpace(data.get(pos)) && !isLineEnd(data.get(pos))) ++pos;
+            byte[] token = new byte[pos - start];
+            data.get(start, token);
+            try {
+                return Double.parseDouble(new String(token, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed OBJ number at byte " + start, e);
+            }
+        }
+    }
+
+    /** Exactly representable powers of ten */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r' || b == '#';
+    }
+
+    /**
+     * Reads the x, y and z properties of the PLY vertex records in parallel.
+     *
+     * @param body    the binary body of the file
+     * @param offset  offset of the first vertex record
+     * @param element the vertex element
+     * @return packed vertex coordinates
+     */
+    private static double[] readPlyVertices(ByteBuffer body, int offset, PlyElement element) {
+        if (element.recordSize < 0) throw new IllegalArgumentException("PLY vertex element must have fixed size");
+        PlyProperty x = element.property("x"), y = element.property("y"), z = element.property("z");
+        int count = element.count;
+        int size = element.recordSize;
+        if ((long) offset + (long) count * size > body.limit())
+            throw new IllegalArgumentException("PLY file is truncated");
+        double[] vertices = new double[count * 3];
+        IntStream.range(0, (count + MIN_CHUNK_RECORDS - 1) / MIN_CHUNK_RECORDS).parallel().forEach(c -> {
+            int last = Math.min(count, (c + 1) * MIN_CHUNK_RECORDS);
+            for (int i = c * MIN_CHUNK_RECORDS, record = offset + i * size; i < last; ++i, record += size) {
+                vertices[3 * i] = x.type.read(body, record + x.offset);
+                vertices[3 * i + 1] = y.type.read(body, record + y.offset);
+                vertices[3 * i + 2] = z.type.read(body, record + z.offset);
+            }
+        });
+        return vertices;
+    }
+
+    /**
+     * Reads the PLY face records. Pure triangle meshes are read in parallel, otherwise the records are
+     * read sequentially and triangulated as fans.
+     *
+     * @param body    the binary body of the file
+     * @param offset  offset of the first face record
+     * @param element the face element
+     * @param end     output - offset after the last face record
+     * @return packed triangle indices
+     */
+    private static int[] readPlyFaces(ByteBuffer body, int offset, PlyElement element, int[] end) {
+        PlyProperty list = null;
+        int before = 0, after = 0;
+        for (PlyProperty property : element.properties) {
+            if (property.countType != null) {
+                if (list != null) throw new IllegalArgumentException("Unsupported PLY face with several lists");
+                list = property;
+            } else if (list == null) before += property.type.size;
+            else after += property.type.size;
+        }
+        if (list == null) throw new IllegalArgumentException("PLY face element must have a vertex index list");
+        final PlyProperty indexList = list;
+        final int skipBefore = before;
+        int count = element.count;
+
+        // assume a triangle mesh - all the records have the same size
+        int triangleSize = before + list.countType.size + 3 * list.type.size + after;
+        boolean fits = (long) offset + (long) count * triangleSize <= body.limit();
+        if (fits && IntStream.range(0, count).parallel().allMatch(
+                i -> indexList.countType.read(body, offset + i * triangleSize + skipBefore) == 3)) {
+            int[] indices = new int[count * 3];
+            int first = skipBefore + list.countType.size;
+            int step = list.type.size;
+            IntStream.range(0, (count + MIN_CHUNK_RECORDS - 1) / MIN_CHUNK_RECORDS).parallel().forEach(c -> {
+                int last = Math.min(count, (c + 1) * MIN_CHUNK_RECORDS);
+                for (int i = c * MIN_CHUNK_RECORDS, record = offset + i * triangleSize + first; i < last;
+                     ++i, record += triangleSize)
+                    for (int k = 0; k < 3; ++k)
+                        indices[3 * i + k] = (int) indexList.type.read(body, record + k * step);
+            });
+            end[0] = offset + count * triangleSize;
+            return indices;
+        }
+
+        int[] indices = new int[count * 3];
+        int size = 0;
+        int record = offset;
+        for (int i = 0; i < count; ++i) {
+            record += before;
+            int corners = (int) list.countType.read(body, record);
+            if (corners < 3) throw new IllegalArgumentException("PLY face must have at least 3 vertices");
+            record += list.countType.size;
+            int v0 = (int) list.type.read(body, record);
+            for (int k = 1; k < corners - 1; ++k) {
+                if (size + 3 > indices.length) indices = Arrays.copyOf(indices, indices.length * 2);
+                indices[size++] = v0;
+                indices[size++] = (int) list.type.read(body, record + k * list.type.size);
+                indices[size++] = (int) list.type.read(body, record + (k + 1) * list.type.size);
+            }
+            record += corners * list.type.size + after;
+        }
+        end[0] = record;
+        return Arrays.copyOf(indices, size);
+    }
+
+    /** Scalar data types of PLY properties */
+    private enum PlyType {
+        INT8(1), UINT8(1), INT16(2), UINT16(2), INT32(4), UINT32(4), FLOAT32(4), FLOAT64(8);
+
+        /** Size of the type in bytes */
+        final int size;
+
+        PlyType(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Reads a value of the type.
+         *
+         * @param buffer the buffer (with the byte order of the file)
+         * @param offset offset of the value
+         * @return the value
+         */
+        double read(ByteBuffer buffer, int offset) {
+            return switch (this) {
+                case INT8 -> buffer.get(offset);
+                case UINT8 -> buffer.get(offset) & 0xFF;
+                case INT16 -> buffer.getShort(offset);
+                case UINT16 -> buffer.getShort(offset) & 0xFFFF;
+                case INT32 -> buffer.getInt(offset);
+                case UINT32 -> buffer.getInt(offset) & 0xFFFFFFFFL;
+                case FLOAT32 -> buffer.getFloat(offset);
+                case FLOAT64 -> buffer.getDouble(offset);
+            };
+        }
+
+        /**
+         * Finds a type by its PLY name.
+         *
+         * @param name the type name
+         * @return the type
+         */
+        static PlyType of(String name) {
+            return switch (name) {
+                case "char", "int8" -> INT8;
+                case "uchar", "uint8" -> UINT8;
+                case "short", "int16" -> INT16;
+                case "ushort", "uint16" -> UINT16;
+                case "int", "int32" -> INT32;
+                case "uint", "uint32" -> UINT32;
+                case "float", "float32" -> FLOAT32;
+                case "double", "float64" -> FLOAT64;
+                default -> throw new IllegalArgumentException("Unknown PLY type " + name);
+            };
+        }
+    }
+
+    /**
+     * A property of a PLY element.
+     *
+     * @param name      the property name
+     * @param type      the value type (or the item type of a list)
+     * @param countType the item count type of a list, null for a scalar property
+     * @param offset    offset of the property inside a fixed size record, -1 after a list
+     */
+    private record PlyProperty(String name, PlyType type, PlyType countType, int offset) {}
+
+    /** An element of a PLY file */
+    private static class PlyElement {
+        final String name;
+        final int count;
+        final List<PlyProperty> properties = new ArrayList<>();
+        /** Size of a record in bytes, -1 if the element has list properties */
+        int recordSize = 0;
+
+        PlyElement(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        void add(String name, PlyType type, PlyType countType) {
+            properties.add(new PlyProperty(name, type, countType, recordSize));
+            if (countType != null || recordSize < 0) recordSize = -1;
+            else recordSize += type.size;
+        }
+
+        PlyProperty property(String name) {
+            for (PlyProperty property : properties)
+                if (property.name().equals(name)) return property;
+            throw new IllegalArgumentException("PLY element " + this.name + " has no property " + name);
+        }
+    }
+
+    /** The parsed ASCII header of a PLY file */
+    private static class PlyHeader {
+        final List<PlyElement> elements = new ArrayList<>();
+        ByteOrder order = null;
+        /** Offset of the binary body */
+        int bodyOffset;
+
+        PlyHeader(ByteBuffer data) {
+            int pos = 0;
+            PlyElement element = null;
+            while (true) {
+                int start = pos;
+                while (pos < data.limit() && data.get(pos) != '\n') ++pos;
+                if (pos == data.limit()) throw new IllegalArgumentException("PLY header has no end");
+                byte[] bytes = new byte[pos - start];
+                data.get(start, bytes);
+                ++pos;
+                String[] words = new String(bytes, StandardCharsets.US_ASCII).trim().split("\\s+");
+                if (start == 0) {
+                    if (!words[0].equals("ply")) throw new IllegalArgumentException("Not a PLY file");
+                    continue;
+                }
+                switch (words[0]) {
+                    case "format" -> order = switch (words[1]) {
+                        case "binary_little_endian" -> ByteOrder.LITTLE_ENDIAN;
+                        case "binary_big_endian" -> ByteOrder.BIG_ENDIAN;
+                        default -> throw new IllegalArgumentException("Unsupported PLY format " + words[1]);
+                    };
+                    case "element" -> elements.add(element = new PlyElement(words[1], Integer.parseInt(words[2])));
+                    case "property" -> {
+                        if (element == null) throw new IllegalArgumentException("PLY property out of element");
+                        if (words[1].equals("list"))
+                            element.add(words[4], PlyType.of(words[3]), PlyType.of(words[2]));
+                        else element.add(words[2], PlyType.of(words[1]), null);
+                    }
+                    case "end_header" -> {
+                        if (order == null) throw new IllegalArgumentException("PLY format is missing");
+                        bodyOffset = pos;
+                        return;
+                    }
+                    default -> { } // comments, obj_info etc.
+                }
+            }
+        }
+    }
+}
@@ -65,10 +65,20 @@ public class Plane extends Geometry implements FlatGeometry{
         return normalVector;
     }
 
+    @Override
     public Vector getNormal() {
         return normalVector;
     }
 
+    /**
+     * Gets the reference point of the plane.
+     *
+     * @return The reference point on the plane.
+     */
+    public Point getPoint() {
+        return point;
+    }
+
 
 
     @Override
@@ -94,7 +104,7 @@ public class Plane extends Geometry implements FlatGeometry{
         double nv=alignZero(normalVector.dotProduct(ray.getDirection()));
         double t=alignZero(nQMinusP0/nv);
         if (t > 0 && alignZero(t-maxDistance)<=0)
-            return List.of(new GeoPoint(this,ray.getPoint(t)));
+            return List.of(new GeoPoint(this,ray.getPoint(t),normalVector));
         else
             return null;
     }
@@ -22,6 +22,9 @@ public class Polygon extends Geometry implements FlatGeometry{
    /** Associated plane in which the polygon lays */
    protected final Plane plane;
 
+   /** The normal of the polygon, precomputed from its plane */
+   protected final Vector normal;
+
    /** The size of the polygon - the number of vertices in the polygon */
    private final int size;
 
@@ -50,9 +53,10 @@ public class Polygon extends Geometry implements FlatGeometry{
       // polygon with this plane.
       // The plane holds the invariant normal (orthogonal unit) vector to the polygon
       plane = new Plane(vertices[0], vertices[1], vertices[2]);
+      normal = plane.getNormal();
       if (size == 3) return; // no need for more tests for a Triangle
 
-      Vector n = plane.getNormal();
+      Vector n = normal;
       // Subtracting any subsequent points will throw an IllegalArgumentException
       // because of Zero Vector if they are in the same point
       Vector edge1 = vertices[vertices.length - 1].subtract(vertices[vertices.length - 2]);
@@ -86,7 +90,26 @@ public class Polygon extends Geometry implements FlatGeometry{
     */
    @Override
    public Vector getNormal(Point point) {
-      return plane.getNormal();
+      return normal;
+   }
+
+   @Override
+   public Vector getNormal() {
+      return normal;
+   }
+
+   /**
+    * Gets the vertices of the polygon.
+    *
+    * @return the list of vertices in order of edge path
+    */
+   public List<Point> getVertices() {
+      return vertices;
+   }
+
+   @Override
+   public BoundingBox getBoundingBox() {
+      return BoundingBox.of(vertices.toArray(new Point[size]));
    }
 
    @Override
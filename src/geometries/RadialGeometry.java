@@ -25,4 +25,13 @@ public abstract class RadialGeometry extends Geometry {
         this.radius = radius;
     }
 
+    /**
+     * Gets the radial property of the geometric shape.
+     *
+     * @return The radius of the geometric shape.
+     */
+    public double getRadius() {
+        return radius;
+    }
+
 }
@@ -0,0 +1,231 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * The SahBvhBuilder class builds a bounding volume hierarchy with the binned Surface Area Heuristic.
+ * <p>
+ * At each node the primitive centroids are distributed into bins along each axis, and the split between bins
+ * with the lowest expected ray cost is chosen. A node becomes a leaf when splitting costs more than
+ * intersecting all its primitives. Sub-trees are built in parallel with fork/join.
+ */
+public class SahBvhBuilder extends BvhBuilder {
+    /** Amount of bins per axis */
+    private int binCount = 16;
+    /** Maximal amount of primitives in a leaf */
+    private int maxLeafSize = 4;
+    /** Cost of a primitive intersection relative to the cost of a node traversal */
+    private double intersectionCost = 1;
+    /** Minimal amount of primitives in a sub-tree for building it in a separate task */
+    private int parallelThreshold = 1024;
+
+    /**
+     * Sets the amount of bins per axis.
+     *
+     * @param binCount amount of bins (at least 2)
+     * @return the builder instance for method chaining
+     */
+    public SahBvhBuilder setBinCount(int binCount) {
+        if (binCount < 2) throw new IllegalArgumentException("There must be at least 2 bins");
+        this.binCount = binCount;
+        return this;
+    }
+
+    /**
+     * Sets the maximal amount of primitives in a leaf.
+     *
+     * @param maxLeafSize maximal amount of primitives (at least 1)
+     * @return the builder instance for method chaining
+     */
+    public SahBvhBuilder setMaxLeafSize(int maxLeafSize) {
+        if (maxLeafSize < 1) throw new IllegalArgumentException("Leaf must hold at least 1 primitive");
+        this.maxLeafSize = maxLeafSize;
+        return this;
+    }
+
+    /**
+     * Sets the cost of a primitive intersection relative to the cost of a node traversal.
+     *
+     * @param intersectionCost the relative cost (positive)
+     * @return the builder instance for method chaining
+     */
+    public SahBvhBuilder setIntersectionCost(double intersectionCost) {
+        if (intersectionCost <= 0) throw new IllegalArgumentException("Intersection cost must be positive");
+        this.intersectionCost = intersectionCost;
+        return this;
+    }
+
+    /**
+     * Sets the minimal amount of primitives in a sub-tree for building it in a separate task.
+     *
+     * @param parallelThreshold the amount of primitives
+     * @return the builder instance for method chaining
+     */
+    public SahBvhBuilder setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    @Override
+    Bvh build(double[] bounds, int count) {
+        long start = System.nanoTime();
+        int[] order = new int[count];
+        double[] centroids = new double[3 * count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            order[i] = i;
+            for (int axis = 0; axis < 3; ++axis)
+                centroids[3 * i + axis] = (bounds[6 * i + axis] + bounds[6 * i + axis + 3]) / 2;
+        });
+        Bvh.Node root = ForkJoinPool.commonPool().invoke(new Split(bounds, centroids, order, 0, count));
+        return new Bvh(root, order, System.nanoTime() - start);
+    }
+
+    /** Task building the sub-tree of a range of the primitive order array */
+    @SuppressWarnings("serial")
+    private class Split extends RecursiveTask<Bvh.Node> {
+        final double[] bounds, centroids;
+        final int[] order;
+        final int start, end;
+
+        Split(double[] bounds, double[] centroids, int[] order, int start, int end) {
+            this.bounds = bounds;
+            this.centroids = centroids;
+            this.order = order;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Bvh.Node compute() {
+            int n = end - start;
+            double[] box = emptyBox();
+            double[] centroidBox = emptyBox();
+            for (int i = start; i < end; ++i) {
+                int p = order[i];
+                for (int axis = 0; axis < 3; ++axis) {
+                    box[axis] = Math.min(box[axis], bounds[6 * p + axis]);
+                    box[axis + 3] = Math.max(box[axis + 3], bounds[6 * p + axis + 3]);
+                    double c = centroids[3 * p + axis];
+                    centroidBox[axis] = Math.min(centroidBox[axis], c);
+                    centroidBox[axis + 3] = Math.max(centroidBox[axis + 3], c);
+                }
+            }
+            if (n <= 1) return new Bvh.Node(box, start, n);
+
+            // find the cheapest split between bins over all the axes
+            double nodeArea = Math.max(area(box), Double.MIN_NORMAL);
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestAxis = -1, bestBin = 0;
+            int[] counts = new int[binCount];
+            double[] binBoxes = new double[6 * binCount];
+            double[] rightAreas = new double[binCount];
+            for (int axis = 0; axis < 3; ++axis) {
+                double min = centroidBox[axis], extent = centroidBox[axis + 3] - min;
+                if (extent <= 0) continue;
+                double scale = binCount / extent;
+                Arrays.fill(counts, 0);
+                for (int b = 0; b < binCount; ++b) clear(binBoxes, 6 * b);
+                for (int i = start; i < end; ++i) {
+                    int p = order[i];
+                    int b = bin(centroids[3 * p + axis], min, scale);
+                    ++counts[b];
+                    for (int k = 0; k < 3; ++k) {
+                        binBoxes[6 * b + k] = Math.min(binBoxes[6 * b + k], bounds[6 * p + k]);
+                        binBoxes[6 * b + k + 3] = Math.max(binBoxes[6 * b + k + 3], bounds[6 * p + k + 3]);
+                    }
+                }
+                // sweep from the right to find the area of the right side of each split
+                double[] sweep = emptyBox();
+                for (int b = binCount - 1; b > 0; --b) {
+                    grow(sweep, binBoxes, 6 * b);
+                    rightAreas[b] = area(sweep);
+                }
+                // sweep from the left and evaluate the splits
+                sweep = emptyBox();
+                int leftCount = 0;
+                for (int b = 1; b < binCount; ++b) {
+                    grow(sweep, binBoxes, 6 * (b - 1));
+                    leftCount += counts[b - 1];
+                    int rightCount = n - leftCount;
+                    if (leftCount == 0 || rightCount == 0) continue;
+                    double cost = 1 + intersectionCost * (area(sweep) * leftCount + rightAreas[b] * rightCount) / nodeArea;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestBin = b;
+                    }
+                }
+            }
+
+            // all the centroids coincide, or a leaf is cheaper than any split
+            if (bestAxis < 0 || bestCost >= intersectionCost * n && n <= maxLeafSize)
+                return new Bvh.Node(box, start, n);
+
+            // partition the range according to the chosen split
+            double min = centroidBox[bestAxis];
+            double scale = binCount / (centroidBox[bestAxis + 3] - min);
+            int i = start, j = end - 1;
+            while (i <= j) {
+                if (bin(centroids[3 * order[i] + bestAxis], min, scale) < bestBin) ++i;
+                else {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+
+            Split left = new Split(bounds, centroids, order, start, i);
+            Split right = new Split(bounds, centroids, order, i, end);
+            if (n < parallelThreshold) return new Bvh.Node(box, left.compute(), right.compute());
+            left.fork();
+            Bvh.Node rightNode = right.compute();
+            return new Bvh.Node(box, left.join(), rightNode);
+        }
+
+        /**
+         * Finds the bin of a centroid coordinate.
+         */
+        private int bin(double c, double min, double scale) {
+            return Math.min(binCount - 1, (int) ((c - min) * scale));
+        }
+    }
+
+    /**
+     * Creates an empty box array.
+     */
+    private static double[] emptyBox() {
+        return new double[]{
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    /**
+     * Empties a box in a packed array.
+     */
+    private static void clear(double[] boxes, int offset) {
+        Arrays.fill(boxes, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(boxes, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Grows a box array to contain another box from a packed array.
+     */
+    private static void grow(double[] box, double[] boxes, int offset) {
+        for (int k = 0; k < 3; ++k) {
+            box[k] = Math.min(box[k], boxes[offset + k]);
+            box[k + 3] = Math.max(box[k + 3], boxes[offset + k + 3]);
+        }
+    }
+
+    /**
+     * Calculates the surface area of a box array.
+     */
+    private static double area(double[] box) {
+        if (box[0] > box[3]) return 0;
+        double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
@@ -35,6 +35,21 @@ public class Sphere extends RadialGeometry {
         this.center = center;
     }
 
+    /**
+     * Gets the center point of the sphere.
+     *
+     * @return The center point of the sphere.
+     */
+    public Point getCenter() {
+        return center;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
+    }
+
     /**
      * Computes and returns the normal vector to the sphere at a specified point.
      *
@@ -40,7 +40,7 @@ protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray,double maxDistance)
 
     if(pts == null) return null;
 
-    List<GeoPoint> geoPoint = List.of(new GeoPoint(this, pts.getFirst().point));
+    List<GeoPoint> geoPoint = List.of(new GeoPoint(this, pts.getFirst().point, normal));
 
     double t = Math.abs(ray.getHead().distance(geoPoint.getFirst().point));
 
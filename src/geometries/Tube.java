@@ -24,6 +24,15 @@ public class Tube extends RadialGeometry {
         this.ray = ray;
     }
 
+    /**
+     * Gets the axis ray of the tube.
+     *
+     * @return the ray that describes the orientation of the tube
+     */
+    public Ray getAxis() {
+        return ray;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         //the "shade" of the action point-head on the main axis
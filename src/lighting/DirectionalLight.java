@@ -23,6 +23,15 @@ public class DirectionalLight extends Light implements LightSource {
         this.direction = direction.normalize();
     }
 
+    /**
+     * Returns the direction from which the light is coming.
+     *
+     * @return the normalized direction of the light
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     /**
      * Returns the intensity of the light at the specified point.
      *
@@ -27,4 +27,15 @@ public interface LightSource {
      */
     public Vector getL(Point p);
     public double getDistance(Point point);
+
+    /**
+     * Checks whether the light may illuminate the specified point. Points outside the influence of a light
+     * are neither shaded with it nor traced shadow rays to it.
+     *
+     * @param p the point in the scene
+     * @return false if the light does not reach the point, true if it may
+     */
+    public default boolean influences(Point p) {
+        return true;
+    }
 }
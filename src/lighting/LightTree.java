@@ -0,0 +1,324 @@
+package lighting;
+
+import primitives.Point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The LightTree class is an acceleration structure over the light sources of a scene, selecting the lights
+ * worth shading a point with.
+ * <p>
+ * Point lights (and spot lights) are kept in a bounding volume hierarchy over their positions. Each node keeps
+ * the brightest intensity below it and the weakest attenuation factors below it, which bound the intensity
+ * any of its lights can reach at a point, and the largest influence radius below it
+ * (see {@link PointLight#getInfluenceRadius()}). Whole sub-trees of lights dimmer than a cutoff at a point,
+ * or too far from it, are skipped, and the lights of the visited leaves are checked for their influence
+ * (e.g. the cone of a {@link SpotLight}).
+ * Among the remaining lights a fixed amount can be sampled with a probability proportional to their intensity
+ * at the point, weighting each sampled light so the expected shading is unchanged.
+ * Lights with no position (e.g. {@link DirectionalLight}) are always selected if they influence the point.
+ */
+public final class LightTree {
+    /** Maximal amount of lights in a leaf */
+    private static final int MAX_LEAF_SIZE = 4;
+
+    /** The light sources */
+    private final LightSource[] lights;
+    /** Indices of the lights with no position */
+    private final int[] unbounded;
+    /** Indices of the positioned lights in tree order */
+    private final int[] order;
+    /** Per positioned light (by light index) - its brightest intensity component */
+    private final double[] power;
+    /** Per node - minimal and maximal corners of the light positions below it */
+    private final double[] bounds;
+    /**
+     * Per node - brightest intensity component, weakest constant, linear and quadratic attenuation
+     * and largest influence radius
+     */
+    private final double[] emission;
+    /** Per node - index of the second child of an inner node, or of the first light of a leaf in the order */
+    private final int[] offsets;
+    /** Per node - amount of lights of a leaf, 0 for an inner node */
+    private final int[] counts;
+    /** Per selecting thread - the working arrays of the selection */
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * The working arrays of a selection, reused by a selecting thread, so that shading a point allocates nothing.
+     */
+    private static final class Scratch {
+        /** Per light - its intensity at the point */
+        private final double[] importance;
+        /** Per light - its weight */
+        private final double[] weights;
+        /** Per candidate - its light index */
+        private final int[] pool;
+        /** Per candidate - the total intensity up to it */
+        private final double[] cumulative;
+        /** The traversal stack */
+        private int[] stack = new int[64];
+
+        /**
+         * Constructs the working arrays of a tree.
+         *
+         * @param lights the amount of lights in the tree
+         */
+        private Scratch(int lights) {
+            importance = new double[lights];
+            weights = new double[lights];
+            pool = new int[lights];
+            cumulative = new double[lights];
+        }
+    }
+
+    /**
+     * Builds a light tree over light sources.
+     *
+     * @param lights the light sources
+     */
+    public LightTree(LightSource[] lights) {
+        this.lights = lights.clone();
+        power = new double[lights.length];
+        List<Integer> positioned = new ArrayList<>(), other = new ArrayList<>();
+        for (int i = 0; i < lights.length; ++i) {
+            if (lights[i] instanceof PointLight light) {
+                power[i] = light.getPeakIntensity();
+                positioned.add(i);
+            } else other.add(i);
+        }
+        unbounded = other.stream().mapToInt(Integer::intValue).toArray();
+        order = positioned.stream().mapToInt(Integer::intValue).toArray();
+
+        int maxNodes = Math.max(1, 2 * order.length - 1);
+        bounds = new double[6 * maxNodes];
+        emission = new double[5 * maxNodes];
+        offsets = new int[maxNodes];
+        counts = new int[maxNodes];
+        if (order.length > 0) build(0, 0, order.length);
+        int lightCount = lights.length;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(lightCount));
+    }
+
+    /**
+     * Builds a sub-tree over a range of the light order.
+     *
+     * @param node index of the sub-tree root
+     * @param from first index in the order
+     * @param to   index after the last one in the order
+     * @return index of the node following the sub-tree
+     */
+    private int build(int node, int from, int to) {
+        double[] box = {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        double maxPower = 0, kC = Double.POSITIVE_INFINITY, kL = kC, kQ = kC, radius = 0;
+        for (int i = from; i < to; ++i) {
+            PointLight light = (PointLight) lights[order[i]];
+            double[] p = coordinates(light.getPosition());
+            for (int axis = 0; axis < 3; ++axis) {
+                box[axis] = Math.min(box[axis], p[axis]);
+                box[axis + 3] = Math.max(box[axis + 3], p[axis]);
+            }
+            maxPower = Math.max(maxPower, power[order[i]]);
+            kC = Math.min(kC, light.getKc());
+            kL = Math.min(kL, light.getKl());
+            kQ = Math.min(kQ, light.getKq());
+            radius = Math.max(radius, light.getInfluenceRadius());
+        }
+        System.arraycopy(box, 0, bounds, 6 * node, 6);
+        emission[5 * node] = maxPower;
+        emission[5 * node + 1] = kC;
+        emission[5 * node + 2] = kL;
+        emission[5 * node + 3] = kQ;
+        emission[5 * node + 4] = radius;
+
+        if (to - from <= MAX_LEAF_SIZE) {
+            offsets[node] = from;
+            counts[node] = to - from;
+            return node + 1;
+        }
+        // median split along the longest axis of the positions
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (box[a + 3] - box[a] > box[axis + 3] - box[axis]) axis = a;
+        int splitAxis = axis;
+        Integer[] range = new Integer[to - from];
+        for (int i = from; i < to; ++i) range[i - from] = order[i];
+        Arrays.sort(range, Comparator.comparingDouble(
+                i -> coordinates(((PointLight) lights[i]).getPosition())[splitAxis]));
+        for (int i = from; i < to; ++i) order[i] = range[i - from];
+
+        int middle = (from + to) / 2;
+        int second = build(node + 1, from, middle);
+        offsets[node] = second;
+        counts[node] = 0;
+        return build(second, middle, to);
+    }
+
+    /**
+     * Gets the coordinates of a point.
+     *
+     * @param point the point
+     * @return x, y and z
+     */
+    private static double[] coordinates(Point point) {
+        return new double[]{point.getX(), point.getY(), point.getZ()};
+    }
+
+    /**
+     * Calculates the attenuated intensity from a distance, infinite if the light does not attenuate.
+     *
+     * @param power    the intensity
+     * @param kC       the constant attenuation factor
+     * @param kL       the linear attenuation factor
+     * @param kQ       the quadratic attenuation factor
+     * @param distance the distance
+     * @return the attenuated intensity
+     */
+    private static double attenuate(double power, double kC, double kL, double kQ, double distance) {
+        double attenuation = kC + kL * distance + kQ * distance * distance;
+        return attenuation <= 0 ? Double.POSITIVE_INFINITY : power / attenuation;
+    }
+
+    /**
+     * Gets the amount of light sources in the tree.
+     *
+     * @return the amount of lights
+     */
+    public int getLightCount() {
+        return lights.length;
+    }
+
+    /**
+     * Selects the lights to shade a point with.
+     * Positioned lights whose intensity at the point is below the cutoff are culled. If more lights than the
+     * amount of samples remain, the samples are drawn among them with a probability proportional to their
+     * intensity at the point, and each sampled light gets the weight of the lights it stands for.
+     * Lights with no position are always selected with weight 1 if they influence the point.
+     *
+     * @param point    the shaded point
+     * @param cutoff   minimal intensity of a light at the point, 0 for no culling
+     * @param samples  amount of sampled lights, 0 for selecting all the lights that were not culled
+     * @param selected destination of the indices of the selected lights in ascending order,
+     *                 sized as the amount of lights
+     * @param weights  destination of the weights of the selected lights, in the order of their indices,
+     *                 sized as the amount of lights
+     * @return the amount of selected lights
+     */
+    public int select(Point point, double cutoff, int samples, int[] selected, double[] weights) {
+        Scratch work = scratch.get();
+        int count = 0;
+        for (int index : unbounded) {
+            if (!lights[index].influences(point)) continue;
+            selected[count++] = index;
+            work.weights[index] = 1;
+        }
+        if (order.length > 0) count = cull(point, cutoff, samples, selected, count, work);
+        Arrays.sort(selected, 0, count);
+        for (int s = 0; s < count; ++s) weights[s] = work.weights[selected[s]];
+        return count;
+    }
+
+    /**
+     * Collects the positioned lights that are not culled at a point after the already selected lights,
+     * and samples them if there are more than the amount of samples.
+     *
+     * @param point    the shaded point
+     * @param cutoff   minimal intensity of a light at the point
+     * @param samples  amount of sampled lights, 0 for keeping all the candidates
+     * @param selected the selected lights, followed by the candidates
+     * @param count    amount of already selected lights
+     * @param work     the working arrays, receiving the weights by light index
+     * @return the amount of selected lights
+     */
+    private int cull(Point point, double cutoff, int samples, int[] selected, int count, Scratch work) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int first = count;
+        int[] stack = work.stack;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b = 6 * node, e = 5 * node;
+            double dx = Math.max(0, Math.max(bounds[b] - px, px - bounds[b + 3]));
+            double dy = Math.max(0, Math.max(bounds[b + 1] - py, py - bounds[b + 4]));
+            double dz = Math.max(0, Math.max(bounds[b + 2] - pz, pz - bounds[b + 5]));
+            double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (distance > emission[e + 4]) continue;
+            if (attenuate(emission[e], emission[e + 1], emission[e + 2], emission[e + 3], distance) < cutoff)
+                continue;
+            if (counts[node] == 0) {
+                if (top + 2 > stack.length) work.stack = stack = Arrays.copyOf(stack, 2 * stack.length);
+                stack[top++] = offsets[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+            for (int i = offsets[node], end = i + counts[node]; i < end; ++i) {
+                int index = order[i];
+                PointLight light = (PointLight) lights[index];
+                if (!light.influences(point)) continue;
+                double intensity = attenuate(power[index], light.getKc(), light.getKl(), light.getKq(),
+                        point.distance(light.getPosition()));
+                if (intensity < cutoff) continue;
+                selected[count++] = index;
+                work.weights[index] = 1;
+                work.importance[index] = intensity;
+            }
+        }
+
+        int candidates = count - first;
+        return samples > 0 && candidates > samples ? first + sample(selected, first, candidates, samples, work)
+                : count;
+    }
+
+    /**
+     * Draws samples among candidate lights with a probability proportional to their intensity at the point.
+     * Candidates that do not attenuate are kept with weight 1 instead of being sampled.
+     *
+     * @param selected   the candidates, replaced by the sampled lights
+     * @param first      index of the first candidate
+     * @param candidates amount of candidates
+     * @param samples    amount of samples
+     * @param work       the working arrays - intensities of the candidates at the point by light index,
+     *                   receiving the weights of the sampled lights by light index
+     * @return the amount of distinct sampled lights
+     */
+    private static int sample(int[] selected, int first, int candidates, int samples, Scratch work) {
+        int[] pool = work.pool;
+        double[] cumulative = work.cumulative, importance = work.importance, weights = work.weights;
+        System.arraycopy(selected, first, pool, 0, candidates);
+        double total = 0;
+        int kept = 0;
+        for (int i = 0; i < candidates; ++i) {
+            int index = pool[i];
+            weights[index] = 0;
+            if (Double.isInfinite(importance[index])) {
+                selected[first + kept++] = index;
+                weights[index] = 1;
+            } else total += importance[index];
+            cumulative[i] = total;
+        }
+        if (total <= 0) return kept;
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int s = 0; s < samples; ++s) {
+            // the first candidate whose cumulative intensity exceeds the drawn value
+            double u = random.nextDouble() * total;
+            int low = 0, high = candidates - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] > u) high = middle;
+                else low = middle + 1;
+            }
+            int index = pool[low];
+            if (weights[index] == 0) selected[first + kept++] = index;
+            weights[index] += total / (samples * importance[index]);
+        }
+        return kept;
+    }
+}
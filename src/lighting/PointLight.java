@@ -24,6 +24,12 @@ public class PointLight extends Light implements LightSource {
     /** The quadratic attenuation factor. */
     private double kQ = 0;
 
+    /** The minimal intensity of the light at a point it influences, 0 for no limit. */
+    private double influenceThreshold = 0;
+
+    /** The distance beyond which the attenuated intensity is below the threshold. */
+    private double influenceRadius = Double.POSITIVE_INFINITY;
+
     public Point getPosition() {
         return position;
     }
@@ -59,6 +65,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKq(double kQ) {
         this.kQ = kQ;
+        updateInfluence();
         return this;
     }
 
@@ -69,6 +76,7 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setkC(double kC) {
         this.kC = kC;
+        updateInfluence();
         return this;
     }
 
@@ -79,9 +87,116 @@ public class PointLight extends Light implements LightSource {
      */
     public PointLight setKl(double kL) {
         this.kL = kL;
+        updateInfluence();
+        return this;
+    }
+
+    /**
+     * Sets the minimal intensity of the light at a point it influences. The light is neither shaded with nor
+     * traced shadow rays to beyond its influence radius, where its attenuated intensity is below the threshold.
+     *
+     * @param influenceThreshold the minimal intensity (in color units), 0 for influencing the whole scene
+     * @return the light instance for method chaining
+     */
+    public PointLight setInfluenceThreshold(double influenceThreshold) {
+        if (influenceThreshold < 0) throw new IllegalArgumentException("Influence threshold cannot be negative");
+        this.influenceThreshold = influenceThreshold;
+        updateInfluence();
         return this;
     }
 
+    /**
+     * Gets the minimal intensity of the light at a point it influences.
+     *
+     * @return the influence threshold, 0 for no limit
+     */
+    public double getInfluenceThreshold() {
+        return influenceThreshold;
+    }
+
+    /**
+     * Gets the influence radius - the distance beyond which the attenuated intensity is below the threshold.
+     *
+     * @return the influence radius, infinity if the light influences the whole scene
+     */
+    public double getInfluenceRadius() {
+        return influenceRadius;
+    }
+
+    /**
+     * Gets the brightest component of the intensity of the light.
+     *
+     * @return the brightest intensity component
+     */
+    double getPeakIntensity() {
+        var rgb = intensity.getRgb();
+        return Math.max(rgb.getD1(), Math.max(rgb.getD2(), rgb.getD3()));
+    }
+
+    /**
+     * Calculates the attenuated brightest intensity component at a distance.
+     *
+     * @param distance the distance from the light
+     * @return the attenuated intensity
+     */
+    double attenuatedPeak(double distance) {
+        return getPeakIntensity() / (kC + kL * distance + kQ * distance * distance);
+    }
+
+    /**
+     * Recalculates the influence radius - the root of kC + kL·d + kQ·d² = peak / threshold.
+     */
+    private void updateInfluence() {
+        if (influenceThreshold == 0) {
+            influenceRadius = Double.POSITIVE_INFINITY;
+            return;
+        }
+        double c = kC - getPeakIntensity() / influenceThreshold;
+        if (c >= 0) influenceRadius = 0; // too dim anywhere
+        else if (kQ > 0) influenceRadius = (-kL + Math.sqrt(kL * kL - 4 * kQ * c)) / (2 * kQ);
+        else if (kL > 0) influenceRadius = -c / kL;
+        else influenceRadius = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks whether a point is inside the influence radius of the light.
+     *
+     * @param p the point in the scene
+     * @return true if the point is inside the influence radius
+     */
+    @Override
+    public boolean influences(Point p) {
+        return influenceRadius == Double.POSITIVE_INFINITY
+                || p.distanceSquared(position) <= influenceRadius * influenceRadius;
+    }
+
+    /**
+     * Gets the constant attenuation factor.
+     *
+     * @return the constant attenuation factor
+     */
+    public double getKc() {
+        return kC;
+    }
+
+    /**
+     * Gets the linear attenuation factor.
+     *
+     * @return the linear attenuation factor
+     */
+    public double getKl() {
+        return kL;
+    }
+
+    /**
+     * Gets the quadratic attenuation factor.
+     *
+     * @return the quadratic attenuation factor
+     */
+    public double getKq() {
+        return kQ;
+    }
+
     /**
      * Calculates the intensity of the light at the specified point.
      *
@@ -36,6 +36,15 @@ public class SpotLight extends PointLight {
         blackboard.setK(k);
     }
 
+    /**
+     * Returns the direction in which the light is shining.
+     *
+     * @return the normalized direction of the light
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     @Override
     public SpotLight setkC(double kC) {
         return (SpotLight) super.setkC(kC);
@@ -48,6 +57,27 @@ public class SpotLight extends PointLight {
     public SpotLight setKq(double kQ) {
         return (SpotLight) super.setKq(kQ);
     }
+    @Override
+    public SpotLight setInfluenceThreshold(double influenceThreshold) {
+        return (SpotLight) super.setInfluenceThreshold(influenceThreshold);
+    }
+
+    /**
+     * Checks whether a point is inside the cone of the light - in front of it, where the intensity
+     * scaled by the cone factor reaches the influence threshold.
+     *
+     * @param p the point in the scene
+     * @return true if the point is inside the cone
+     */
+    @Override
+    public boolean influences(Point p) {
+        double dx = p.getX() - position.getX(), dy = p.getY() - position.getY(), dz = p.getZ() - position.getZ();
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance == 0) return true;
+        double cos = (dx * direction.getX() + dy * direction.getY() + dz * direction.getZ()) / distance;
+        if (cos <= 0) return false;
+        return getInfluenceThreshold() == 0 || cos * attenuatedPeak(distance) >= getInfluenceThreshold();
+    }
 
 
 
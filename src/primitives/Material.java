@@ -18,6 +18,9 @@ public class Material {
     public Double3 kT = Double3.ZERO;
     public Double3 kR = Double3.ZERO;
 
+    /** The roughness of the material - 0 for a perfect mirror and clear transparency. */
+    public double roughness = 0;
+
     /**
      * Sets the diffuse reflection coefficient.
      *
@@ -90,4 +93,17 @@ public class Material {
         this.kR = new Double3(kR);
         return this;
     }
+
+    /**
+     * Sets the roughness of the material - reflected and transmitted rays are spread through a cone whose
+     * half-width at a unit distance is the roughness, giving glossy reflection and blurry transparency.
+     *
+     * @param roughness the roughness to set, 0 for a perfect mirror and clear transparency
+     * @return the current Material object for method chaining
+     */
+    public Material setRoughness(double roughness) {
+        if (roughness < 0) throw new IllegalArgumentException("Roughness cannot be negative");
+        this.roughness = roughness;
+        return this;
+    }
 }
@@ -37,6 +37,33 @@ public class Point {
      */
     public final static Point ZERO = new Point(Double3.ZERO);
 
+    /**
+     * Gets the X coordinate of the point.
+     *
+     * @return The value of the X coordinate.
+     */
+    public double getX() {
+        return xyz.d1;
+    }
+
+    /**
+     * Gets the Y coordinate of the point.
+     *
+     * @return The value of the Y coordinate.
+     */
+    public double getY() {
+        return xyz.d2;
+    }
+
+    /**
+     * Gets the Z coordinate of the point.
+     *
+     * @return The value of the Z coordinate.
+     */
+    public double getZ() {
+        return xyz.d3;
+    }
+
     /**
      * Checks if the point is equal to another object.
      *
@@ -21,21 +21,39 @@ public class Ray {
     final Vector vector;
 
     /**
-     * Constructs a new Ray with the specified starting point and direction vector.
+     * The time of the ray within the motion interval of moving geometries, 0 for its start and 1 for its end.
+     */
+    final double time;
+
+    /**
+     * Constructs a new Ray with the specified starting point and direction vector at time 0.
      * The direction vector is normalized during construction.
      *
      * @param point  the starting point of the ray.
      * @param vector the direction vector of the ray.
      */
     public Ray(Point point, Vector vector) {
+        this(point, vector, 0);
+    }
+
+    /**
+     * Constructs a new Ray with the specified starting point, direction vector and time.
+     * The direction vector is normalized during construction.
+     *
+     * @param point  the starting point of the ray.
+     * @param vector the direction vector of the ray.
+     * @param time   the time of the ray within the motion interval.
+     */
+    public Ray(Point point, Vector vector, double time) {
         this.point = point;
         this.vector = vector.normalize();
+        this.time = time;
     }
 
     private static final double DELTA = 0.1;
 
     /**
-     * Constructs a new Ray with a specified head point, direction, and normal vector.
+     * Constructs a new Ray with a specified head point, direction, and normal vector at time 0.
      * Adjusts the head point to avoid floating point precision issues.
      *
      * @param head     the head point of the ray.
@@ -43,12 +61,27 @@ public class Ray {
      * @param normal   the normal vector.
      */
     public Ray(Point head, Vector direction, Vector normal) {
+        this(head, direction, normal, 0);
+    }
+
+    /**
+     * Constructs a new Ray with a specified head point, direction, normal vector and time,
+     * e.g. a secondary ray keeping the time of its parent ray.
+     * Adjusts the head point to avoid floating point precision issues.
+     *
+     * @param head      the head point of the ray.
+     * @param direction the direction vector of the ray.
+     * @param normal    the normal vector.
+     * @param time      the time of the ray within the motion interval.
+     */
+    public Ray(Point head, Vector direction, Vector normal, double time) {
         if (isZero(direction.dotProduct(normal))) this.point = head;
         else {
             if (direction.dotProduct(normal) > 0) this.point = head.add(normal.scale(DELTA));
             else this.point = head.add(normal.scale(-DELTA));
         }
         this.vector = direction.normalize();
+        this.time = time;
     }
 
     /**
@@ -69,6 +102,15 @@ public class Ray {
         return this.vector;
     }
 
+    /**
+     * Retrieves the time of the ray within the motion interval.
+     *
+     * @return the time of the ray, 0 for the start of the motion interval and 1 for its end.
+     */
+    public double getTime() {
+        return this.time;
+    }
+
     /**
      * Checks if this ray is equal to another object.
      *
@@ -79,7 +121,7 @@ public class Ray {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Ray ray)) return false;
-        return this.point.equals(ray.point) && this.vector.equals(ray.vector);
+        return this.point.equals(ray.point) && this.vector.equals(ray.vector) && this.time == ray.time;
     }
 
     /**
@@ -0,0 +1,207 @@
+package primitives;
+
+import java.util.Arrays;
+
+/**
+ * The Transform class represents an immutable affine transformation of three-dimensional space -
+ * a 3x3 linear part followed by a translation. Transformations are composed with {@link #then(Transform)}.
+ */
+public final class Transform {
+    /** The identity transformation */
+    public static final Transform IDENTITY = new Transform(new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0});
+
+    /** Row-major 3x4 matrix - the linear part in columns 0-2 and the translation in column 3 */
+    private final double[] m;
+
+    /**
+     * Constructs a transformation from a row-major 3x4 matrix.
+     *
+     * @param m the matrix (kept as is, not copied)
+     */
+    private Transform(double[] m) {
+        this.m = m;
+    }
+
+    /**
+     * Constructs a transformation from its matrix.
+     *
+     * @param matrix row-major 3x4 matrix - the linear part in columns 0-2 and the translation in column 3
+     * @return the transformation
+     * @throws IllegalArgumentException if the matrix does not have 12 elements
+     */
+    public static Transform fromMatrix(double[] matrix) {
+        if (matrix.length != 12) throw new IllegalArgumentException("Transformation matrix must have 12 elements");
+        return new Transform(matrix.clone());
+    }
+
+    /**
+     * Constructs a translation.
+     *
+     * @param offset the translation vector
+     * @return the translation
+     */
+    public static Transform translation(Vector offset) {
+        return new Transform(new double[]{1, 0, 0, offset.xyz.d1, 0, 1, 0, offset.xyz.d2, 0, 0, 1, offset.xyz.d3});
+    }
+
+    /**
+     * Constructs a scaling about the origin.
+     *
+     * @param sx scale factor along the X axis
+     * @param sy scale factor along the Y axis
+     * @param sz scale factor along the Z axis
+     * @return the scaling
+     * @throws IllegalArgumentException if a scale factor is zero
+     */
+    public static Transform scaling(double sx, double sy, double sz) {
+        if (Util.isZero(sx) || Util.isZero(sy) || Util.isZero(sz))
+            throw new IllegalArgumentException("Scale factors must not be zero");
+        return new Transform(new double[]{sx, 0, 0, 0, 0, sy, 0, 0, 0, 0, sz, 0});
+    }
+
+    /**
+     * Constructs a rotation about an axis through the origin.
+     *
+     * @param axis  the rotation axis
+     * @param angle the rotation angle in degrees (counter-clockwise when looking against the axis)
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double angle) {
+        Vector a = axis.normalize();
+        double x = a.xyz.d1, y = a.xyz.d2, z = a.xyz.d3;
+        double rad = Math.toRadians(angle);
+        double c = Math.cos(rad), s = Math.sin(rad), t = 1 - c;
+        return new Transform(new double[]{
+                t * x * x + c, t * x * y - s * z, t * x * z + s * y, 0,
+                t * x * y + s * z, t * y * y + c, t * y * z - s * x, 0,
+                t * x * z - s * y, t * y * z + s * x, t * z * z + c, 0});
+    }
+
+    /**
+     * Gets the matrix of the transformation.
+     *
+     * @return a copy of the row-major 3x4 matrix - the linear part in columns 0-2 and the translation in column 3
+     */
+    public double[] getMatrix() {
+        return m.clone();
+    }
+
+    /**
+     * Composes this transformation with another one applied after it.
+     *
+     * @param next the transformation to apply after this one
+     * @return the composed transformation
+     */
+    public Transform then(Transform next) {
+        double[] a = next.m, b = m;
+        double[] r = new double[12];
+        for (int row = 0; row < 3; ++row) {
+            for (int col = 0; col < 4; ++col)
+                r[row * 4 + col] = a[row * 4] * b[col] + a[row * 4 + 1] * b[4 + col] + a[row * 4 + 2] * b[8 + col];
+            r[row * 4 + 3] += a[row * 4 + 3];
+        }
+        return new Transform(r);
+    }
+
+    /**
+     * Checks whether the transformation is singular - it flattens space, and has no inverse.
+     *
+     * @return true if the determinant of the linear part is zero
+     */
+    public boolean isSingular() {
+        return Util.isZero(determinant());
+    }
+
+    /**
+     * Calculates the determinant of the linear part.
+     *
+     * @return the determinant
+     */
+    private double determinant() {
+        return m[0] * (m[5] * m[10] - m[6] * m[9]) + m[1] * (m[6] * m[8] - m[4] * m[10])
+                + m[2] * (m[4] * m[9] - m[5] * m[8]);
+    }
+
+    /**
+     * Calculates the inverse transformation.
+     *
+     * @return the inverse transformation
+     * @throws IllegalArgumentException if the transformation is singular
+     */
+    public Transform inverse() {
+        double a = m[0], b = m[1], c = m[2], d = m[4], e = m[5], f = m[6], g = m[8], h = m[9], i = m[10];
+        double det = determinant();
+        if (Util.isZero(det)) throw new IllegalArgumentException("Singular transformation has no inverse");
+        double inv = 1 / det;
+        double[] r = {
+                (e * i - f * h) * inv, (c * h - b * i) * inv, (b * f - c * e) * inv, 0,
+                (f * g - d * i) * inv, (a * i - c * g) * inv, (c * d - a * f) * inv, 0,
+                (d * h - e * g) * inv, (b * g - a * h) * inv, (a * e - b * d) * inv, 0};
+        for (int row = 0; row < 3; ++row)
+            r[row * 4 + 3] = -(r[row * 4] * m[3] + r[row * 4 + 1] * m[7] + r[row * 4 + 2] * m[11]);
+        return new Transform(r);
+    }
+
+    /**
+     * Interpolates linearly between this transformation and another one, matrix element by matrix element.
+     * A point transformed by the interpolated transformation moves along the segment between its two
+     * transformed positions.
+     *
+     * @param other the transformation at the end of the interpolation
+     * @param t     the interpolation parameter, 0 for this transformation and 1 for the other one
+     * @return the interpolated transformation
+     */
+    public Transform interpolate(Transform other, double t) {
+        double[] r = new double[12];
+        for (int i = 0; i < 12; ++i) r[i] = m[i] + t * (other.m[i] - m[i]);
+        return new Transform(r);
+    }
+
+    /**
+     * Transforms a point.
+     *
+     * @param point the point
+     * @return the transformed point
+     */
+    public Point apply(Point point) {
+        double x = point.xyz.d1, y = point.xyz.d2, z = point.xyz.d3;
+        return new Point(
+                m[0] * x + m[1] * y + m[2] * z + m[3],
+                m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    /**
+     * Transforms a direction vector - only the linear part is applied, and the result is not normalized.
+     *
+     * @param vector the vector
+     * @return the transformed vector
+     */
+    public Vector applyLinear(Vector vector) {
+        double x = vector.xyz.d1, y = vector.xyz.d2, z = vector.xyz.d3;
+        return new Vector(
+                m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+
+    /**
+     * Transforms a normal vector by the transpose of the linear part.
+     * Applying it on the inverse transformation transforms normals along with the surfaces.
+     *
+     * @param normal the normal vector
+     * @return the transformed normal, normalized
+     */
+    public Vector applyTranspose(Vector normal) {
+        double x = normal.xyz.d1, y = normal.xyz.d2, z = normal.xyz.d3;
+        return new Vector(
+                m[0] * x + m[4] * y + m[8] * z,
+                m[1] * x + m[5] * y + m[9] * z,
+                m[2] * x + m[6] * y + m[10] * z).normalize();
+    }
+
+    @Override
+    public String toString() {
+        return "Transform{" + Arrays.toString(m) + "}";
+    }
+}
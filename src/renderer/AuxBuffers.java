@@ -0,0 +1,265 @@
+package renderer;
+
+import geometries.Geometry;
+import primitives.Color;
+import primitives.Double3;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The AuxBuffers class keeps per-pixel buffers (arbitrary output variables) of a rendered image - its color and
+ * the surfaces seen by its pixels, as recorded by the ray tracer in the same pass. Each buffer is a compact array
+ * by row and column ({@code i * nX + j}), with one value per pixel or three values per pixel (x, y and z,
+ * or red, green and blue).
+ * Pixels that see no surface have a zero normal, an infinite depth and the geometry ID 0.
+ * <p>
+ * The buffers can be written to files in the images folder in the portable float map format (PFM), so that
+ * compositing tools read the exact values.
+ */
+public class AuxBuffers {
+    /** Folder of the written files */
+    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+
+    /** Horizontal resolution */
+    private final int nX;
+    /** Vertical resolution */
+    private final int nY;
+    /** Three color components per pixel */
+    final float[] color;
+    /** Three normal components per pixel */
+    final float[] normal;
+    /** Distance from the camera per pixel */
+    final float[] depth;
+    /** Three diffuse attenuation components per pixel */
+    final float[] albedo;
+    /** Three emission components per pixel */
+    final float[] emission;
+    /** Geometry per pixel while recording, null once the geometry IDs are assigned */
+    private Geometry[] hits;
+    /** Geometry ID per pixel, null until the recording is finished */
+    private int[] geometryIds;
+    /** Geometries by their IDs, null at ID 0 */
+    private Geometry[] geometries;
+
+    /**
+     * Constructs empty buffers.
+     *
+     * @param nX horizontal resolution
+     * @param nY vertical resolution
+     */
+    AuxBuffers(int nX, int nY) {
+        this.nX = nX;
+        this.nY = nY;
+        color = new float[3 * nX * nY];
+        normal = new float[3 * nX * nY];
+        depth = new float[nX * nY];
+        Arrays.fill(depth, Float.POSITIVE_INFINITY);
+        albedo = new float[3 * nX * nY];
+        emission = new float[3 * nX * nY];
+        hits = new Geometry[nX * nY];
+    }
+
+    /**
+     * Records the color of a pixel and the surface it sees.
+     *
+     * @param j       the column of the pixel
+     * @param i       the row of the pixel
+     * @param color   the color of the pixel
+     * @param surface the surface seen by the pixel
+     */
+    void record(int j, int i, Color color, SurfaceRecord surface) {
+        int pixel = i * nX + j;
+        setColor(pixel, color);
+        depth[pixel] = (float) surface.depth;
+        if (surface.normal != null) set(normal, pixel, surface.normal.getX(), surface.normal.getY(),
+                surface.normal.getZ());
+        Double3 kD = surface.albedo;
+        set(albedo, pixel, kD.getD1(), kD.getD2(), kD.getD3());
+        Double3 rgb = surface.emission.getRgb();
+        set(emission, pixel, rgb.getD1(), rgb.getD2(), rgb.getD3());
+        hits[pixel] = surface.geometry;
+    }
+
+    /**
+     * Replaces the color of a pixel.
+     *
+     * @param pixel the index of the pixel
+     * @param color the color
+     */
+    void setColor(int pixel, Color color) {
+        Double3 rgb = color.getRgb();
+        set(this.color, pixel, rgb.getD1(), rgb.getD2(), rgb.getD3());
+    }
+
+    /**
+     * Finishes the recording - numbers the geometries seen by the pixels from 1 in the order of their first pixel,
+     * so the IDs of a scene do not depend on the order the pixels were rendered in.
+     */
+    void finish() {
+        Map<Geometry, Integer> ids = new HashMap<>();
+        List<Geometry> table = new ArrayList<>();
+        table.add(null);
+        geometryIds = new int[nX * nY];
+        for (int pixel = 0; pixel < hits.length; ++pixel) {
+            Geometry geometry = hits[pixel];
+            if (geometry == null) continue;
+            geometryIds[pixel] = ids.computeIfAbsent(geometry, g -> {
+                table.add(g);
+                return table.size() - 1;
+            });
+        }
+        geometries = table.toArray(new Geometry[0]);
+        hits = null;
+    }
+
+    /**
+     * Sets the three components of a pixel in a buffer.
+     *
+     * @param buffer the buffer
+     * @param pixel  the index of the pixel
+     * @param x      the first component
+     * @param y      the second component
+     * @param z      the third component
+     */
+    private static void set(float[] buffer, int pixel, double x, double y, double z) {
+        buffer[3 * pixel] = (float) x;
+        buffer[3 * pixel + 1] = (float) y;
+        buffer[3 * pixel + 2] = (float) z;
+    }
+
+    /**
+     * Gets the horizontal resolution.
+     *
+     * @return the amount of columns
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Gets the vertical resolution.
+     *
+     * @return the amount of rows
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Gets the color buffer.
+     *
+     * @return three color components per pixel
+     */
+    public float[] getColor() {
+        return color;
+    }
+
+    /**
+     * Gets the normal buffer.
+     *
+     * @return three normal components per pixel, facing the camera
+     */
+    public float[] getNormal() {
+        return normal;
+    }
+
+    /**
+     * Gets the depth buffer.
+     *
+     * @return the distance from the camera per pixel
+     */
+    public float[] getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the albedo buffer.
+     *
+     * @return three diffuse attenuation components per pixel
+     */
+    public float[] getAlbedo() {
+        return albedo;
+    }
+
+    /**
+     * Gets the emission buffer.
+     *
+     * @return three emission components per pixel
+     */
+    public float[] getEmission() {
+        return emission;
+    }
+
+    /**
+     * Gets the geometry ID buffer.
+     *
+     * @return the geometry ID per pixel, 0 for no geometry (see {@link #getGeometry(int)})
+     */
+    public int[] getGeometryIds() {
+        return geometryIds;
+    }
+
+    /**
+     * Gets a geometry by its ID.
+     *
+     * @param id the geometry ID
+     * @return the geometry, null for ID 0
+     */
+    public Geometry getGeometry(int id) {
+        return geometries[id];
+    }
+
+    /**
+     * Writes the buffers to PFM files in the images folder - the name followed by "-color", "-normal", "-depth",
+     * "-albedo", "-emission" and "-id". Pixels with no surface have the depth 0 in the file.
+     *
+     * @param name the file name prefix
+     */
+    public void writeToFiles(String name) {
+        float[] depths = depth.clone(), ids = new float[geometryIds.length];
+        for (int pixel = 0; pixel < depths.length; ++pixel) {
+            if (depths[pixel] == Float.POSITIVE_INFINITY) depths[pixel] = 0;
+            ids[pixel] = geometryIds[pixel];
+        }
+        writePfm(name + "-color", color, 3);
+        writePfm(name + "-normal", normal, 3);
+        writePfm(name + "-depth", depths, 1);
+        writePfm(name + "-albedo", albedo, 3);
+        writePfm(name + "-emission", emission, 3);
+        writePfm(name + "-id", ids, 1);
+    }
+
+    /**
+     * Writes a buffer to a PFM file - little endian floats, from the bottom row up.
+     *
+     * @param name       the file name
+     * @param buffer     the buffer
+     * @param components amount of components per pixel, 1 or 3
+     */
+    private void writePfm(String name, float[] buffer, int components) {
+        String header = (components == 3 ? "PF" : "Pf") + "\n" + nX + " " + nY + "\n-1.0\n";
+        ByteBuffer row = ByteBuffer.allocate(4 * components * nX).order(ByteOrder.LITTLE_ENDIAN);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(FOLDER_PATH + '/' + name + ".pfm")))) {
+            out.write(header.getBytes(StandardCharsets.US_ASCII));
+            for (int i = nY - 1; i >= 0; --i) {
+                row.clear();
+                row.asFloatBuffer().put(buffer, i * nX * components, nX * components);
+                out.write(row.array());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+        }
+    }
+}
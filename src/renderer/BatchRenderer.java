@@ -0,0 +1,90 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The BatchRenderer class renders the images of several cameras in a single scheduling pass.
+ * The scenes of the cameras are compiled once, and the tiles of all the images are interleaved over one
+ * worker pool - so viewpoints of the same scene share its acceleration structure and its warm caches,
+ * and the workers stay busy until the last tile of the last image.
+ */
+public class BatchRenderer {
+    /** The cameras to render */
+    private final List<Camera> cameras = new ArrayList<>();
+    /** Amount of rendering threads, 0 for rendering on the calling thread */
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    /** Size of a tile side in pixels */
+    private int tileSize = 16;
+
+    /**
+     * Adds cameras to the batch.
+     *
+     * @param cameras the cameras (each with its own image writer)
+     * @return the renderer instance for method chaining
+     */
+    public BatchRenderer addCameras(Camera... cameras) {
+        Collections.addAll(this.cameras, cameras);
+        return this;
+    }
+
+    /**
+     * Sets the amount of rendering threads.
+     *
+     * @param threadsCount amount of threads, 0 for rendering on the calling thread
+     * @return the renderer instance for method chaining
+     */
+    public BatchRenderer setMultithreading(int threadsCount) {
+        if (threadsCount < 0) throw new IllegalArgumentException("Threads count cannot be negative");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Sets the size of the tiles handed to the rendering threads.
+     *
+     * @param tileSize size of a tile side in pixels
+     * @return the renderer instance for method chaining
+     */
+    public BatchRenderer setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Renders the images of all the cameras. The scene of each ray tracer is compiled once
+     * (see {@link scene.CompiledScene}), which builds its acceleration structure unless it already exists.
+     *
+     * @return the renderer instance for method chaining
+     * @throws IllegalArgumentException if a camera samples adaptively or has a time budget
+     */
+    public BatchRenderer renderImages() {
+        Set<RayTracerBase> compiled = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Camera camera : cameras)
+            if (compiled.add(camera.getRayTracer())) camera.getRayTracer().compileScene();
+
+        ExecutorService pool = threadsCount == 0 ? null : Executors.newFixedThreadPool(threadsCount);
+        try {
+            new TileScheduler(pool, threadsCount, tileSize).render(cameras);
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        return this;
+    }
+
+    /**
+     * Writes the images of all the cameras to their files.
+     *
+     * @return the renderer instance for method chaining
+     */
+    public BatchRenderer writeToImages() {
+        for (Camera camera : cameras) camera.writeToImage();
+        return this;
+    }
+}
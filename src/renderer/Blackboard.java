@@ -31,6 +31,10 @@ public class Blackboard {
         this.width = width;
     }
 
+    public double getK() {
+        return k;
+    }
+
     public void setK(double k) {
         this.k = k;
     }
@@ -9,6 +9,8 @@ import scene.Scene;
 import java.awt.*;
 import java.util.LinkedList;
 import java.util.MissingResourceException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -40,6 +42,19 @@ public class Camera implements Cloneable {
     boolean useSoftShadows = true;
     double printInterval = 0;
     int threadsCount = 0;
+    private double aperture = 0;        // Diameter of the lens aperture, 0 for a pinhole
+    private double focalDistance = 0;   // Distance from the camera to the plane in focus
+    private int apertureSamples = 1;    // Maximal amount of aperture samples per pixel
+    private double shutterOpen = 0;     // Time the shutter opens within the motion interval
+    private double shutterClose = 0;    // Time the shutter closes within the motion interval
+    private int shutterSamples = 1;     // Maximal amount of shutter time samples per pixel
+    private double sampleTolerance = 1; // Standard error of a pixel color below which pixel sampling stops
+    private int maxPixelSamples = 1;    // Maximal amount of jittered samples per pixel in adaptive sampling
+    private long timeBudget = 0;        // Wall-clock budget of a render in milliseconds, 0 for no budget
+    private int[] sampleCounts;         // Amount of samples per pixel taken by the last adaptive render
+    private Denoiser denoiser = null;   // Post-process stage of the rendered image, null for no denoising
+    private boolean recordAux = false;  // Whether the surfaces seen by the pixels are recorded
+    private AuxBuffers auxBuffers;      // Color and surfaces of the pixels of the last recorded render
     /**
      * Private constructor for Camera.
      * Initializes the camera with default values.
@@ -196,6 +211,124 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Set a thin-lens depth of field. Each pixel is sampled through points of the lens aperture aimed at
+         * the point of the pixel on the plane in focus. Samples are taken in batches until the standard error of
+         * the pixel color is within the sample tolerance, so pixels in focus take a single batch of rays and
+         * only blurred pixels take up to the maximal amount.
+         *
+         * @param aperture      The diameter of the lens aperture, 0 for a pinhole camera.
+         * @param focalDistance The distance from the camera to the plane in focus.
+         * @param samples       The maximal amount of aperture samples per pixel.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException If a parameter is out of its range.
+         */
+        public Builder setDepthOfField(double aperture, double focalDistance, int samples) {
+            if (aperture < 0) throw new IllegalArgumentException("Aperture cannot be negative");
+            if (focalDistance <= 0) throw new IllegalArgumentException("Focal distance must be positive");
+            if (samples < 1) throw new IllegalArgumentException("Aperture samples count must be positive");
+            this.camera.aperture = aperture;
+            this.camera.focalDistance = focalDistance;
+            this.camera.apertureSamples = samples;
+            return this;
+        }
+
+        /**
+         * Set the shutter interval for motion blur. Each pixel is sampled at stratified random times of the
+         * interval (see {@link primitives.Ray#getTime()}), so moving geometries are blurred along their motion.
+         * Samples are taken in batches until the standard error of the pixel color is within the sample tolerance,
+         * so pixels of static geometries take a single batch of rays.
+         *
+         * @param open    The time the shutter opens, in [0,1] of the motion interval.
+         * @param close   The time the shutter closes, in [open,1] - equal to open for no motion blur.
+         * @param samples The maximal amount of shutter time samples per pixel.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException If a parameter is out of its range.
+         */
+        public Builder setShutter(double open, double close, int samples) {
+            if (open < 0 || close > 1 || open > close)
+                throw new IllegalArgumentException("Shutter interval must be within [0,1]");
+            if (samples < 1) throw new IllegalArgumentException("Shutter samples count must be positive");
+            this.camera.shutterOpen = open;
+            this.camera.shutterClose = close;
+            this.camera.shutterSamples = samples;
+            return this;
+        }
+
+        /**
+         * Set the standard error of a pixel color (in color units) below which aperture and shutter sampling stops.
+         *
+         * @param tolerance The tolerance, 0 for always taking the maximal amount of samples.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException If the tolerance is negative.
+         */
+        public Builder setSampleTolerance(double tolerance) {
+            if (tolerance < 0) throw new IllegalArgumentException("Sample tolerance cannot be negative");
+            this.camera.sampleTolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Set adaptive sampling of the pixels. Jittered samples are added to each pixel in rounds, with a running
+         * (Welford) estimate of the variance of its color, until the standard error of the pixel color is within
+         * the tolerance or the maximal amount of samples is taken. Adaptive sampling is done by
+         * {@link Camera#renderImage()} only - tiled renders reject it.
+         *
+         * @param maxSamples The maximal amount of samples per pixel, 1 for no adaptive sampling.
+         * @param tolerance  The standard error of a pixel color (in color units) below which sampling of the pixel
+         *                   stops, 0 for always taking the maximal amount of samples - the same tolerance as
+         *                   {@link #setSampleTolerance(double)}.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException If a parameter is out of its range.
+         */
+        public Builder setAdaptiveSampling(int maxSamples, double tolerance) {
+            if (maxSamples < 1) throw new IllegalArgumentException("Pixel samples count must be positive");
+            if (tolerance < 0) throw new IllegalArgumentException("Pixel tolerance cannot be negative");
+            this.camera.maxPixelSamples = maxSamples;
+            this.camera.sampleTolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Set a wall-clock budget of a render. Once every pixel has its first sample, adaptive sampling stops at the
+         * budget and the image keeps the best colors found so far. The budget is kept by
+         * {@link Camera#renderImage()} only - tiled renders reject it.
+         *
+         * @param millis The budget in milliseconds, 0 for no budget.
+         * @return The Builder instance for method chaining.
+         * @throws IllegalArgumentException If the budget is negative.
+         */
+        public Builder setTimeBudget(long millis) {
+            if (millis < 0) throw new IllegalArgumentException("Time budget cannot be negative");
+            this.camera.timeBudget = millis;
+            return this;
+        }
+
+        /**
+         * Set a denoiser filtering the rendered image. The surfaces seen by the pixels are recorded in
+         * auxiliary buffers while rendering, and guide the filter after the rendering.
+         *
+         * @param denoiser The denoiser, null for no denoising.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder setDenoiser(Denoiser denoiser) {
+            this.camera.denoiser = denoiser;
+            return this;
+        }
+
+        /**
+         * Set recording of auxiliary output buffers - the depth, normal, albedo, emission and geometry of the
+         * surface seen by each pixel, recorded in the same pass as the color (see {@link Camera#getAuxBuffers()}).
+         * They are always recorded when a denoiser is set.
+         *
+         * @param record Whether the buffers are recorded.
+         * @return The Builder instance for method chaining.
+         */
+        public Builder setAuxBuffers(boolean record) {
+            this.camera.recordAux = record;
+            return this;
+        }
+
         /**
          * Rotates the camera around its viewing axis by the specified angle in degrees.
          * Positive angles rotate counter-clockwise, and negative angles rotate clockwise.
@@ -294,6 +427,19 @@ public class Camera implements Cloneable {
      * @return A Ray representing the direction from the camera through the specified pixel.
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
+        return constructRay(nX, nY, (double) j, (double) i);
+    }
+
+    /**
+     * Construct a ray from the camera through a point of a pixel on the view plane.
+     *
+     * @param nX The number of pixels in the x-direction.
+     * @param nY The number of pixels in the y-direction.
+     * @param j  The x-coordinate in pixels, whole at the pixel centers.
+     * @param i  The y-coordinate in pixels, whole at the pixel centers.
+     * @return A Ray representing the direction from the camera through the specified point.
+     */
+    private Ray constructRay(int nX, int nY, double j, double i) {
         Point pc = this.p0.add(vTo.scale(distance));
         double Ry = height / nX;
         double Rx = width / nY;
@@ -313,6 +459,13 @@ public class Camera implements Cloneable {
     public Camera renderImage() {
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
+        rayTracer.compileScene();
+        startImage(true);
+        if (isAdaptive()) {
+            renderAdaptive(nX, nY);
+            finishImage();
+            return this;
+        }
         pixelManager = new PixelManager(nY, nX, printInterval);
         if (threadsCount == 0) {
             for (int i = 0; i < nY; ++i)
@@ -337,9 +490,180 @@ public class Camera implements Cloneable {
             } catch (InterruptedException ignore) {
             }
         }
+        finishImage();
         return this;
     }
 
+    /**
+     * Starts a render of the image - allocates new auxiliary buffers if the surfaces are recorded,
+     * so the buffers of an earlier render are never written again.
+     *
+     * @param recording Whether the render records the surfaces seen by the pixels (when the camera has
+     *                  auxiliary buffers or a denoiser), false for a render that produces no buffers.
+     */
+    void startImage(boolean recording) {
+        auxBuffers = !recording || denoiser == null && !recordAux ? null
+                : new AuxBuffers(imageWriter.getNx(), imageWriter.getNy());
+    }
+
+    /**
+     * Finishes the recording of the auxiliary buffers, if any, and replaces the rendered image by its denoised
+     * color if a denoiser is set.
+     */
+    void finishImage() {
+        if (auxBuffers == null) return;
+        auxBuffers.finish();
+        if (denoiser == null) return;
+        float[] color = denoiser.denoise(auxBuffers);
+        int nX = imageWriter.getNx();
+        for (int pixel = 0; pixel < color.length / 3; ++pixel)
+            imageWriter.writePixel(pixel % nX, pixel / nX,
+                    new Color(color[3 * pixel], color[3 * pixel + 1], color[3 * pixel + 2]));
+    }
+
+    /**
+     * Gets the color and the surfaces of the pixels recorded by the last render with auxiliary buffers
+     * or with a denoiser.
+     *
+     * @return The buffers, with the color before denoising, or null if the last render recorded none.
+     */
+    public AuxBuffers getAuxBuffers() {
+        return auxBuffers;
+    }
+
+    /**
+     * Renders the image with adaptive sampling. The first round takes a sample through the center of every pixel,
+     * and each following round adds a batch of jittered samples to the pixels that did not converge yet.
+     * Rounds stop when all the pixels converged or at the time budget - each pixel holds the mean color of its
+     * samples, so the image is the best one found so far.
+     *
+     * @param nX The number of pixels in the x-direction.
+     * @param nY The number of pixels in the y-direction.
+     */
+    private void renderAdaptive(int nX, int nY) {
+        long deadline = timeBudget == 0 ? Long.MAX_VALUE : System.nanoTime() + timeBudget * 1_000_000;
+        int pixels = nX * nY;
+        SampleStatistics[] statistics = new SampleStatistics[pixels];
+        for (int pixel = 0; pixel < pixels; ++pixel) statistics[pixel] = new SampleStatistics();
+        int[] active = IntStream.range(0, pixels).toArray();
+        int activeCount = pixels;
+        for (int round = 0; activeCount > 0; ++round) {
+            int batch = round == 0 ? 1 : SampleStatistics.BATCH;
+            boolean jitter = round > 0;
+            int[] roundPixels = active;
+            int roundCount = activeCount;
+            AtomicInteger next = new AtomicInteger();
+            runThreads(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int k = next.getAndIncrement(); k < roundCount; k = next.getAndIncrement()) {
+                    // the first round is always completed, so every pixel has a color
+                    if (jitter && System.nanoTime() > deadline) return;
+                    int pixel = roundPixels[k], j = pixel % nX, i = pixel / nX;
+                    SampleStatistics pixelStatistics = statistics[pixel];
+                    for (int s = 0; s < batch && pixelStatistics.getCount() < maxPixelSamples; ++s) {
+                        SurfaceRecord surface = jitter || auxBuffers == null ? null : new SurfaceRecord();
+                        Double3 rgb = (jitter
+                                ? tracePixel(nX, nY, j + random.nextDouble() - 0.5, i + random.nextDouble() - 0.5)
+                                : tracePixel(nX, nY, j, i, surface)).getRgb();
+                        if (surface != null) auxBuffers.record(j, i, Color.BLACK, surface);
+                        pixelStatistics.add(rgb);
+                    }
+                    Color color = pixelStatistics.getMean();
+                    imageWriter.writePixel(j, i, color);
+                    if (auxBuffers != null) auxBuffers.setColor(pixel, color);
+                }
+            });
+            if (System.nanoTime() > deadline) break;
+
+            // the pixels that did not converge go on to the next round
+            int kept = 0;
+            for (int k = 0; k < activeCount; ++k) {
+                int pixel = active[k];
+                if (statistics[pixel].getCount() < maxPixelSamples && !statistics[pixel].converged(sampleTolerance))
+                    active[kept++] = pixel;
+            }
+            activeCount = kept;
+        }
+        int[] counts = new int[pixels];
+        for (int pixel = 0; pixel < pixels; ++pixel) counts[pixel] = statistics[pixel].getCount();
+        sampleCounts = counts;
+    }
+
+    /**
+     * Checks whether the camera samples its pixels adaptively or under a time budget, which only
+     * {@link #renderImage()} does.
+     *
+     * @return true for adaptive sampling or a time budget
+     */
+    boolean isAdaptive() {
+        return maxPixelSamples > 1 || timeBudget > 0;
+    }
+
+    /**
+     * Runs a worker on the rendering threads (or on the calling thread) and waits for them.
+     *
+     * @param worker The worker code.
+     */
+    private void runThreads(Runnable worker) {
+        if (threadsCount == 0) {
+            worker.run();
+            return;
+        }
+        var threads = new LinkedList<Thread>();
+        for (int t = 0; t < threadsCount; ++t) threads.add(new Thread(worker));
+        for (var thread : threads) thread.start();
+        try {
+            for (var thread : threads) thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the amount of samples taken for each pixel by the last adaptive render.
+     *
+     * @return The amounts of samples by row and column ({@code i * nX + j}), or null before an adaptive render.
+     */
+    public int[] getSampleCounts() {
+        return sampleCounts;
+    }
+
+    /**
+     * Renders a rectangle of pixels of the image. Rendering of separate rectangles may run concurrently,
+     * between {@link #startImage(boolean)} and {@link #finishImage()}. Each pixel is traced once - adaptive
+     * sampling and the time budget need the whole image (see {@link #isAdaptive()}).
+     *
+     * @param fromCol first column of the rectangle
+     * @param fromRow first row of the rectangle
+     * @param toCol   column following the rectangle
+     * @param toRow   row following the rectangle
+     */
+    void renderTile(int fromCol, int fromRow, int toCol, int toRow) {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        for (int i = fromRow; i < toRow; ++i)
+            for (int j = fromCol; j < toCol; ++j)
+                castRay(nX, nY, j, i);
+    }
+
+    /**
+     * Gets the ray tracer of the camera.
+     *
+     * @return the ray tracer
+     */
+    RayTracerBase getRayTracer() {
+        return rayTracer;
+    }
+
+    /**
+     * Gets the image writer of the camera.
+     *
+     * @return the image writer
+     */
+    ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
     /**
      * Prints a grid on the image at specified intervals with the given color.
      *
@@ -378,10 +702,99 @@ public class Camera implements Cloneable {
      * @param i  The y-coordinate of the pixel.
      */
     private void castRay(int nX, int nY, int j, int i) {
+        SurfaceRecord surface = auxBuffers == null ? null : new SurfaceRecord();
+        Color color = tracePixel(nX, nY, j, i, surface);
+        if (surface != null) auxBuffers.record(j, i, color, surface);
+        imageWriter.writePixel(j, i, color);
+        if (pixelManager != null) pixelManager.pixelDone();
+    }
+
+    /**
+     * Traces a point of a pixel - through the lens aperture and over the shutter interval if they are sampled.
+     *
+     * @param nX The number of pixels in the x-direction.
+     * @param nY The number of pixels in the y-direction.
+     * @param j  The x-coordinate in pixels, whole at the pixel centers.
+     * @param i  The y-coordinate in pixels, whole at the pixel centers.
+     * @return The color of the point.
+     */
+    Color tracePixel(int nX, int nY, double j, double i) {
+        return tracePixel(nX, nY, j, i, null);
+    }
+
+    /**
+     * Traces a point of a pixel and records the surface seen by its first ray.
+     *
+     * @param nX      The number of pixels in the x-direction.
+     * @param nY      The number of pixels in the y-direction.
+     * @param j       The x-coordinate in pixels, whole at the pixel centers.
+     * @param i       The y-coordinate in pixels, whole at the pixel centers.
+     * @param surface Receives the surface seen by the first ray, null for not recording it.
+     * @return The color of the point.
+     */
+    private Color tracePixel(int nX, int nY, double j, double i, SurfaceRecord surface) {
         Ray ray = constructRay(nX, nY, j, i);
-        imageWriter.writePixel(j, i,
-                rayTracer.traceRay(ray,useSoftShadows));
-        pixelManager.pixelDone();
+        boolean lens = aperture > 0 && apertureSamples > 1;
+        boolean shutter = shutterClose > shutterOpen;
+        if (lens || shutter) return traceSamples(ray, lens, shutter, surface);
+        return trace(shutterOpen == 0 ? ray : new Ray(ray.getHead(), ray.getDirection(), shutterOpen), surface);
+    }
+
+    /**
+     * Traces a ray, recording the surface it sees if requested.
+     *
+     * @param ray     The ray.
+     * @param surface Receives the surface seen by the ray, null for not recording it.
+     * @return The color of the ray.
+     */
+    private Color trace(Ray ray, SurfaceRecord surface) {
+        return surface == null ? rayTracer.traceRay(ray, useSoftShadows)
+                : rayTracer.traceRay(ray, useSoftShadows, surface);
+    }
+
+    /**
+     * Traces a pixel through the lens aperture and over the shutter interval - the mean color of rays from
+     * points of the aperture to the point of the pixel ray on the plane in focus, at times of the shutter
+     * interval. Each batch takes a point in each sector of the aperture and a time in each part of the
+     * interval (paired by a random shift), and batches are added until the standard error of the mean color
+     * is within the tolerance (see {@link SampleStatistics}).
+     *
+     * @param ray     The pinhole ray of the pixel.
+     * @param lens    Whether the aperture is sampled.
+     * @param shutter Whether the shutter interval is sampled.
+     * @param surface Receives the surface seen by the first sample, null for not recording it.
+     * @return The color of the pixel.
+     */
+    private Color traceSamples(Ray ray, boolean lens, boolean shutter, SurfaceRecord surface) {
+        Vector direction = ray.getDirection();
+        Point focus = lens ? ray.getPoint(focalDistance / direction.dotProduct(vTo)) : null;
+        int maxSamples = Math.max(lens ? apertureSamples : 1, shutter ? shutterSamples : 1);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double radius = aperture / 2;
+        SampleStatistics statistics = new SampleStatistics();
+        while (statistics.getCount() < maxSamples) {
+            int shift = random.nextInt(SampleStatistics.BATCH);
+            for (int s = 0; s < SampleStatistics.BATCH && statistics.getCount() < maxSamples; ++s) {
+                double time = shutter
+                        ? shutterOpen + ((s + shift) % SampleStatistics.BATCH + random.nextDouble()) / SampleStatistics.BATCH
+                        * (shutterClose - shutterOpen)
+                        : shutterOpen;
+                Ray sample;
+                if (lens) {
+                    // uniform on the disk, one sample in each sector of a batch
+                    double r = radius * Math.sqrt(random.nextDouble());
+                    double angle = (s + random.nextDouble()) * 2 * Math.PI / SampleStatistics.BATCH;
+                    double x = r * Math.cos(angle), y = r * Math.sin(angle);
+                    Point head = p0;
+                    if (!isZero(x)) head = head.add(vRight.scale(x));
+                    if (!isZero(y)) head = head.add(vUp.scale(y));
+                    sample = new Ray(head, focus.subtract(head), time);
+                } else sample = new Ray(ray.getHead(), direction, time);
+                statistics.add(trace(sample, statistics.getCount() == 0 ? surface : null).getRgb());
+            }
+            if (statistics.converged(sampleTolerance)) break;
+        }
+        return statistics.getMean();
     }
 
-}
\ No newline at end of file
+}
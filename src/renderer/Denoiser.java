@@ -0,0 +1,180 @@
+package renderer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The Denoiser class is a post-process stage smoothing the noise of a rendered image (e.g. of sampled soft
+ * shadows and glossy reflections) while keeping its edges, by an edge-avoiding à-trous wavelet filter.
+ * <p>
+ * Each iteration blurs the image by a 5×5 B3-spline kernel whose taps are spread twice as far apart as in the
+ * previous iteration, so a few iterations cover a wide footprint. Every tap is weighted by how much its pixel
+ * looks like the filtered pixel - in color, and in the surface it sees as recorded in the auxiliary buffers
+ * (normal, depth and albedo), so the filter does not blur across geometric edges or texture changes.
+ * The color tolerance is halved in every iteration, as the noise of the image drops.
+ * Iterations run in parallel over tiles of the image.
+ */
+public class Denoiser {
+    /** The B3-spline kernel taps */
+    private static final double[] KERNEL = {1d / 16, 1d / 4, 3d / 8, 1d / 4, 1d / 16};
+
+    /** Amount of filter iterations */
+    private int iterations = 5;
+    /** Color difference (in color units) of a weight drop by e in the first iteration */
+    private double colorSigma = 64;
+    /** Normal difference of a weight drop by e */
+    private double normalSigma = 0.3;
+    /** Relative depth difference per pixel of a weight drop by e */
+    private double depthSigma = 0.05;
+    /** Albedo difference of a weight drop by e */
+    private double albedoSigma = 0.1;
+    /** Amount of filtering threads, 0 for filtering on the calling thread */
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    /** Size of a tile side in pixels */
+    private int tileSize = 16;
+
+    /**
+     * Sets the amount of filter iterations - the footprint of the filter is about 2 to the power of the
+     * iterations, in pixels.
+     *
+     * @param iterations amount of iterations
+     * @return the denoiser instance for method chaining
+     */
+    public Denoiser setIterations(int iterations) {
+        if (iterations < 1) throw new IllegalArgumentException("Iterations count must be positive");
+        this.iterations = iterations;
+        return this;
+    }
+
+    /**
+     * Sets the tolerances of the edge-stopping weights - the differences between two pixels that drop the weight
+     * of one in the filtering of the other by e. Smaller tolerances keep more edges and remove less noise.
+     *
+     * @param color  color difference (in color units) in the first iteration
+     * @param normal difference of the normals
+     * @param depth  relative difference of the depths per pixel between them
+     * @param albedo difference of the albedos
+     * @return the denoiser instance for method chaining
+     */
+    public Denoiser setSigmas(double color, double normal, double depth, double albedo) {
+        if (color <= 0 || normal <= 0 || depth <= 0 || albedo <= 0)
+            throw new IllegalArgumentException("Tolerances must be positive");
+        this.colorSigma = color;
+        this.normalSigma = normal;
+        this.depthSigma = depth;
+        this.albedoSigma = albedo;
+        return this;
+    }
+
+    /**
+     * Sets the amount of filtering threads.
+     *
+     * @param threadsCount amount of threads, 0 for filtering on the calling thread
+     * @return the denoiser instance for method chaining
+     */
+    public Denoiser setMultithreading(int threadsCount) {
+        if (threadsCount < 0) throw new IllegalArgumentException("Threads count cannot be negative");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Sets the size of the tiles handed to the filtering threads.
+     *
+     * @param tileSize size of a tile side in pixels
+     * @return the denoiser instance for method chaining
+     */
+    public Denoiser setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Filters the color buffer of an image guided by its auxiliary buffers. The buffers are not changed.
+     *
+     * @param buffers the color and auxiliary buffers
+     * @return the filtered color - three components per pixel
+     */
+    public float[] denoise(AuxBuffers buffers) {
+        int nX = buffers.getNx(), nY = buffers.getNy();
+        float[] source = buffers.color.clone(), target = new float[source.length];
+        ExecutorService pool = threadsCount == 0 ? null : Executors.newFixedThreadPool(threadsCount);
+        try {
+            TileScheduler scheduler = new TileScheduler(pool, threadsCount, tileSize);
+            for (int iteration = 0; iteration < iterations; ++iteration) {
+                int step = 1 << iteration;
+                double sigma = colorSigma / step;
+                float[] in = source, out = target;
+                scheduler.run(nX, nY, (fromCol, fromRow, toCol, toRow) -> {
+                    for (int i = fromRow; i < toRow; ++i)
+                        for (int j = fromCol; j < toCol; ++j)
+                            filter(buffers, in, out, j, i, step, sigma);
+                });
+                target = source;
+                source = out;
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        return source;
+    }
+
+    /**
+     * Filters a pixel in an iteration.
+     *
+     * @param buffers the auxiliary buffers
+     * @param in      the color before the iteration
+     * @param out     the color after the iteration
+     * @param j       the column of the pixel
+     * @param i       the row of the pixel
+     * @param step    distance in pixels between the kernel taps
+     * @param sigma   color tolerance of the iteration
+     */
+    private void filter(AuxBuffers buffers, float[] in, float[] out, int j, int i, int step, double sigma) {
+        int nX = buffers.getNx(), nY = buffers.getNy();
+        float[] normal = buffers.normal, depth = buffers.depth, albedo = buffers.albedo;
+        int p = i * nX + j;
+        boolean hit = depth[p] != Float.POSITIVE_INFINITY;
+        double r = 0, g = 0, b = 0, total = 0;
+        for (int dy = -2; dy <= 2; ++dy) {
+            int y = i + dy * step;
+            if (y < 0 || y >= nY) continue;
+            for (int dx = -2; dx <= 2; ++dx) {
+                int x = j + dx * step;
+                if (x < 0 || x >= nX) continue;
+                int q = y * nX + x;
+                // a pixel seeing a surface and a pixel seeing the background are never mixed
+                if (hit != (depth[q] != Float.POSITIVE_INFINITY)) continue;
+                double exponent = distance2(in, p, q) / (sigma * sigma)
+                        + distance2(albedo, p, q) / (albedoSigma * albedoSigma);
+                if (hit && q != p) exponent += distance2(normal, p, q) / (normalSigma * normalSigma)
+                        + Math.abs(depth[p] - depth[q])
+                        / (depthSigma * depth[p] * step * Math.max(Math.abs(dx), Math.abs(dy)));
+                double weight = KERNEL[dx + 2] * KERNEL[dy + 2] * Math.exp(-exponent);
+                r += weight * in[3 * q];
+                g += weight * in[3 * q + 1];
+                b += weight * in[3 * q + 2];
+                total += weight;
+            }
+        }
+        // the pixel itself always has a positive weight
+        out[3 * p] = (float) (r / total);
+        out[3 * p + 1] = (float) (g / total);
+        out[3 * p + 2] = (float) (b / total);
+    }
+
+    /**
+     * Calculates the squared distance between the three components of two pixels in a buffer.
+     *
+     * @param buffer the buffer
+     * @param p      index of the first pixel
+     * @param q      index of the second pixel
+     * @return the squared distance
+     */
+    private static double distance2(float[] buffer, int p, int q) {
+        double dx = buffer[3 * p] - buffer[3 * q], dy = buffer[3 * p + 1] - buffer[3 * q + 1],
+                dz = buffer[3 * p + 2] - buffer[3 * q + 2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
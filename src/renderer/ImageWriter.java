@@ -61,14 +61,20 @@ public class ImageWriter {
      * pixel color matrix in the directory of the project */
     public void writeToImage() {
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            ImageIO.write(image, "png", imageFile(imageName));
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
             throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
         }
     }
 
+    /** The file of an image written by an image writer
+     * @param  imageName the name of png file
+     * @return           the png file in the directory of the project */
+    static File imageFile(String imageName) {
+        return new File(FOLDER_PATH + '/' + imageName + ".png");
+    }
+
     /** The function writePixel writes a color of a specific pixel into pixel color
      * matrix
      * @param xIndex X axis index of the pixel
@@ -0,0 +1,248 @@
+package renderer;
+
+import primitives.Color;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * The ProgressiveRenderer class renders the image of a camera in successive passes, publishing the image after
+ * each pass - so a preview is available long before the image is complete.
+ * <p>
+ * The first pass traces one pixel of each block of N×N pixels and fills the whole block with its color.
+ * Each following pass halves the block size and traces only the pixels not traced yet, until every pixel is
+ * traced once - the image is then the one {@link Camera#renderImage()} renders. Further passes add a jittered
+ * sample to every pixel, refining the image toward the requested amount of samples per pixel.
+ * After each pass the image writer of the camera holds the current image, which is handed to the callback
+ * and periodically written to its file.
+ * The passes record no auxiliary buffers - the camera has none after a progressive render, and its denoiser
+ * is not applied.
+ */
+public class ProgressiveRenderer {
+    /** The camera to render */
+    private final Camera camera;
+    /** Size of a block side in pixels in the first pass */
+    private int blockSize = 8;
+    /** Amount of samples per pixel after the last pass */
+    private int samples = 1;
+    /** Amount of rendering threads, 0 for rendering on the calling thread */
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    /** Size of a tile side in pixels */
+    private int tileSize = 16;
+    /** Receives the image writer and the pass number after each pass */
+    private ObjIntConsumer<ImageWriter> callback = (imageWriter, pass) -> {};
+    /** Minimal time in milliseconds between writes of the image file, 0 for not writing it */
+    private long flushInterval = 0;
+
+    /**
+     * Constructs a progressive renderer of a camera.
+     *
+     * @param camera the camera (with its image writer)
+     */
+    public ProgressiveRenderer(Camera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Sets the size of the blocks of the first pass.
+     *
+     * @param blockSize size of a block side in pixels, 1 for tracing every pixel in the first pass
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setBlockSize(int blockSize) {
+        if (blockSize < 1) throw new IllegalArgumentException("Block size must be positive");
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * Sets the amount of samples per pixel after the last pass - a pass is added for each sample after the first.
+     *
+     * @param samples amount of samples per pixel
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setSamples(int samples) {
+        if (samples < 1) throw new IllegalArgumentException("Samples count must be positive");
+        this.samples = samples;
+        return this;
+    }
+
+    /**
+     * Sets the amount of rendering threads.
+     *
+     * @param threadsCount amount of threads, 0 for rendering on the calling thread
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setMultithreading(int threadsCount) {
+        if (threadsCount < 0) throw new IllegalArgumentException("Threads count cannot be negative");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Sets the size of the tiles handed to the rendering threads.
+     *
+     * @param tileSize size of a tile side in pixels
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the callback receiving the image after each pass. It is called on the rendering thread between
+     * the passes, so it may read the image writer but must not keep it for later.
+     *
+     * @param callback receives the image writer of the camera and the number of the pass (starting at 0)
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setCallback(ObjIntConsumer<ImageWriter> callback) {
+        this.callback = callback;
+        return this;
+    }
+
+    /**
+     * Sets the minimal time between writes of the image file. The file is written after a pass if the interval
+     * has passed since the previous write, and always after the first and the last passes.
+     *
+     * @param flushInterval the interval in milliseconds, 0 for not writing the file
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer setFlushInterval(long flushInterval) {
+        if (flushInterval < 0) throw new IllegalArgumentException("Flush interval cannot be negative");
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    /**
+     * Renders the image in passes. The scene of the ray tracer is compiled first
+     * (see {@link scene.CompiledScene}).
+     *
+     * @return the renderer instance for method chaining
+     */
+    public ProgressiveRenderer render() {
+        ImageWriter imageWriter = camera.getImageWriter();
+        int nX = imageWriter.getNx(), nY = imageWriter.getNy();
+        camera.getRayTracer().compileScene();
+        camera.startImage(false);
+        // color sums and amounts of samples per pixel
+        double[] sums = new double[3 * nX * nY];
+        int[] counts = new int[nX * nY];
+
+        ExecutorService pool = threadsCount == 0 ? null : Executors.newFixedThreadPool(threadsCount);
+        TileScheduler scheduler = new TileScheduler(pool, threadsCount, tileSize);
+        // the first pass is always written
+        long lastFlush = 0;
+        int passes = passCount();
+        try {
+            int pass = 0;
+            // coarse passes - the pixels on the grid of the step that were not traced yet
+            for (int step = blockSize; ; step /= 2) {
+                int grid = step;
+                scheduler.run(nX, nY, (fromCol, fromRow, toCol, toRow) -> {
+                    for (int i = fromRow; i < toRow; ++i)
+                        for (int j = fromCol; j < toCol; ++j)
+                            if (i % grid == 0 && j % grid == 0 && counts[i * nX + j] == 0)
+                                sample(nX, nY, j, i, 0, 0, sums, counts);
+                });
+                publish(scheduler, grid, sums, counts);
+                lastFlush = finishPass(pass, pass == passes - 1, lastFlush);
+                ++pass;
+                if (step == 1) break;
+            }
+            // refinement passes - a jittered sample for every pixel
+            for (int s = 1; s < samples; ++s) {
+                scheduler.run(nX, nY, (fromCol, fromRow, toCol, toRow) -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = fromRow; i < toRow; ++i)
+                        for (int j = fromCol; j < toCol; ++j)
+                            sample(nX, nY, j, i, random.nextDouble() - 0.5, random.nextDouble() - 0.5, sums, counts);
+                });
+                publish(scheduler, 1, sums, counts);
+                lastFlush = finishPass(pass, pass == passes - 1, lastFlush);
+                ++pass;
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        return this;
+    }
+
+    /**
+     * Calculates the amount of passes.
+     *
+     * @return the amount of coarse and refinement passes
+     */
+    private int passCount() {
+        int passes = 1;
+        for (int step = blockSize; step > 1; step /= 2) ++passes;
+        return passes + samples - 1;
+    }
+
+    /**
+     * Traces a sample of a pixel and adds it to the pixel.
+     *
+     * @param nX     horizontal resolution of the image
+     * @param nY     vertical resolution of the image
+     * @param j      the column of the pixel
+     * @param i      the row of the pixel
+     * @param dx     horizontal offset of the sample from the pixel center, in pixels
+     * @param dy     vertical offset of the sample from the pixel center, in pixels
+     * @param sums   color sums per pixel
+     * @param counts amounts of samples per pixel
+     */
+    private void sample(int nX, int nY, int j, int i, double dx, double dy, double[] sums, int[] counts) {
+        Color color = camera.tracePixel(nX, nY, j + dx, i + dy);
+        int pixel = i * nX + j;
+        sums[3 * pixel] += color.getRgb().getD1();
+        sums[3 * pixel + 1] += color.getRgb().getD2();
+        sums[3 * pixel + 2] += color.getRgb().getD3();
+        ++counts[pixel];
+    }
+
+    /**
+     * Writes the current image into the image writer of the camera - the mean color of each traced pixel,
+     * and for a pixel not traced yet the color of the traced pixel at the corner of its block.
+     *
+     * @param scheduler the tile scheduler
+     * @param grid      size of a block side in pixels
+     * @param sums      color sums per pixel
+     * @param counts    amounts of samples per pixel
+     */
+    private void publish(TileScheduler scheduler, int grid, double[] sums, int[] counts) {
+        ImageWriter imageWriter = camera.getImageWriter();
+        int nX = imageWriter.getNx();
+        scheduler.run(nX, imageWriter.getNy(), (fromCol, fromRow, toCol, toRow) -> {
+            for (int i = fromRow; i < toRow; ++i)
+                for (int j = fromCol; j < toCol; ++j) {
+                    int pixel = i * nX + j;
+                    if (counts[pixel] == 0) pixel = (i - i % grid) * nX + j - j % grid;
+                    double n = counts[pixel];
+                    imageWriter.writePixel(j, i,
+                            new Color(sums[3 * pixel] / n, sums[3 * pixel + 1] / n, sums[3 * pixel + 2] / n));
+                }
+        });
+    }
+
+    /**
+     * Hands the image of a pass to the callback and writes the image file if it is due.
+     *
+     * @param pass      the number of the pass
+     * @param last      whether it is the last pass
+     * @param lastFlush time in milliseconds of the previous write of the image file
+     * @return time in milliseconds of the last write of the image file
+     */
+    private long finishPass(int pass, boolean last, long lastFlush) {
+        ImageWriter imageWriter = camera.getImageWriter();
+        callback.accept(imageWriter, pass);
+        if (flushInterval == 0) return lastFlush;
+        long now = System.currentTimeMillis();
+        if (!last && now - lastFlush < flushInterval) return lastFlush;
+        imageWriter.writeToImage();
+        return now;
+    }
+}
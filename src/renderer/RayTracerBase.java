@@ -2,6 +2,7 @@ package renderer;
 
 import primitives.Color;
 import primitives.Ray;
+import scene.CompiledScene;
 import scene.Scene;
 
 /**
@@ -15,6 +16,11 @@ public abstract class RayTracerBase {
      */
     protected Scene scene;
 
+    /**
+     * The compiled snapshot of the scene that is rendered, null until the scene is compiled.
+     */
+    protected volatile CompiledScene compiled = null;
+
     /**
      * Constructs a RayTracerBase with the specified scene.
      *
@@ -24,6 +30,31 @@ public abstract class RayTracerBase {
         this.scene = scene;
     }
 
+    /**
+     * Compiles the scene into the snapshot that is rendered. Rendering compiles the scene when it starts,
+     * so changes of the scene take effect in the next rendering.
+     *
+     * @return the compiled snapshot
+     */
+    public CompiledScene compileScene() {
+        CompiledScene snapshot = scene.compile();
+        compiled = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Gets the compiled snapshot of the scene, and compiles the scene if it was not compiled yet.
+     *
+     * @return the compiled snapshot
+     */
+    protected CompiledScene getCompiledScene() {
+        CompiledScene snapshot = compiled;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            return compiled != null ? compiled : compileScene();
+        }
+    }
+
     /**
      * Abstract method to be implemented by concrete subclasses for tracing a ray through the scene
      * and determining the color of the corresponding pixel.
@@ -32,4 +63,17 @@ public abstract class RayTracerBase {
      * @return The Color representing the calculated color of the pixel.
      */
     abstract public Color traceRay(Ray ray,boolean useSoftShadows);
+
+    /**
+     * Traces a ray through the scene and records the surface of its primary hit. The default implementation
+     * records nothing.
+     *
+     * @param ray            The ray to be traced through the scene.
+     * @param useSoftShadows Whether soft shadows are sampled.
+     * @param surface        Receives the surface of the primary hit.
+     * @return The Color representing the calculated color of the pixel.
+     */
+    public Color traceRay(Ray ray, boolean useSoftShadows, SurfaceRecord surface) {
+        return traceRay(ray, useSoftShadows);
+    }
 }
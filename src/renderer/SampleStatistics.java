@@ -0,0 +1,69 @@
+package renderer;
+
+import primitives.Color;
+import primitives.Double3;
+
+/**
+ * The SampleStatistics class is a running (Welford) estimate of the mean color of random samples and of the
+ * standard error of that mean. Samples are taken in batches of {@link #BATCH}, and the estimate is checked for
+ * convergence between batches - the same rule for the samples of a pixel and for the cone samples of a rough
+ * material.
+ */
+final class SampleStatistics {
+    /** Amount of samples taken between convergence checks, and the minimal amount of a converged estimate */
+    static final int BATCH = 4;
+
+    /** The amount of samples */
+    private int count = 0;
+    /** The mean of the samples per color component */
+    private double mean1 = 0, mean2 = 0, mean3 = 0;
+    /** The sum of squared deviations from the mean per color component */
+    private double deviations1 = 0, deviations2 = 0, deviations3 = 0;
+
+    /**
+     * Adds a sample.
+     *
+     * @param rgb the color components of the sample
+     */
+    void add(Double3 rgb) {
+        ++count;
+        double delta1 = rgb.getD1() - mean1, delta2 = rgb.getD2() - mean2, delta3 = rgb.getD3() - mean3;
+        mean1 += delta1 / count;
+        mean2 += delta2 / count;
+        mean3 += delta3 / count;
+        deviations1 += delta1 * (rgb.getD1() - mean1);
+        deviations2 += delta2 * (rgb.getD2() - mean2);
+        deviations3 += delta3 * (rgb.getD3() - mean3);
+    }
+
+    /**
+     * Gets the amount of samples.
+     *
+     * @return the amount of samples
+     */
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean color of the samples.
+     *
+     * @return the mean color, black with no samples
+     */
+    Color getMean() {
+        return new Color(mean1, mean2, mean3);
+    }
+
+    /**
+     * Checks whether the mean converged - the standard error of each color component of the mean is within
+     * the tolerance. An estimate of less than a batch of samples never converged.
+     *
+     * @param tolerance the standard error (in color units)
+     * @return true if the mean converged
+     */
+    boolean converged(double tolerance) {
+        if (count < BATCH) return false;
+        double deviations = Math.max(deviations1, Math.max(deviations2, deviations3));
+        return deviations / (count - 1) / count < tolerance * tolerance;
+    }
+}
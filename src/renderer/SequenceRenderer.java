@@ -0,0 +1,214 @@
+package renderer;
+
+import geometries.BvhBuilder;
+import geometries.Geometries;
+import geometries.SahBvhBuilder;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * The SequenceRenderer class renders an animation - a sequence of frames of one scene along a camera path,
+ * with a timeline of scene changes.
+ * <p>
+ * Work is reused between frames: the acceleration structure of the scene is built once and then refitted after
+ * each change (and rebuilt only when it became too loose), the compiled scene with its material table is kept
+ * for all the frames until the scene changes, and one worker pool renders all the frames.
+ * Writing the image file of a frame runs on a separate thread while the next frame is rendered.
+ */
+public class SequenceRenderer {
+    /** The animated scene */
+    private final Scene scene;
+    /** Builder of the camera of the current frame */
+    private Camera.Builder cameraBuilder;
+    /** Camera path step - moves the camera builder from a frame to the next one */
+    private Consumer<Camera.Builder> cameraStep = builder -> {};
+    /** Scene changes by the frame before which they are applied */
+    private final Map<Integer, List<Consumer<Scene>>> timeline = new TreeMap<>();
+    /** Amount of frames */
+    private int frameCount = 1;
+    /** Image file name prefix - the frame number is appended to it */
+    private String imageName = "frame";
+    /** Horizontal resolution of the frames */
+    private int nX = 500;
+    /** Vertical resolution of the frames */
+    private int nY = 500;
+    /** Amount of rendering threads, 0 for rendering on the calling thread */
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    /** Size of a tile side in pixels */
+    private int tileSize = 16;
+    /** Builder of the acceleration structure of the scene */
+    private BvhBuilder bvhBuilder = new SahBvhBuilder();
+    /** Maximal inflation of a refitted acceleration structure before it is rebuilt */
+    private double maxInflation = 2;
+
+    /**
+     * Constructs a sequence renderer of a scene.
+     *
+     * @param scene the animated scene (the scene of the ray tracer of the camera)
+     */
+    public SequenceRenderer(Scene scene) {
+        this.scene = scene;
+    }
+
+    /**
+     * Sets the camera path - the camera of the first frame and a step moving it to the next frame,
+     * e.g. {@code builder -> builder.rotate(10)} for a turntable.
+     * The image writer of the builder is replaced for every frame.
+     *
+     * @param cameraBuilder builder of the camera of the first frame
+     * @param step          camera path step, applied to the builder after each frame
+     * @return the renderer instance for method chaining
+     */
+    public SequenceRenderer setCameraPath(Camera.Builder cameraBuilder, Consumer<Camera.Builder> step) {
+        this.cameraBuilder = cameraBuilder;
+        this.cameraStep = step;
+        return this;
+    }
+
+    /**
+     * Adds a change of the scene to the timeline.
+     *
+     * @param frame  the frame before which the change is applied (0 for the first frame)
+     * @param change the change
+     * @return the renderer instance for method chaining
+     */
+    public SequenceRenderer addChange(int frame, Consumer<Scene> change) {
+        if (frame < 0) throw new IllegalArgumentException("Frame number cannot be negative");
+        timeline.computeIfAbsent(frame, f -> new ArrayList<>()).add(change);
+        return this;
+    }
+
+    /**
+     * Sets the frames to render.
+     *
+     * @param imageName  image file name prefix - a frame file name is the prefix followed by the frame number
+     * @param frameCount amount of frames
+     * @param nX         horizontal resolution of the frames
+     * @param nY         vertical resolution of the frames
+     * @return the renderer instance for method chaining
+     */
+    public SequenceRenderer setFrames(String imageName, int frameCount, int nX, int nY) {
+        if (frameCount < 1) throw new IllegalArgumentException("There must be at least one frame");
+        this.imageName = imageName;
+        this.frameCount = frameCount;
+        this.nX = nX;
+        this.nY = nY;
+        return this;
+    }
+
+    /**
+     * Sets the amount of rendering threads.
+     *
+     * @param threadsCount amount of threads, 0 for rendering on the calling thread
+     * @return the renderer instance for method chaining
+     */
+    public SequenceRenderer setMultithreading(int threadsCount) {
+        if (threadsCount < 0) throw new IllegalArgumentException("Threads count cannot be negative");
+        this.threadsCount = threadsCount;
+        return this;
+    }
+
+    /**
+     * Sets the size of the tiles handed to the rendering threads.
+     *
+     * @param tileSize size of a tile side in pixels
+     * @return the renderer instance for method chaining
+     */
+    public SequenceRenderer setTileSize(int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets how the acceleration structure of the scene is maintained between frames.
+     *
+     * @param bvhBuilder   builder of the acceleration structure (e.g. a fast {@link geometries.LbvhBuilder})
+     * @param maxInflation maximal SAH cost inflation of a refitted structure before it is rebuilt
+     * @return the renderer instance for method chaining
+     * @see Geometries#refitBvh(BvhBuilder, double)
+     */
+    public SequenceRenderer setAcceleration(BvhBuilder bvhBuilder, double maxInflation) {
+        if (maxInflation < 1) throw new IllegalArgumentException("Inflation threshold must be at least 1");
+        this.bvhBuilder = bvhBuilder;
+        this.maxInflation = maxInflation;
+        return this;
+    }
+
+    /**
+     * Renders all the frames and writes their image files.
+     *
+     * @return the renderer instance for method chaining
+     * @throws java.util.MissingResourceException if the camera path is incomplete
+     * @throws IllegalArgumentException           if the camera samples adaptively or has a time budget
+     */
+    public SequenceRenderer render() {
+        if (cameraBuilder == null) throw new IllegalStateException("Camera path is not set");
+        ExecutorService pool = threadsCount == 0 ? null : Executors.newFixedThreadPool(threadsCount);
+        ExecutorService encoder = Executors.newSingleThreadExecutor();
+        TileScheduler scheduler = new TileScheduler(pool, threadsCount, tileSize);
+        Future<?> encoding = null;
+        try {
+            scene.geometries.buildBvh(bvhBuilder);
+            for (int frame = 0; frame < frameCount; ++frame) {
+                if (frame > 0) cameraStep.accept(cameraBuilder);
+                List<Consumer<Scene>> changes = timeline.get(frame);
+                if (changes != null) {
+                    for (Consumer<Scene> change : changes) change.accept(scene);
+                    updateAcceleration();
+                }
+
+                Camera camera = cameraBuilder
+                        .setImageWriter(new ImageWriter(String.format("%s%04d", imageName, frame), nX, nY))
+                        .build();
+                // the compiled scene is kept while the scene does not change
+                if (frame == 0 || changes != null) camera.getRayTracer().compileScene();
+                scheduler.render(camera);
+
+                // the previous frame file is written while this frame is rendered
+                waitFor(encoding);
+                encoding = encoder.submit(camera::writeToImage);
+            }
+            waitFor(encoding);
+        } finally {
+            if (pool != null) pool.shutdown();
+            encoder.shutdown();
+        }
+        return this;
+    }
+
+    /**
+     * Refits the acceleration structure of the scene after changes, or builds it (and the nested ones)
+     * with the builder of the sequence if the changes dropped it.
+     */
+    private void updateAcceleration() {
+        scene.geometries.refitBvh(bvhBuilder, maxInflation);
+    }
+
+    /**
+     * Waits for a frame file to be written.
+     *
+     * @param encoding the writing task, or null
+     */
+    private static void waitFor(Future<?> encoding) {
+        if (encoding == null) return;
+        try {
+            encoding.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Writing a frame was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Writing a frame failed", e.getCause());
+        }
+    }
+}
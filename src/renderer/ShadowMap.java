@@ -0,0 +1,186 @@
+package renderer;
+
+import geometries.BoundingBox;
+import geometries.Geometries;
+import geometries.Instance;
+import geometries.Intersectable;
+import geometries.Intersectable.GeoPoint;
+import lighting.DirectionalLight;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ShadowMap is a helper class answering the visibility of a {@link DirectionalLight} by a depth buffer lookup.
+ * <p>
+ * The depth buffer is rendered once per compiled scene along the light direction over the bounds of the
+ * bounded geometries - for each texel the depths of its first occluder and of its first opaque occluder.
+ * A point is lit if it is not behind the first occluders around its texel, and it is in full shadow if it is
+ * behind the first opaque occluders around its texel. Near depth discontinuities, behind transparent
+ * occluders, outside the map, and where an unbounded geometry lies between the map and the light,
+ * the lookup is undecided and the shadow ray must be traced.
+ * Occluders smaller than a texel may be missed, as in any shadow map.
+ * Scenes with moving geometries have no shadow maps, as one depth buffer cannot hold all the times of the
+ * shadow rays.
+ */
+class ShadowMap {
+    /** Depth range of a texel neighborhood, in texels, above which it is a depth discontinuity */
+    private static final double DISCONTINUITY = 4;
+    /** Depth tolerance, in texels */
+    private static final double TOLERANCE = 0.25;
+
+    /** The light direction */
+    private final Vector direction;
+    /** Horizontal axis of the map */
+    private final Vector u;
+    /** Vertical axis of the map */
+    private final Vector v;
+    /** The corner of the map - the origin of depths */
+    private final Point origin;
+    /** Amount of texels along a side */
+    private final int resolution;
+    /** Size of a texel side */
+    private final double texel;
+    /** Per texel - depth of the first occluder, infinity for none, NaN where the map is not valid */
+    private final double[] nearest;
+    /** Per texel - depth of the first opaque occluder, infinity for none */
+    private final double[] opaque;
+
+    /**
+     * Renders the shadow map of a directional light.
+     *
+     * @param scene      the compiled scene
+     * @param light      the light
+     * @param resolution amount of texels along a side
+     * @param bounds     bounds of the bounded geometries of the scene
+     */
+    ShadowMap(CompiledScene scene, DirectionalLight light, int resolution, BoundingBox bounds) {
+        this.resolution = resolution;
+        direction = light.getDirection();
+        u = Math.abs(direction.getX()) < 0.9
+                ? direction.crossProduct(new Vector(1, 0, 0)).normalize()
+                : direction.crossProduct(new Vector(0, 1, 0)).normalize();
+        v = direction.crossProduct(u).normalize();
+
+        Point min = bounds.getMin(), max = bounds.getMax();
+        Point center = new Point((min.getX() + max.getX()) / 2, (min.getY() + max.getY()) / 2,
+                (min.getZ() + max.getZ()) / 2);
+        double radius = Math.max(min.distance(max) / 2, 1);
+        texel = 2 * radius / resolution;
+        origin = center.add(direction.scale(-radius)).add(u.scale(-radius)).add(v.scale(-radius));
+
+        nearest = new double[resolution * resolution];
+        opaque = new double[resolution * resolution];
+        Intersectable geometries = scene.getGeometries();
+        Vector towardLight = direction.scale(-1);
+        IntStream.range(0, resolution).parallel().forEach(row -> {
+            for (int col = 0; col < resolution; ++col) {
+                int i = row * resolution + col;
+                Point head = origin.add(u.scale((col + 0.5) * texel)).add(v.scale((row + 0.5) * texel));
+                // an unbounded geometry between the map and the light invalidates the texel
+                if (geometries.findClosestGeoIntersection(new Ray(head, towardLight)) != null) {
+                    nearest[i] = Double.NaN;
+                    continue;
+                }
+                double first = Double.POSITIVE_INFINITY, firstOpaque = Double.POSITIVE_INFINITY;
+                List<GeoPoint> intersections = geometries.findGeoIntersections(new Ray(head, direction));
+                if (intersections != null)
+                    for (GeoPoint gp : intersections) {
+                        double depth = depth(gp.point);
+                        first = Math.min(first, depth);
+                        if (scene.getMaterial(gp.geometry).kT.equals(Double3.ZERO))
+                            firstOpaque = Math.min(firstOpaque, depth);
+                    }
+                nearest[i] = first;
+                opaque[i] = firstOpaque;
+            }
+        });
+    }
+
+    /**
+     * Calculates the depth of a point along the light direction.
+     *
+     * @param point the point
+     * @return the depth from the map
+     */
+    private double depth(Point point) {
+        return (point.getX() - origin.getX()) * direction.getX()
+                + (point.getY() - origin.getY()) * direction.getY()
+                + (point.getZ() - origin.getZ()) * direction.getZ();
+    }
+
+    /**
+     * Looks up the visibility of the light from a point.
+     *
+     * @param point the point
+     * @return {@link Double3#ONE} if the point is lit, {@link Double3#ZERO} if it is in full shadow,
+     * or null if the shadow ray must be traced
+     */
+    Double3 lookup(Point point) {
+        double dx = point.getX() - origin.getX(), dy = point.getY() - origin.getY(), dz = point.getZ() - origin.getZ();
+        int col = (int) Math.floor((dx * u.getX() + dy * u.getY() + dz * u.getZ()) / texel);
+        int row = (int) Math.floor((dx * v.getX() + dy * v.getY() + dz * v.getZ()) / texel);
+        if (col < 1 || row < 1 || col >= resolution - 1 || row >= resolution - 1) return null;
+
+        double minNearest = Double.POSITIVE_INFINITY, maxNearest = Double.NEGATIVE_INFINITY;
+        double maxOpaque = Double.NEGATIVE_INFINITY;
+        for (int r = row - 1; r <= row + 1; ++r)
+            for (int c = col - 1; c <= col + 1; ++c) {
+                int i = r * resolution + c;
+                double first = nearest[i];
+                if (Double.isNaN(first)) return null;
+                minNearest = Math.min(minNearest, first);
+                maxNearest = Math.max(maxNearest, first);
+                maxOpaque = Math.max(maxOpaque, opaque[i]);
+            }
+        // an edge of an occluder - its shadow boundary is traced
+        if (maxNearest - minNearest > DISCONTINUITY * texel) return null;
+
+        double depth = dx * direction.getX() + dy * direction.getY() + dz * direction.getZ();
+        double tolerance = TOLERANCE * texel;
+        // lit only in front of all the first occluders around, a point between them is traced
+        if (depth <= minNearest + tolerance) return Double3.ONE;
+        if (depth > maxOpaque + tolerance) return Double3.ZERO;
+        return null;
+    }
+
+    /**
+     * Renders the shadow maps of the directional lights of a compiled scene.
+     *
+     * @param scene      the compiled scene
+     * @param resolution amount of texels along a side
+     * @return the shadow maps by light index, null for the other lights
+     */
+    static ShadowMap[] render(CompiledScene scene, int resolution) {
+        ShadowMap[] maps = new ShadowMap[scene.getLightCount()];
+        BoundingBox bounds = BoundingBox.EMPTY;
+        for (Intersectable child : scene.getGeometries().getGeometries()) {
+            BoundingBox box = child.getBoundingBox();
+            if (box != null) bounds = bounds.union(box);
+        }
+        if (bounds.isEmpty() || moves(scene.getGeometries())) return maps;
+        for (int i = 0; i < maps.length; ++i)
+            if (scene.getLight(i) instanceof DirectionalLight light)
+                maps[i] = new ShadowMap(scene, light, resolution, bounds);
+        return maps;
+    }
+
+    /**
+     * Checks whether a geometry, or any geometry below it, moves over the motion interval.
+     *
+     * @param geometry the geometry
+     * @return true if a moving instance is found
+     */
+    private static boolean moves(Intersectable geometry) {
+        if (geometry instanceof Instance instance) return instance.isMoving() || moves(instance.getPrototype());
+        if (geometry instanceof Geometries geometries)
+            for (Intersectable child : geometries.getGeometries())
+                if (moves(child)) return true;
+        return false;
+    }
+}
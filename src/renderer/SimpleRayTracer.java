@@ -1,16 +1,20 @@
 package renderer;
 
 import geometries.FlatGeometry;
+import geometries.Geometry;
 import geometries.Intersectable.GeoPoint;
 import geometries.Triangle;
 import lighting.DirectionalLight;
 import lighting.LightSource;
 import lighting.PointLight;
 import primitives.*;
+import scene.CompiledScene;
 import scene.Scene;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static java.lang.Math.abs;
 import static java.lang.Math.pow;
@@ -20,12 +24,149 @@ import static primitives.Util.isZero;
 /**
  * The SimpleRayTracer class extends RayTracerBase and represents a basic ray tracer in a 3D graphics rendering system.
  * It provides a simple implementation for tracing rays through a scene and determining the color of the corresponding pixels.
+ * Rays are traced through the compiled snapshot of the scene (see {@link CompiledScene}).
+ * The ray tree of a pixel is evaluated recursively, or by a loop over a work stack (see {@link #setIterative}) -
+ * except for the sub-trees of glossy nodes, whose adaptive cone sampling is evaluated recursively in both.
  */
 public class SimpleRayTracer extends RayTracerBase {
-    private static final int MAX_CALC_COLOR_LEVEL = 10;
-    private static final double MIN_CALC_COLOR_K = 0.001;
     private static final Double3 INITIAL_K = Double3.ONE;
+    /** The policy cutting the ray tree of a pixel */
+    private TerminationPolicy termination = new TerminationPolicy();
+    /** Maximal amount of rays sampled through the cone of a rough material */
+    private int glossySamples = 64;
+    /** Standard error of the mean sampled color (in color units) below which the cone sampling stops */
+    private double glossyTolerance = 1;
+    /** Whether the ray tree is evaluated by a loop over a work stack instead of recursively */
+    private boolean iterative = false;
+    /** Per rendering thread - the work stack of the iterative evaluation */
+    private final ThreadLocal<WorkStack> workStack = ThreadLocal.withInitial(WorkStack::new);
+    /** Per rendering thread - the lights selected for the shaded point */
+    private final ThreadLocal<LightSelection> lightSelection = ThreadLocal.withInitial(LightSelection::new);
     boolean useTheSoftShadows = true;
+    /** Minimal intensity of a light at a shaded point, dimmer lights are culled (0 for no culling) */
+    private double lightCutoff = 0;
+    /** Amount of lights sampled per shaded point among the lights that were not culled (0 for all of them) */
+    private int lightSamples = 0;
+    /** Texels along a side of the shadow maps of directional lights, 0 for tracing all their shadow rays */
+    private int shadowMapResolution = 0;
+    /** The shadow maps of the directional lights of the last compiled scene */
+    private volatile ShadowMaps shadowMaps = null;
+    /** Per rendering thread - the last opaque occluder of each light, tested before the scene is searched */
+    private final ThreadLocal<OccluderCache> occluderCache = new ThreadLocal<>();
+    /** Number of the compilations of the scene, the occluder caches of earlier compilations are dropped */
+    private volatile int compilation = 0;
+
+    /**
+     * The last opaque occluders of the lights of a compiled scene, found by one rendering thread.
+     * Neighboring pixels usually have the same shadow blocker, and a thread renders neighboring pixels.
+     * The cache does not keep the compiled scene itself, so a thread does not hold a scene that is no longer
+     * rendered.
+     *
+     * @param compilation number of the compilation of the scene the occluders belong to
+     * @param occluders   the last opaque occluder of each light, by light index
+     */
+    private record OccluderCache(int compilation, Geometry[] occluders) {
+    }
+
+    /**
+     * The shadow maps of the directional lights of a compiled scene.
+     *
+     * @param scene the compiled scene the maps are rendered for
+     * @param maps  the shadow maps by light index, null for lights with no map
+     */
+    private record ShadowMaps(CompiledScene scene, ShadowMap[] maps) {
+    }
+
+    /**
+     * The pending secondary rays of the iterative ray tree evaluation. A record holds the ray and the recursion
+     * level, and as primitives the coefficient of the effect, the accumulated attenuation of the branch it
+     * leaves and the weight of that branch in the pixel color.
+     */
+    private static final class WorkStack {
+        /** Doubles per record - coefficient, attenuation and weight triples */
+        private static final int STRIDE = 9;
+        /** The rays */
+        private Ray[] rays = new Ray[32];
+        /** The recursion levels of the branches the rays leave */
+        private int[] levels = new int[32];
+        /** The coefficients, attenuations and weights */
+        private double[] values = new double[32 * STRIDE];
+        /** The amount of pending records */
+        private int size = 0;
+
+        /**
+         * Pushes a record.
+         *
+         * @param ray         the ray
+         * @param level       the recursion level of the branch the ray leaves
+         * @param coefficient the coefficient of the effect (reflection or refraction)
+         * @param k           the accumulated attenuation of the branch the ray leaves
+         * @param w1          the weight of the branch the ray leaves in the pixel color - first component
+         * @param w2          the weight of the branch the ray leaves in the pixel color - second component
+         * @param w3          the weight of the branch the ray leaves in the pixel color - third component
+         */
+        private void push(Ray ray, int level, Double3 coefficient, Double3 k, double w1, double w2, double w3) {
+            if (size == rays.length) {
+                rays = Arrays.copyOf(rays, 2 * size);
+                levels = Arrays.copyOf(levels, 2 * size);
+                values = Arrays.copyOf(values, 2 * size * STRIDE);
+            }
+            rays[size] = ray;
+            levels[size] = level;
+            int v = size++ * STRIDE;
+            values[v] = coefficient.getD1();
+            values[v + 1] = coefficient.getD2();
+            values[v + 2] = coefficient.getD3();
+            values[v + 3] = k.getD1();
+            values[v + 4] = k.getD2();
+            values[v + 5] = k.getD3();
+            values[v + 6] = w1;
+            values[v + 7] = w2;
+            values[v + 8] = w3;
+        }
+    }
+
+    /**
+     * The lights selected for a shaded point and their weights (see {@link lighting.LightTree#select}),
+     * reused for all the points shaded by a rendering thread.
+     */
+    private static final class LightSelection {
+        /** Indices of the selected lights */
+        private int[] selected = new int[0];
+        /** Weights of the selected lights, in the order of the selection */
+        private double[] weights = new double[0];
+
+        /**
+         * Grows the arrays to hold a selection among the lights of a scene.
+         *
+         * @param lightCount the amount of lights in the scene
+         * @return the selection itself
+         */
+        private LightSelection fit(int lightCount) {
+            if (selected.length < lightCount) {
+                selected = new int[lightCount];
+                weights = new double[lightCount];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * The amount of secondary rays a pixel may still trace under the ray budget of the termination policy.
+     */
+    private static final class RayBudget {
+        /** The amount of rays left */
+        private int remaining;
+
+        /**
+         * Constructs the budget of a pixel.
+         *
+         * @param rays the amount of secondary rays of the pixel
+         */
+        private RayBudget(int rays) {
+            remaining = rays;
+        }
+    }
 
     /**
      * Constructs a SimpleRayTracer with the specified scene.
@@ -36,6 +177,110 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Sets the minimal intensity of a light at a shaded point. Dimmer lights are neither shaded with nor traced
+     * shadow rays to, e.g. far street lights with quadratic attenuation.
+     *
+     * @param lightCutoff minimal intensity (in color units), 0 for no culling
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setLightCutoff(double lightCutoff) {
+        if (lightCutoff < 0) throw new IllegalArgumentException("Light cutoff cannot be negative");
+        this.lightCutoff = lightCutoff;
+        return this;
+    }
+
+    /**
+     * Sets the amount of lights sampled per shaded point. The lights are sampled with a probability
+     * proportional to their intensity at the point, so the image converges to the same result with some noise.
+     *
+     * @param lightSamples amount of sampled lights, 0 for shading with all the lights
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setLightSamples(int lightSamples) {
+        if (lightSamples < 0) throw new IllegalArgumentException("Light samples count cannot be negative");
+        this.lightSamples = lightSamples;
+        return this;
+    }
+
+    /**
+     * Sets the policy cutting the ray tree of a pixel - recursion level, minimal attenuation,
+     * Russian roulette and a per-pixel ray budget.
+     *
+     * @param termination the termination policy
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setTerminationPolicy(TerminationPolicy termination) {
+        if (termination == null) throw new IllegalArgumentException("Termination policy cannot be null");
+        this.termination = termination;
+        return this;
+    }
+
+    /**
+     * Sets the sampling of the reflected and transmitted rays of rough materials (see
+     * {@link Material#setRoughness(double)}). Rays are sampled through a cone in batches until the standard
+     * error of their mean color is within the tolerance, up to the maximal amount of samples. The maximal amount
+     * is scaled down by the attenuation of the branch, so weak branches take few samples.
+     *
+     * @param maxSamples maximal amount of samples of a cone, 1 for tracing only the ideal ray
+     * @param tolerance  standard error of the mean color (in color units) below which the sampling stops,
+     *                   0 for always taking the maximal amount of samples
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setGlossySampling(int maxSamples, double tolerance) {
+        if (maxSamples < 1) throw new IllegalArgumentException("Glossy samples count must be positive");
+        if (tolerance < 0) throw new IllegalArgumentException("Glossy tolerance cannot be negative");
+        this.glossySamples = maxSamples;
+        this.glossyTolerance = tolerance;
+        return this;
+    }
+
+    /**
+     * Sets whether the ray tree of a pixel is evaluated by a loop over a per-thread work stack of pending
+     * reflected and refracted rays instead of recursively. Both evaluations produce the same images.
+     * The sub-trees of glossy nodes (see {@link #setGlossySampling}) are still evaluated recursively, as their cone samples
+     * are taken adaptively.
+     *
+     * @param iterative true for the iterative evaluation
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setIterative(boolean iterative) {
+        this.iterative = iterative;
+        return this;
+    }
+
+    /**
+     * Sets the resolution of the shadow maps of directional lights. The maps are rendered once per compiled
+     * scene (i.e. once per frame), and shadow rays are traced only where a map lookup is undecided - near
+     * shadow edges and behind transparent occluders.
+     *
+     * @param shadowMapResolution amount of texels along a side, 0 for tracing all the shadow rays
+     * @return the ray tracer instance for method chaining
+     */
+    public SimpleRayTracer setShadowMapResolution(int shadowMapResolution) {
+        if (shadowMapResolution < 0) throw new IllegalArgumentException("Shadow map resolution cannot be negative");
+        if (shadowMapResolution != 0 && shadowMapResolution < 3)
+            throw new IllegalArgumentException("Shadow map resolution must be at least 3");
+        this.shadowMapResolution = shadowMapResolution;
+        shadowMaps = null;
+        return this;
+    }
+
+    /**
+     * Compiles the scene, and drops the occluder caches of all the rendering threads - the occluders found in
+     * an earlier snapshot may have another material in the new one.
+     *
+     * @return the compiled snapshot
+     */
+    @Override
+    public CompiledScene compileScene() {
+        synchronized (this) {
+            CompiledScene snapshot = super.compileScene();
+            ++compilation;
+            return snapshot;
+        }
+    }
+
     /**
      * Traces a ray through the scene and calculates the color of the corresponding pixel.
      *
@@ -46,10 +291,25 @@ public class SimpleRayTracer extends RayTracerBase {
     public Color traceRay(Ray ray, boolean useSoftShadows) {
         useTheSoftShadows = useSoftShadows;
         GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background
+        return closestPoint == null ? getCompiledScene().getBackground()
                 : calcColor(closestPoint, ray);
     }
 
+    @Override
+    public Color traceRay(Ray ray, boolean useSoftShadows, SurfaceRecord surface) {
+        useTheSoftShadows = useSoftShadows;
+        GeoPoint closestPoint = findClosestIntersection(ray);
+        if (closestPoint == null) return getCompiledScene().getBackground();
+        resolveMaterial(closestPoint);
+        Vector normal = closestPoint.getNormal();
+        surface.normal = alignZero(normal.dotProduct(ray.getDirection())) > 0 ? normal.scale(-1) : normal;
+        surface.depth = ray.getHead().distance(closestPoint.point);
+        surface.albedo = closestPoint.material.kD;
+        surface.emission = getCompiledScene().getEmission(closestPoint.geometry);
+        surface.geometry = closestPoint.geometry;
+        return calcColor(closestPoint, ray);
+    }
+
     /**
      * Calculates the color of a pixel at the specified point using ambient light.
      *
@@ -58,15 +318,131 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return The Color representing the calculated color of the pixel.
      */
     private Color calcColor(GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K)
-                .add(scene.ambientLight.getIntensity());
+        int rayBudget = termination.getRayBudget();
+        if (iterative) return calcColorIterative(geoPoint, ray, rayBudget == 0 ? null : new RayBudget(rayBudget))
+                .add(getCompiledScene().getAmbientIntensity());
+        return calcColor(geoPoint, ray, termination.getMaxLevel(), INITIAL_K,
+                rayBudget == 0 ? null : new RayBudget(rayBudget))
+                .add(getCompiledScene().getAmbientIntensity());
     }
 
     private Color calcColor(GeoPoint intersection, Ray ray,
-                            int level, Double3 k) {
+                            int level, Double3 k, RayBudget budget) {
+        resolveMaterial(intersection);
         Color color = calcLocalEffects(intersection, ray, k);
         return 1 == level ? color
-                : color.add(calcGlobalEffects(intersection, ray, level, k));
+                : color.add(calcGlobalEffects(intersection, ray, level, k, budget));
+    }
+
+    /**
+     * Resolves the material of an intersection - the hit record carries it, so it is resolved once
+     * for all the effects.
+     *
+     * @param intersection the intersection
+     */
+    private void resolveMaterial(GeoPoint intersection) {
+        if (intersection.material == null)
+            intersection.material = getCompiledScene().getMaterial(intersection.geometry);
+    }
+
+    /**
+     * Calculates the color of the ray tree of a pixel by a loop over a work stack. Each node of the tree adds
+     * its local effects scaled by its weight, and pushes its reflected and refracted rays - the same terms
+     * the recursive evaluation adds, in the same order. The attenuations and weights of the pending rays are read
+     * from the stack in place, so only nodes that are traced allocate.
+     * The cones of rough materials are sampled adaptively, which needs the colors of their samples at once -
+     * a glossy node evaluates its sub-tree recursively, bounded by the maximal recursion level.
+     *
+     * @param intersection the closest intersection of the pixel ray
+     * @param ray          the pixel ray
+     * @param budget       the secondary rays left to the pixel, null for no limit
+     * @return the color without the ambient light
+     */
+    private Color calcColorIterative(GeoPoint intersection, Ray ray, RayBudget budget) {
+        CompiledScene compiledScene = getCompiledScene();
+        WorkStack stack = workStack.get();
+        int bottom = stack.size;
+        double minK = termination.getMinK(), rouletteK = termination.getRoulette();
+
+        resolveMaterial(intersection);
+        Double3 rgb = calcLocalEffects(intersection, ray, INITIAL_K).getRgb();
+        double r = rgb.getD1(), g = rgb.getD2(), b = rgb.getD3();
+        if (termination.getMaxLevel() != 1) {
+            if (isGlossy(intersection.material)) {
+                rgb = calcGlobalEffects(intersection, ray, termination.getMaxLevel(), INITIAL_K, budget).getRgb();
+                r += rgb.getD1();
+                g += rgb.getD2();
+                b += rgb.getD3();
+            } else push(stack, intersection, ray, termination.getMaxLevel(), INITIAL_K, 1, 1, 1);
+        }
+
+        while (stack.size > bottom) {
+            int top = --stack.size;
+            Ray secondary = stack.rays[top];
+            stack.rays[top] = null;
+            int level = stack.levels[top];
+            int v = top * WorkStack.STRIDE;
+            double[] values = stack.values;
+            double k1 = values[v + 3], k2 = values[v + 4], k3 = values[v + 5];
+            double kk1 = values[v] * k1, kk2 = values[v + 1] * k2, kk3 = values[v + 2] * k3;
+            if (kk1 < minK && kk2 < minK && kk3 < minK) continue;
+
+            double survival = 1;
+            if (kk1 < rouletteK && kk2 < rouletteK && kk3 < rouletteK) {
+                survival = Math.max(kk1, Math.max(kk2, kk3)) / rouletteK;
+                if (ThreadLocalRandom.current().nextDouble() >= survival) continue;
+            }
+            if (budget != null && budget.remaining-- <= 0) continue;
+
+            // the weight of the new node
+            double w1 = values[v + 6] * k1 / survival, w2 = values[v + 7] * k2 / survival,
+                    w3 = values[v + 8] * k3 / survival;
+            GeoPoint gp = findClosestIntersection(secondary);
+            if (gp == null) {
+                rgb = compiledScene.getBackground().getRgb();
+                r += rgb.getD1() * w1;
+                g += rgb.getD2() * w2;
+                b += rgb.getD3() * w3;
+                continue;
+            }
+            resolveMaterial(gp);
+            Double3 kkx = new Double3(kk1, kk2, kk3);
+            rgb = calcLocalEffects(gp, secondary, kkx).getRgb();
+            r += rgb.getD1() * w1;
+            g += rgb.getD2() * w2;
+            b += rgb.getD3() * w3;
+            if (level - 1 == 1) continue;
+            if (isGlossy(gp.material)) {
+                // the cones of a rough material are sampled adaptively, which needs their colors at once
+                rgb = calcGlobalEffects(gp, secondary, level - 1, kkx, budget).getRgb();
+                r += rgb.getD1() * w1;
+                g += rgb.getD2() * w2;
+                b += rgb.getD3() * w3;
+            } else push(stack, gp, secondary, level - 1, kkx, w1, w2, w3);
+        }
+        return new Color(r, g, b);
+    }
+
+    /**
+     * Pushes the reflected and refracted rays of a node of the ray tree - the refracted ray is popped first,
+     * as it is evaluated first by the recursive evaluation.
+     *
+     * @param stack  the work stack
+     * @param gp     the intersection of the node
+     * @param ray    the ray of the node
+     * @param level  the recursion level of the node
+     * @param k      the accumulated attenuation of the node
+     * @param w1     the weight of the node in the pixel color - first component
+     * @param w2     the weight of the node in the pixel color - second component
+     * @param w3     the weight of the node in the pixel color - third component
+     */
+    private void push(WorkStack stack, GeoPoint gp, Ray ray, int level, Double3 k, double w1, double w2, double w3) {
+        Material material = gp.material;
+        Vector normal = gp.getNormal();
+        if (!material.kR.equals(Double3.ZERO))
+            stack.push(constructReflectedRay(gp, ray, normal), level, material.kR, k, w1, w2, w3);
+        if (!material.kT.equals(Double3.ZERO))
+            stack.push(constructRefractedRay(gp, ray, normal), level, material.kT, k, w1, w2, w3);
     }
 
     /**
@@ -77,21 +453,29 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return The Color representing the calculated color of the pixel.
      */
     private Color calcLocalEffects(GeoPoint gp, Ray ray, Double3 k) {
-        Vector n = gp.geometry.getNormal(gp.point);
+        CompiledScene compiledScene = getCompiledScene();
+        Vector n = gp.getNormal();
         Vector v = ray.getDirection();
-        Color color = gp.geometry.getEmission();
-        Material material = gp.geometry.getMaterial();
+        Color color = compiledScene.getEmission(gp.geometry);
+        Material material = gp.material;
 
         double nv = alignZero(n.dotProduct(v));
         if (isZero(nv)) return color;
 
-        for (LightSource lightSource : scene.lights) {
+        LightSelection selection = lightSelection.get().fit(compiledScene.getLightCount());
+        int[] selected = selection.selected;
+        int count = compiledScene.getLightTree().select(gp.point, lightCutoff, lightSamples, selected,
+                selection.weights);
+        for (int s = 0; s < count; ++s) {
+            LightSource lightSource = compiledScene.getLight(selected[s]);
+            double weight = selection.weights[s];
             Vector l = lightSource.getL(gp.point);
             double nl = alignZero(n.dotProduct(l));
             if (alignZero(nl * nv) > 0) {
-                Double3 ktr = transparency(gp, lightSource, l, n);
-                if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))){
+                Double3 ktr = transparency(gp, lightSource, selected[s], l, n, ray.getTime());
+                if (!(ktr.product(k).lowerThan(termination.getMinK()))){
                     Color iL = lightSource.getIntensity(gp.point).scale(ktr);
+                    if (weight != 1) iL = iL.scale(weight);
                     color = color.add(
                             iL.scale(calcDiffusive(material, nl)
                                     .add(calcSpecular(material, n, l, nl, v))));
@@ -130,30 +514,29 @@ public class SimpleRayTracer extends RayTracerBase {
     /**
      * Checks if the point is unshaded by the given light source.
      *
-             * @param gp The point in the scene.
-            * @param l  The light vector.
-            * @param n  The normal vector.
-            * @return True if the point is unshaded, false otherwise.
+     * @param gp         The point in the scene.
+     * @param light      The light source.
+     * @param lightIndex The index of the light source in the compiled scene.
+     * @param l          The light vector.
+     * @param n          The normal vector.
+     * @param time       The time of the shaded ray.
+     * @return The transparency factor between the point and the light source.
      */
-    private Double3 transparency(GeoPoint gp, LightSource light, Vector l, Vector n) {
+    private Double3 transparency(GeoPoint gp, LightSource light, int lightIndex, Vector l, Vector n, double time) {
         Vector lightDirection = l.scale(-1); // from point to light source
-
-        if(light instanceof DirectionalLight || !useTheSoftShadows) {
-            Ray ray = new Ray(gp.point, lightDirection, n);
-            List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, light.getDistance(gp.point));
-
-            if (intersections == null) return Double3.ONE;
-
-            Double3 ktr = Double3.ONE;
-
-            for (GeoPoint point : intersections) {
-                ktr = ktr.product(point.geometry.getMaterial().kT);
-                if (ktr.equals(Double3.ZERO)) break;
-            }
-
-            return ktr;
+        CompiledScene compiledScene = getCompiledScene();
+        Geometry[] occluders = occluders(compiledScene);
+        double distance = light.getDistance(gp.point);
+
+        if (light instanceof DirectionalLight && shadowMapResolution > 0) {
+            ShadowMap map = shadowMaps(compiledScene)[lightIndex];
+            Double3 visibility = map == null ? null : map.lookup(gp.point);
+            if (visibility != null) return visibility;
         }
 
+        if(light instanceof DirectionalLight || !useTheSoftShadows)
+            return transparency(new Ray(gp.point, lightDirection, n, time), distance, compiledScene, occluders, lightIndex);
+
         else{
             //create the vectors
             Vector vUp;
@@ -170,28 +553,81 @@ public class SimpleRayTracer extends RayTracerBase {
             PosLight.blackboard.setGrid(PosLight.getPosition(),vUp,vTo);
 
             for(Point i : PosLight.blackboard.grid){
+                Ray ray = new Ray(gp.point,i.subtract(gp.point),n,time);
+                ktr = ktr.add(transparency(ray, distance, compiledScene, occluders, lightIndex));
+            }
+            return ktr.scale((double) 1/(PosLight.blackboard.grid.size()));
+        }
+    }
 
-                Ray ray = new Ray(gp.point,i.subtract(gp.point),n);
-
-                List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, light.getDistance(gp.point));
-
-                if (intersections == null) ktr = ktr.add(Double3.ONE);
-
-                else {
-
-                    Double3 ktr_temp = Double3.ONE;
+    /**
+     * Calculates the transparency factor along a shadow ray. The last opaque occluder of the light is tested
+     * first, and the scene is searched only if it does not block the ray.
+     *
+     * @param ray           The shadow ray.
+     * @param distance      The distance to the light source.
+     * @param compiledScene The compiled scene.
+     * @param occluders     The last opaque occluders of the lights of this thread.
+     * @param lightIndex    The index of the light source.
+     * @return The product of the transparency factors of the geometries along the ray.
+     */
+    private Double3 transparency(Ray ray, double distance, CompiledScene compiledScene,
+                                 Geometry[] occluders, int lightIndex) {
+        Geometry occluder = occluders[lightIndex];
+        if (occluder != null && occluder.findGeoIntersections(ray, distance) != null) return Double3.ZERO;
+
+        List<GeoPoint> intersections = compiledScene.getGeometries().findGeoIntersections(ray, distance);
+        if (intersections == null) return Double3.ONE;
+
+        Double3 ktr = Double3.ONE;
+        for (GeoPoint point : intersections) {
+            Double3 kT = compiledScene.getMaterial(point.geometry).kT;
+            ktr = ktr.product(kT);
+            if (ktr.equals(Double3.ZERO)) {
+                if (kT.equals(Double3.ZERO)) occluders[lightIndex] = point.geometry;
+                break;
+            }
+        }
+        return ktr;
+    }
 
-                    for (GeoPoint point : intersections) {
-                        ktr_temp = ktr_temp.product(point.geometry.getMaterial().kT);
-                        if (ktr_temp.equals(Double3.ZERO)) break;
-                    }
-                    ktr = ktr.add(ktr_temp);
-                }
+    /**
+     * Gets the shadow maps of the directional lights of a compiled scene, and renders them if they were not
+     * rendered for it yet.
+     *
+     * @param compiledScene the compiled scene
+     * @return the shadow maps by light index
+     */
+    private ShadowMap[] shadowMaps(CompiledScene compiledScene) {
+        ShadowMaps current = shadowMaps;
+        if (current != null && current.scene() == compiledScene) return current.maps();
+        synchronized (this) {
+            current = shadowMaps;
+            if (current == null || current.scene() != compiledScene) {
+                current = new ShadowMaps(compiledScene, ShadowMap.render(compiledScene, shadowMapResolution));
+                shadowMaps = current;
             }
-            return ktr.scale((double) 1/(PosLight.blackboard.grid.size()));
+            return current.maps();
         }
     }
 
+    /**
+     * Gets the last opaque occluders of the lights found by the current thread in a compiled scene.
+     *
+     * @param compiledScene the compiled scene
+     * @return the occluders by light index
+     */
+    private Geometry[] occluders(CompiledScene compiledScene) {
+        OccluderCache cache = occluderCache.get();
+        int current = compilation;
+        if (cache == null || cache.compilation() != current
+                || cache.occluders().length != compiledScene.getLightCount()) {
+            cache = new OccluderCache(current, new Geometry[compiledScene.getLightCount()]);
+            occluderCache.set(cache);
+        }
+        return cache.occluders();
+    }
+
     /**
      * Calculates the global effects (reflection and refraction) for a pixel at the specified point.
      *
@@ -199,15 +635,84 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray   The ray corresponding to the pixel.
      * @param level The recursion level.
      * @param k     The coefficient for the effect.
+     * @param budget The secondary rays left to the pixel, null for no limit.
      * @return The Color representing the calculated global effects.
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Material material = gp.geometry.getMaterial();
-        Vector normal = gp.geometry.getNormal(gp.point);
-        return calcGlobalEffect(constructRefractedRay(gp, ray.getDirection(), normal), level,
-                material.kT, k)
-                .add(calcGlobalEffect(constructReflectedRay(gp, ray.getDirection(), normal), level,
-                        material.kR, k));
+    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k, RayBudget budget) {
+        Material material = gp.material;
+        Vector normal = gp.getNormal();
+        // a branch with no attenuation left is cut before its ray is constructed
+        Color color = Color.BLACK;
+        if (!material.kT.equals(Double3.ZERO))
+            color = isGlossy(material)
+                    ? calcGlossyEffect(gp, constructRefractedRay(gp, ray, normal), normal,
+                    material.roughness, level, material.kT, k, budget)
+                    : calcGlobalEffect(constructRefractedRay(gp, ray, normal), level,
+                    material.kT, k, budget);
+        if (!material.kR.equals(Double3.ZERO))
+            color = color.add(isGlossy(material)
+                    ? calcGlossyEffect(gp, constructReflectedRay(gp, ray, normal), normal,
+                    material.roughness, level, material.kR, k, budget)
+                    : calcGlobalEffect(constructReflectedRay(gp, ray, normal), level,
+                    material.kR, k, budget));
+        return color;
+    }
+
+    /**
+     * Checks whether the secondary rays of a material are sampled through cones.
+     *
+     * @param material the material
+     * @return true for a rough material when cone sampling is on
+     */
+    private boolean isGlossy(Material material) {
+        return material.roughness > 0 && glossySamples > 1;
+    }
+
+    /**
+     * Calculates a glossy reflection or a blurry transparency - the mean color of rays sampled through a cone
+     * around the ideal ray. The rays aim at random targets on a square blackboard perpendicular to the ideal ray
+     * at a unit distance, whose half-width is the roughness. Samples are taken in batches until the standard
+     * error of the mean color is within the tolerance (see {@link SampleStatistics}).
+     *
+     * @param gp        The intersection point.
+     * @param ideal     The ideal (mirror or straight-through) ray.
+     * @param normal    The normal vector at the intersection point.
+     * @param roughness The roughness of the material.
+     * @param level     The recursion level.
+     * @param k         The coefficient for the effect.
+     * @param kx        The coefficient for the previous effect.
+     * @param budget    The secondary rays left to the pixel, null for no limit.
+     * @return The mean color of the sampled rays.
+     */
+    private Color calcGlossyEffect(GeoPoint gp, Ray ideal, Vector normal, double roughness,
+                                   int level, Double3 k, Double3 kx, RayBudget budget) {
+        if (ideal == null) return Color.BLACK;
+        Vector direction = ideal.getDirection();
+        double side = alignZero(direction.dotProduct(normal));
+        Vector u = direction.crossProduct(abs(direction.getX()) < 0.9 ? new Vector(1, 0, 0) : new Vector(0, 1, 0))
+                .normalize();
+        Vector v = direction.crossProduct(u);
+        Double3 kkx = k.product(kx);
+        double strength = Math.min(1, Math.max(kkx.getD1(), Math.max(kkx.getD2(), kkx.getD3())));
+        int maxSamples = Math.max(SampleStatistics.BATCH, (int) Math.ceil(glossySamples * strength));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        SampleStatistics statistics = new SampleStatistics();
+        while (statistics.getCount() < maxSamples) {
+            for (int i = 0; i < SampleStatistics.BATCH && statistics.getCount() < maxSamples; ++i) {
+                double a = random.nextDouble(-roughness, roughness), b = random.nextDouble(-roughness, roughness);
+                Vector sample = new Vector(
+                        direction.getX() + a * u.getX() + b * v.getX(),
+                        direction.getY() + a * u.getY() + b * v.getY(),
+                        direction.getZ() + a * u.getZ() + b * v.getZ());
+                // a sample on the other side of the surface is replaced by the ideal ray
+                if (alignZero(sample.dotProduct(normal)) * side <= 0) sample = direction;
+                statistics.add(calcGlobalEffect(new Ray(gp.point, sample, normal, ideal.getTime()), level, k, kx, budget)
+                        .getRgb());
+            }
+            if (statistics.converged(glossyTolerance)) break;
+        }
+        return statistics.getMean();
     }
     /**
      * Calculates either reflection or refraction effect for a pixel at the specified point.
@@ -216,14 +721,27 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param level The recursion level.
      * @param k     The coefficient for the effect.
      * @param kx    The coefficient for the previous effect.
+     * @param budget The secondary rays left to the pixel, null for no limit.
      * @return The Color representing the calculated effect.
      */
-    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx) {
+    private Color calcGlobalEffect(Ray ray, int level, Double3 k, Double3 kx, RayBudget budget) {
         Double3 kkx = k.product(kx);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
+        if (kkx.lowerThan(termination.getMinK())) return Color.BLACK;
+
+        // Russian roulette - a weak branch survives with a probability proportional to its attenuation,
+        // and its contribution is divided by that probability
+        double survival = 1;
+        double rouletteK = termination.getRoulette();
+        if (kkx.lowerThan(rouletteK)) {
+            survival = Math.max(kkx.getD1(), Math.max(kkx.getD2(), kkx.getD3())) / rouletteK;
+            if (ThreadLocalRandom.current().nextDouble() >= survival) return Color.BLACK;
+        }
+        if (budget != null && budget.remaining-- <= 0) return Color.BLACK;
+
         GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx))                  //
+        Color color = (gp == null ? getCompiledScene().getBackground() : calcColor(gp, ray, level - 1, kkx, budget))                  //
                 .scale(kx);
+        return survival == 1 ? color : color.scale(1 / survival);
     }
 
     /**
@@ -233,34 +751,33 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return The closest GeoPoint of intersection, or null if no intersection is found.
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> list = scene.geometries.findGeoIntersections(ray);
-        if (list == null) return null;
-        return ray.findClosestGeoPoint(list);
+        return getCompiledScene().getGeometries().findClosestGeoIntersection(ray);
     }
 
     /**
      * Constructs a reflected ray from the given parameters.
      *
-     * @param gp       The intersection point.
-     * @param direction The direction of the incident ray.
-     * @param normal    The normal vector at the intersection point.
-     * @return The reflected ray.
+     * @param gp     The intersection point.
+     * @param ray    The incident ray.
+     * @param normal The normal vector at the intersection point.
+     * @return The reflected ray, at the time of the incident ray.
      */
-    private Ray constructReflectedRay(GeoPoint gp, Vector direction, Vector normal) {
+    private Ray constructReflectedRay(GeoPoint gp, Ray ray, Vector normal) {
+        Vector direction = ray.getDirection();
         double nv = alignZero(normal.dotProduct(direction));
         if (isZero(nv)) return null;
-        return new Ray(gp.point, direction.subtract(normal.scale(2 * nv)), normal);
+        return new Ray(gp.point, direction.subtract(normal.scale(2 * nv)), normal, ray.getTime());
     }
 
     /**
      * Constructs a refracted ray from the given parameters.
      *
-     * @param gp       The intersection point.
-     * @param direction The direction of the incident ray.
-     * @param normal    The normal vector at the intersection point.
-     * @return The refracted ray.
+     * @param gp     The intersection point.
+     * @param ray    The incident ray.
+     * @param normal The normal vector at the intersection point.
+     * @return The refracted ray, at the time of the incident ray.
      */
-    private Ray constructRefractedRay(GeoPoint gp, Vector direction, Vector normal) {
-        return new Ray(gp.point, direction, normal);
+    private Ray constructRefractedRay(GeoPoint gp, Ray ray, Vector normal) {
+        return new Ray(gp.point, ray.getDirection(), normal, ray.getTime());
     }
 }
\ No newline at end of file
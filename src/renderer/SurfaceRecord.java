@@ -0,0 +1,24 @@
+package renderer;
+
+import geometries.Geometry;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Vector;
+
+/**
+ * The SurfaceRecord class receives the surface seen by a pixel ray - its primary hit - as recorded by the ray
+ * tracer (see {@link RayTracerBase#traceRay(primitives.Ray, boolean, SurfaceRecord)}).
+ * A ray that hits nothing leaves the record as constructed.
+ */
+public class SurfaceRecord {
+    /** The normal of the surface, facing the ray, or null if the ray hits nothing */
+    public Vector normal = null;
+    /** The distance from the head of the ray to the hit, infinity if the ray hits nothing */
+    public double depth = Double.POSITIVE_INFINITY;
+    /** The diffuse attenuation factor of the material of the surface */
+    public Double3 albedo = Double3.ZERO;
+    /** The emission of the surface */
+    public Color emission = Color.BLACK;
+    /** The geometry of the surface, null if the ray hits nothing */
+    public Geometry geometry = null;
+}
@@ -0,0 +1,107 @@
+package renderer;
+
+/**
+ * The TerminationPolicy class defines when the ray tree of a pixel stops growing - when the reflected and
+ * refracted rays are no longer traced.
+ * <p>
+ * A branch is cut when the recursion reaches the maximal level or when its accumulated attenuation drops
+ * below the minimal coefficient (the default policy). With Russian roulette, a branch whose attenuation is
+ * below the roulette coefficient survives with a probability proportional to its attenuation and its
+ * contribution is divided by that probability, so the expected color is kept while most weak branches stop.
+ * A ray budget bounds the amount of secondary rays traced per pixel - rays beyond the budget are not traced.
+ */
+public class TerminationPolicy {
+    /** The maximal recursion level */
+    private int maxLevel = 10;
+    /** The minimal accumulated attenuation of a traced branch */
+    private double minK = 0.001;
+    /** Accumulated attenuation below which branches play Russian roulette, 0 for no roulette */
+    private double rouletteK = 0;
+    /** The maximal amount of secondary rays per pixel, 0 for no limit */
+    private int rayBudget = 0;
+
+    /**
+     * Sets the maximal recursion level.
+     *
+     * @param maxLevel the maximal level, 1 for no secondary rays
+     * @return the policy instance for method chaining
+     */
+    public TerminationPolicy setMaxLevel(int maxLevel) {
+        if (maxLevel < 1) throw new IllegalArgumentException("Recursion level must be positive");
+        this.maxLevel = maxLevel;
+        return this;
+    }
+
+    /**
+     * Sets the minimal accumulated attenuation of a traced branch - weaker branches are cut.
+     *
+     * @param minK the minimal attenuation, 0 for leaving the termination to the roulette
+     * @return the policy instance for method chaining
+     */
+    public TerminationPolicy setMinK(double minK) {
+        if (minK < 0) throw new IllegalArgumentException("Minimal attenuation cannot be negative");
+        this.minK = minK;
+        return this;
+    }
+
+    /**
+     * Sets the accumulated attenuation below which a branch survives with a probability proportional to its
+     * attenuation (Russian roulette).
+     *
+     * @param rouletteK the roulette attenuation, 0 for no roulette
+     * @return the policy instance for method chaining
+     */
+    public TerminationPolicy setRoulette(double rouletteK) {
+        if (rouletteK < 0 || rouletteK > 1) throw new IllegalArgumentException("Roulette attenuation must be in [0,1]");
+        this.rouletteK = rouletteK;
+        return this;
+    }
+
+    /**
+     * Sets the maximal amount of secondary (reflected and refracted) rays traced per pixel.
+     *
+     * @param rayBudget the ray budget, 0 for no limit
+     * @return the policy instance for method chaining
+     */
+    public TerminationPolicy setRayBudget(int rayBudget) {
+        if (rayBudget < 0) throw new IllegalArgumentException("Ray budget cannot be negative");
+        this.rayBudget = rayBudget;
+        return this;
+    }
+
+    /**
+     * Gets the maximal recursion level.
+     *
+     * @return the maximal level
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * Gets the minimal accumulated attenuation of a traced branch.
+     *
+     * @return the minimal attenuation
+     */
+    public double getMinK() {
+        return minK;
+    }
+
+    /**
+     * Gets the accumulated attenuation below which branches play Russian roulette.
+     *
+     * @return the roulette attenuation, 0 for no roulette
+     */
+    public double getRoulette() {
+        return rouletteK;
+    }
+
+    /**
+     * Gets the maximal amount of secondary rays traced per pixel.
+     *
+     * @return the ray budget, 0 for no limit
+     */
+    public int getRayBudget() {
+        return rayBudget;
+    }
+}
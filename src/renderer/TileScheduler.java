@@ -0,0 +1,152 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TileScheduler is a helper class rendering the images of cameras in square tiles over a worker pool.
+ * Workers take the next tile from a shared counter until no tiles are left, so the pool stays busy
+ * regardless of how expensive each tile is.
+ */
+class TileScheduler {
+    /**
+     * Work on a rectangle of pixels. Work on separate rectangles may run concurrently.
+     */
+    @FunctionalInterface
+    interface TileTask {
+        /**
+         * Works on a rectangle of pixels.
+         *
+         * @param fromCol first column of the rectangle
+         * @param fromRow first row of the rectangle
+         * @param toCol   column following the rectangle
+         * @param toRow   row following the rectangle
+         */
+        void run(int fromCol, int fromRow, int toCol, int toRow);
+    }
+
+    /** The worker pool, null for rendering on the calling thread */
+    private final ExecutorService pool;
+    /** Amount of workers submitted to the pool */
+    private final int workers;
+    /** Size of a tile side in pixels */
+    private final int tileSize;
+
+    /**
+     * Constructs a scheduler.
+     *
+     * @param pool     the worker pool, null for rendering on the calling thread
+     * @param workers  amount of workers to submit to the pool
+     * @param tileSize size of a tile side in pixels
+     */
+    TileScheduler(ExecutorService pool, int workers, int tileSize) {
+        if (tileSize < 1) throw new IllegalArgumentException("Tile size must be positive");
+        this.pool = pool;
+        this.workers = workers;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Renders the whole image of a camera and waits for it to complete.
+     *
+     * @param camera the camera
+     */
+    void render(Camera camera) {
+        render(List.of(camera));
+    }
+
+    /**
+     * Renders the whole images of several cameras in one pass and waits for them to complete.
+     * The tiles of the cameras are interleaved, so all the images progress together and the workers
+     * never wait for one image to finish before starting another.
+     * The auxiliary buffers of the cameras are recorded along, and their images are denoised once complete.
+     *
+     * @param cameras the cameras
+     * @throws IllegalArgumentException if a camera samples adaptively or has a time budget
+     */
+    void render(List<Camera> cameras) {
+        for (Camera camera : cameras)
+            if (camera.isAdaptive())
+                throw new IllegalArgumentException("Adaptive sampling and time budgets are not supported by tiled rendering");
+        int count = cameras.size();
+        for (Camera camera : cameras) camera.startImage(true);
+        int[] cols = new int[count], tileCounts = new int[count];
+        int maxTiles = 0, total = 0;
+        for (int c = 0; c < count; ++c) {
+            ImageWriter imageWriter = cameras.get(c).getImageWriter();
+            cols[c] = (imageWriter.getNx() + tileSize - 1) / tileSize;
+            tileCounts[c] = cols[c] * ((imageWriter.getNy() + tileSize - 1) / tileSize);
+            maxTiles = Math.max(maxTiles, tileCounts[c]);
+            total += tileCounts[c];
+        }
+        // round-robin order of (camera, tile) pairs
+        int[] tileCamera = new int[total], tileIndex = new int[total];
+        for (int tile = 0, k = 0; tile < maxTiles; ++tile)
+            for (int c = 0; c < count; ++c)
+                if (tile < tileCounts[c]) {
+                    tileCamera[k] = c;
+                    tileIndex[k++] = tile;
+                }
+
+        int tiles = total;
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            for (int k = next.getAndIncrement(); k < tiles; k = next.getAndIncrement()) {
+                int c = tileCamera[k];
+                Camera camera = cameras.get(c);
+                ImageWriter imageWriter = camera.getImageWriter();
+                int col = tileIndex[k] % cols[c] * tileSize, row = tileIndex[k] / cols[c] * tileSize;
+                camera.renderTile(col, row,
+                        Math.min(imageWriter.getNx(), col + tileSize), Math.min(imageWriter.getNy(), row + tileSize));
+            }
+        };
+        run(worker);
+        for (Camera camera : cameras) camera.finishImage();
+    }
+
+    /**
+     * Runs a task on all the tiles of an image and waits for it to complete.
+     *
+     * @param nX   horizontal resolution of the image
+     * @param nY   vertical resolution of the image
+     * @param task the task
+     */
+    void run(int nX, int nY, TileTask task) {
+        int cols = (nX + tileSize - 1) / tileSize;
+        int tiles = cols * ((nY + tileSize - 1) / tileSize);
+        AtomicInteger next = new AtomicInteger();
+        run(() -> {
+            for (int tile = next.getAndIncrement(); tile < tiles; tile = next.getAndIncrement()) {
+                int col = tile % cols * tileSize, row = tile / cols * tileSize;
+                task.run(col, row, Math.min(nX, col + tileSize), Math.min(nY, row + tileSize));
+            }
+        });
+    }
+
+    /**
+     * Runs a worker on all the workers of the pool (or on the calling thread) and waits for them.
+     *
+     * @param worker the worker code
+     */
+    private void run(Runnable worker) {
+        if (pool == null) {
+            worker.run();
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; ++i) futures.add(pool.submit(worker));
+        try {
+            for (Future<?> future : futures) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Rendering failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.Instance;
+import geometries.Intersectable;
+import geometries.Mesh;
+import lighting.LightSource;
+import lighting.LightTree;
+import primitives.Color;
+import primitives.Material;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CompiledScene class is an immutable render-optimized snapshot of a {@link Scene}.
+ * <p>
+ * The light sources are frozen into an array with a {@link LightTree} over them, the materials of the geometries are copied into a table where
+ * equal materials are interned into one entry, and the acceleration structure of the geometries is built or refitted.
+ * Changing the scene (its lights, background or the materials of its geometries) does not affect a snapshot -
+ * the scene must be compiled again. The geometries themselves are shared with the scene, and adding geometries
+ * (even to nested collections) drops their acceleration until the scene is compiled again.
+ */
+public final class CompiledScene {
+    /** The name of the scene */
+    private final String name;
+    /** The background color */
+    private final Color background;
+    /** The ambient light intensity */
+    private final Color ambientIntensity;
+    /** The geometries, with a built acceleration structure */
+    private final Geometries geometries;
+    /** The light sources */
+    private final LightSource[] lights;
+    /** The acceleration structure over the light sources */
+    private final LightTree lightTree;
+    /** The interned material table */
+    private final Material[] materials;
+    /** Surface index of each geometry that owns a material */
+    private final Map<Geometry, Integer> surfaces;
+    /** Per surface - index of its material in the material table */
+    private final int[] surfaceMaterials;
+    /** Per surface - its emission */
+    private final Color[] surfaceEmissions;
+
+    /**
+     * Compiles a scene.
+     *
+     * @param scene the scene
+     */
+    CompiledScene(Scene scene) {
+        name = scene.name;
+        background = scene.background;
+        ambientIntensity = scene.ambientLight.getIntensity();
+        lights = scene.lights.toArray(new LightSource[0]);
+        lightTree = new LightTree(lights);
+        geometries = scene.geometries;
+        // geometries added since the last compilation, even to nested collections, are accelerated here
+        geometries.refitBvh();
+
+        surfaces = new IdentityHashMap<>();
+        List<Geometry> owners = new ArrayList<>();
+        collect(geometries, owners);
+        Map<List<Object>, Integer> interned = new HashMap<>();
+        List<Material> table = new ArrayList<>();
+        surfaceMaterials = new int[owners.size()];
+        surfaceEmissions = new Color[owners.size()];
+        for (int i = 0; i < owners.size(); ++i) {
+            Geometry owner = owners.get(i);
+            Material m = owner.getMaterial();
+            surfaceMaterials[i] = interned.computeIfAbsent(List.of(m.kD, m.kS, m.kT, m.kR, m.nShininess, m.roughness), key -> {
+                table.add(new Material().setKd(m.kD).setKs(m.kS).setKt(m.kT).setKr(m.kR).setShininess(m.nShininess)
+                        .setRoughness(m.roughness));
+                return table.size() - 1;
+            });
+            surfaceEmissions[i] = owner.getEmission();
+        }
+        materials = table.toArray(new Material[0]);
+    }
+
+    /**
+     * Collects the geometries owning materials in a geometry tree - shared geometries of instances are
+     * collected once.
+     *
+     * @param intersectable the root of the tree
+     * @param owners        the collected geometries
+     */
+    private void collect(Intersectable intersectable, List<Geometry> owners) {
+        if (intersectable instanceof Geometries collection)
+            for (Intersectable child : collection.getGeometries()) collect(child, owners);
+        else if (intersectable instanceof Instance instance) collect(instance.getPrototype(), owners);
+        else if (intersectable instanceof Geometry geometry && !surfaces.containsKey(geometry)) {
+            surfaces.put(geometry, owners.size());
+            owners.add(geometry);
+        }
+    }
+
+    /**
+     * Finds the geometry owning the material of an intersected geometry - intersection results of meshes and
+     * instances are light-weight views of the owning geometry.
+     *
+     * @param geometry the intersected geometry
+     * @return the owning geometry
+     */
+    private static Geometry owner(Geometry geometry) {
+        while (true) {
+            if (geometry instanceof Mesh.Face face) return face.getMesh();
+            if (!(geometry instanceof Instance.Placed placed)) return geometry;
+            geometry = placed.getGeometry();
+        }
+    }
+
+    /**
+     * Gets the name of the scene.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the background color.
+     *
+     * @return the background color
+     */
+    public Color getBackground() {
+        return background;
+    }
+
+    /**
+     * Gets the ambient light intensity.
+     *
+     * @return the ambient light intensity
+     */
+    public Color getAmbientIntensity() {
+        return ambientIntensity;
+    }
+
+    /**
+     * Gets the geometries of the scene.
+     *
+     * @return the geometries, with a built acceleration structure
+     */
+    public Geometries getGeometries() {
+        return geometries;
+    }
+
+    /**
+     * Gets the amount of light sources.
+     *
+     * @return the amount of light sources
+     */
+    public int getLightCount() {
+        return lights.length;
+    }
+
+    /**
+     * Gets a light source.
+     *
+     * @param index index of the light source
+     * @return the light source
+     */
+    public LightSource getLight(int index) {
+        return lights[index];
+    }
+
+    /**
+     * Gets the acceleration structure over the light sources - light indices are the same as in
+     * {@link #getLight(int)}.
+     *
+     * @return the light tree
+     */
+    public LightTree getLightTree() {
+        return lightTree;
+    }
+
+    /**
+     * Gets the size of the interned material table.
+     *
+     * @return the amount of distinct materials
+     */
+    public int getMaterialCount() {
+        return materials.length;
+    }
+
+    /**
+     * Gets the material of a geometry as it was when the scene was compiled.
+     * A geometry added after the compilation has its current material.
+     *
+     * @param geometry the geometry (possibly an intersection result view)
+     * @return the material
+     */
+    public Material getMaterial(Geometry geometry) {
+        Integer surface = surfaces.get(owner(geometry));
+        return surface == null ? geometry.getMaterial() : materials[surfaceMaterials[surface]];
+    }
+
+    /**
+     * Gets the emission of a geometry as it was when the scene was compiled.
+     * A geometry added after the compilation has its current emission.
+     *
+     * @param geometry the geometry (possibly an intersection result view)
+     * @return the emission
+     */
+    public Color getEmission(Geometry geometry) {
+        Integer surface = surfaces.get(owner(geometry));
+        return surface == null ? geometry.getEmission() : surfaceEmissions[surface];
+    }
+}
@@ -81,4 +81,14 @@ public class Scene {
         this.lights = lights;
         return this;
     }
+
+    /**
+     * Compiles the scene into an immutable render-optimized snapshot - the light sources and the materials
+     * are frozen, and the acceleration structure of the geometries is built or refitted.
+     *
+     * @return the snapshot of the scene
+     */
+    public CompiledScene compile() {
+        return new CompiledScene(this);
+    }
 }
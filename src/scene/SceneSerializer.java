@@ -0,0 +1,701 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * The SceneSerializer class saves and loads a {@link Scene} in a compact binary format.
+ * <p>
+ * The file is little-endian and consists of four parts:
+ * <ul>
+ * <li>a fixed size header with the offsets and sizes of the sections</li>
+ * <li>a meta section - name, background, ambient light, material table, geometry tree and lights</li>
+ * <li>a vertex section - packed x,y,z doubles of all the triangle vertices</li>
+ * <li>an index section - packed vertex index triples of all the triangles</li>
+ * </ul>
+ * Triangles and meshes are stored in the vertex and index sections, with consecutive triangles of equal
+ * material and emission merged into one {@link Mesh}. When loading a file the two sections are memory-mapped and
+ * the meshes are built directly over them, so the bulk of a large scene is loaded without any parsing.
+ * <p>
+ * An {@link Instance} is stored as a reference to its shared geometry with its transformations - the shared
+ * geometry is stored once, at its first instance, and is shared again by the loaded instances.
+ */
+public final class SceneSerializer {
+    /** File signature - "SCNB" */
+    private static final int MAGIC = 0x424E4353;
+    /** Format version */
+    private static final int VERSION = 3;
+    /** Size of the header in bytes */
+    private static final int HEADER_SIZE = 64;
+
+    /** Geometry tags */
+    private static final byte GROUP = 0, SPHERE = 1, PLANE = 2, POLYGON = 3, TUBE = 4, CYLINDER = 5, MESH = 6,
+            INSTANCE = 7;
+    /** Light tags */
+    private static final byte DIRECTIONAL = 1, POINT = 2, SPOT = 3;
+
+    /** Don't let anyone instantiate this class. */
+    private SceneSerializer() {}
+
+    /**
+     * Saves a scene into a binary file.
+     *
+     * @param scene the scene to save
+     * @param path  the file path
+     * @throws IOException in case of an I/O failure
+     */
+    public static void save(Scene scene, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            write(scene, channel);
+        }
+    }
+
+    /**
+     * Writes a scene in the binary format into a channel (e.g. a file or a socket).
+     *
+     * @param scene   the scene to write
+     * @param channel the destination channel
+     * @throws IOException in case of an I/O failure
+     */
+    public static void write(Scene scene, WritableByteChannel channel) throws IOException {
+        Writer writer = new Writer();
+        writer.writeScene(scene);
+        ByteBuffer meta = writer.meta.flip();
+
+        long metaOffset = HEADER_SIZE;
+        long vertexOffset = align(metaOffset + meta.remaining());
+        long indexOffset = vertexOffset + (long) writer.vertexSize * Double.BYTES;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC).putInt(VERSION)
+                .putLong(metaOffset).putLong(meta.remaining())
+                .putLong(vertexOffset).putLong(writer.vertexSize)
+                .putLong(indexOffset).putLong(writer.indexSize);
+        ByteBuffer padding = ByteBuffer.allocate((int) (vertexOffset - metaOffset - meta.remaining()));
+
+        writeFully(channel, header.clear());
+        writeFully(channel, meta);
+        writeFully(channel, padding);
+
+        ByteBuffer vertices = ByteBuffer.allocate(writer.vertexSize * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        vertices.asDoubleBuffer().put(writer.vertices, 0, writer.vertexSize);
+        writeFully(channel, vertices);
+
+        ByteBuffer indices = ByteBuffer.allocate(writer.indexSize * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        indices.asIntBuffer().put(writer.indices, 0, writer.indexSize);
+        writeFully(channel, indices);
+    }
+
+    /**
+     * Loads a scene from a binary file. The vertex and index sections are memory-mapped and used as they are.
+     *
+     * @param path the file path
+     * @return the loaded scene
+     * @throws IOException              in case of an I/O failure
+     * @throws IllegalArgumentException if the file is not a valid binary scene
+     */
+    public static Scene load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            // the mapping remains valid after the channel is closed
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a scene from a buffer holding the binary format. The meshes of the scene are built over
+     * slices of the buffer and therefore share its memory.
+     *
+     * @param buffer the buffer holding a whole binary scene
+     * @return the read scene
+     * @throws IllegalArgumentException if the buffer does not hold a valid binary scene
+     */
+    public static Scene read(ByteBuffer buffer) {
+        ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a binary scene");
+        int version = header.getInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported binary scene version " + version);
+
+        long metaOffset = header.getLong();
+        long metaLength = header.getLong();
+        long vertexOffset = header.getLong();
+        long vertexSize = header.getLong();
+        long indexOffset = header.getLong();
+        long indexSize = header.getLong();
+
+        Reader reader = new Reader(
+                section(buffer, metaOffset, metaLength, 1),
+                section(buffer, vertexOffset, vertexSize, Double.BYTES).asDoubleBuffer(),
+                section(buffer, indexOffset, indexSize, Integer.BYTES).asIntBuffer());
+        return reader.readScene();
+    }
+
+    /**
+     * Slices a section of a binary scene out of its buffer.
+     *
+     * @param buffer the buffer holding a whole binary scene
+     * @param offset the offset of the section in bytes, as read from the header
+     * @param count  the amount of elements of the section, as read from the header
+     * @param bytes  the size of an element in bytes
+     * @return the section, in little-endian order
+     * @throws IllegalArgumentException if the section does not fit in the buffer
+     */
+    private static ByteBuffer section(ByteBuffer buffer, long offset, long count, int bytes) {
+        int start, length;
+        try {
+            start = Math.toIntExact(offset);
+            length = Math.toIntExact(Math.multiplyExact(count, bytes));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Binary scene section exceeds the buffer", e);
+        }
+        if (start < HEADER_SIZE || length < 0 || start > buffer.capacity() - length)
+            throw new IllegalArgumentException("Binary scene section exceeds the buffer");
+        return buffer.slice(start, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Aligns an offset to the size of a double.
+     *
+     * @param offset the offset
+     * @return the smallest aligned offset that is not lower than the given one
+     */
+    private static long align(long offset) {
+        return (offset + Double.BYTES - 1) & -Double.BYTES;
+    }
+
+    /**
+     * Writes the whole remaining content of a buffer into a channel.
+     *
+     * @param channel the destination channel
+     * @param buffer  the source buffer
+     * @throws IOException in case of an I/O failure
+     */
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    /** Key for merging equal triangle vertices */
+    private record Vertex(double x, double y, double z) {}
+
+    /** Accumulates the sections of a scene while walking through it */
+    private static class Writer {
+        /** The meta section */
+        ByteBuffer meta = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        /** Material table - material values to their index, so equal materials share an entry */
+        final Map<List<Object>, Integer> materials = new HashMap<>();
+        /** Material table - materials by their index */
+        final List<Material> table = new ArrayList<>();
+        /** The vertex section */
+        double[] vertices = new double[3 * 1024];
+        /** Amount of used doubles in the vertex section */
+        int vertexSize = 0;
+        /** The index section */
+        int[] indices = new int[3 * 1024];
+        /** Amount of used ints in the index section */
+        int indexSize = 0;
+        /** Vertices of stand-alone triangles - vertex to its index */
+        final Map<Vertex, Integer> triangleVertices = new HashMap<>();
+        /** Remapping of mesh vertex indices to the vertex section indices */
+        int[] remap = new int[0];
+        /** Shared geometries of the written instances - geometry to its index */
+        final Map<Intersectable, Integer> prototypes = new IdentityHashMap<>();
+
+        /** Material index and emission of the currently open triangle run (or -1 and null if there is no open run) */
+        int runMaterial = -1;
+        Color runEmission = null;
+        /** First triangle of the currently open triangle run */
+        int runFirst = 0;
+
+        /**
+         * Writes the whole scene into the meta, vertex and index sections.
+         *
+         * @param scene the scene
+         */
+        void writeScene(Scene scene) {
+            byte[] name = scene.name == null ? new byte[0] : scene.name.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES + name.length);
+            meta.putInt(name.length).put(name);
+            putColor(scene.background);
+            putColor(scene.ambientLight.getIntensity());
+
+            // the material table must precede the geometries, so collect it first
+            collectMaterials(scene.geometries);
+            putInt(table.size());
+            for (Material material : table) {
+                putDouble3(material.kD);
+                putDouble3(material.kS);
+                putDouble3(material.kT);
+                putDouble3(material.kR);
+                putInt(material.nShininess);
+                putDouble(material.roughness);
+            }
+
+            writeGeometry(scene.geometries);
+
+            putInt(scene.lights.size());
+            for (LightSource light : scene.lights) writeLight(light);
+        }
+
+        /**
+         * Collects the materials of all the geometries in a tree into the material table.
+         *
+         * @param intersectable the root of the tree
+         */
+        void collectMaterials(Intersectable intersectable) {
+            if (intersectable instanceof Geometries geometries)
+                for (Intersectable child : geometries.getGeometries()) collectMaterials(child);
+            else if (intersectable instanceof Instance instance) collectMaterials(instance.getPrototype());
+            else if (intersectable instanceof Geometry geometry) {
+                Material m = geometry.getMaterial();
+                materials.computeIfAbsent(key(m), key -> {
+                    table.add(m);
+                    return table.size() - 1;
+                });
+            }
+        }
+
+        /**
+         * Gets the index of a material in the material table.
+         *
+         * @param material the material
+         * @return the index of the entry with the same values
+         */
+        int materialIndex(Material material) {
+            return materials.get(key(material));
+        }
+
+        /**
+         * Gets the interning key of a material - the values of all its factors.
+         *
+         * @param m the material
+         * @return the key
+         */
+        static List<Object> key(Material m) {
+            return List.of(m.kD, m.kS, m.kT, m.kR, m.nShininess, m.roughness);
+        }
+
+        /**
+         * Writes a geometry (or a geometries tree) record.
+         *
+         * @param intersectable the geometry
+         */
+        void writeGeometry(Intersectable intersectable) {
+            if (intersectable instanceof Geometries geometries) {
+                List<Intersectable> children = geometries.getGeometries();
+                // consecutive triangles sharing material and emission are merged into a single mesh record,
+                // so the amount of records is known only after walking through the children
+                int countPosition = putGroupHeader();
+                int records = 0;
+                for (Intersectable child : children) {
+                    if (child instanceof Triangle triangle) {
+                        int material = materialIndex(triangle.getMaterial());
+                        if (runMaterial != material || !sameColor(runEmission, triangle.getEmission())) {
+                            if (closeRun()) ++records;
+                            runMaterial = material;
+                            runEmission = triangle.getEmission();
+                            runFirst = indexSize / 3;
+                        }
+                        addTriangle(triangle);
+                    } else {
+                        if (closeRun()) ++records;
+                        writeGeometry(child);
+                        ++records;
+                    }
+                }
+                if (closeRun()) ++records;
+                meta.putInt(countPosition, records);
+                return;
+            }
+
+            if (intersectable instanceof Instance instance) {
+                putByte(INSTANCE);
+                Intersectable prototype = instance.getPrototype();
+                Integer index = prototypes.get(prototype);
+                if (index == null) {
+                    // the first instance of a shared geometry is followed by its record
+                    putInt(prototypes.size());
+                    prototypes.put(prototype, prototypes.size());
+                    writeGeometry(prototype);
+                } else putInt(index);
+                putTransform(instance.getTransform());
+                putByte((byte) (instance.isMoving() ? 1 : 0));
+                if (instance.isMoving()) putTransform(instance.getTransform(1));
+                return;
+            }
+
+            if (!(intersectable instanceof Geometry geometry))
+                throw new IllegalArgumentException("Unsupported intersectable " + intersectable.getClass().getName());
+
+            if (geometry instanceof Mesh mesh) {
+                int firstTriangle = indexSize / 3;
+                addMesh(mesh);
+                putMesh(materialIndex(mesh.getMaterial()), mesh.getEmission(), firstTriangle, mesh.getTriangleCount());
+            } else if (geometry instanceof Triangle triangle) {
+                int firstTriangle = indexSize / 3;
+                addTriangle(triangle);
+                putMesh(materialIndex(triangle.getMaterial()), triangle.getEmission(), firstTriangle, 1);
+            } else if (geometry instanceof Sphere sphere) {
+                putHeader(SPHERE, geometry);
+                putDouble(sphere.getRadius());
+                putPoint(sphere.getCenter());
+            } else if (geometry instanceof Plane plane) {
+                putHeader(PLANE, geometry);
+                putPoint(plane.getPoint());
+                putPoint(plane.getNormal());
+            } else if (geometry instanceof Polygon polygon) {
+                putHeader(POLYGON, geometry);
+                putInt(polygon.getVertices().size());
+                for (Point vertex : polygon.getVertices()) putPoint(vertex);
+            } else if (geometry instanceof Cylinder cylinder) {
+                putHeader(CYLINDER, geometry);
+                putDouble(cylinder.getRadius());
+                putPoint(cylinder.getAxis().getHead());
+                putPoint(cylinder.getAxis().getDirection());
+                putDouble(cylinder.getHeight());
+            } else if (geometry instanceof Tube tube) {
+                putHeader(TUBE, geometry);
+                putDouble(tube.getRadius());
+                putPoint(tube.getAxis().getHead());
+                putPoint(tube.getAxis().getDirection());
+            } else
+                throw new IllegalArgumentException("Unsupported geometry " + geometry.getClass().getName());
+        }
+
+        /**
+         * Writes a light source record.
+         *
+         * @param light the light source
+         */
+        void writeLight(LightSource light) {
+            if (light instanceof DirectionalLight directional) {
+                putByte(DIRECTIONAL);
+                putColor(directional.getIntensity());
+                putPoint(directional.getDirection());
+            } else if (light instanceof PointLight point) {
+                putByte(point instanceof SpotLight ? SPOT : POINT);
+                putColor(point.getIntensity());
+                putPoint(point.getPosition());
+                putDouble(point.getKc());
+                putDouble(point.getKl());
+                putDouble(point.getKq());
+                putDouble(point.blackboard.width);
+                putDouble(point.blackboard.height);
+                putDouble(point.blackboard.getK());
+                putDouble(point.getInfluenceThreshold());
+                if (point instanceof SpotLight spot) putPoint(spot.getDirection());
+            } else
+                throw new IllegalArgumentException("Unsupported light source " + light.getClass().getName());
+        }
+
+        /**
+         * Checks whether two emission colors are equal, so that their triangles may share a mesh.
+         *
+         * @return true if the colors have the same components
+         */
+        boolean sameColor(Color c1, Color c2) {
+            return c1 == c2 || c1 != null && c2 != null && c1.getRgb().equals(c2.getRgb());
+        }
+
+        /**
+         * Closes the currently open triangle run by writing its mesh record.
+         *
+         * @return true if a record was written, false if there was no open run
+         */
+        boolean closeRun() {
+            if (runMaterial < 0) return false;
+            putMesh(runMaterial, runEmission, runFirst, indexSize / 3 - runFirst);
+            runMaterial = -1;
+            runEmission = null;
+            return true;
+        }
+
+        /**
+         * Appends a stand-alone triangle into the vertex and index sections.
+         *
+         * @param triangle the triangle
+         */
+        void addTriangle(Triangle triangle) {
+            for (Point p : triangle.getVertices()) {
+                Vertex key = new Vertex(p.getX(), p.getY(), p.getZ());
+                Integer index = triangleVertices.get(key);
+                if (index == null) {
+                    index = addVertex(key.x(), key.y(), key.z());
+                    triangleVertices.put(key, index);
+                }
+                addIndex(index);
+            }
+        }
+
+        /**
+         * Appends the triangles of a mesh into the vertex and index sections,
+         * copying only the vertices the triangles refer to.
+         *
+         * @param mesh the mesh
+         */
+        void addMesh(Mesh mesh) {
+            if (remap.length < mesh.getVertexCount()) {
+                remap = new int[mesh.getVertexCount()];
+                Arrays.fill(remap, -1);
+            }
+            int triangles = mesh.getTriangleCount();
+            for (int t = 0; t < triangles; ++t)
+                for (int c = 0; c < 3; ++c) {
+                    int vertex = mesh.getVertexIndex(t, c);
+                    if (remap[vertex] < 0)
+                        remap[vertex] = addVertex(mesh.getCoordinate(vertex, 0),
+                                mesh.getCoordinate(vertex, 1), mesh.getCoordinate(vertex, 2));
+                    addIndex(remap[vertex]);
+                }
+            // reset only the touched entries for the next mesh
+            for (int t = 0; t < triangles; ++t)
+                for (int c = 0; c < 3; ++c) remap[mesh.getVertexIndex(t, c)] = -1;
+        }
+
+        /**
+         * Appends a vertex into the vertex section.
+         *
+         * @return the index of the vertex
+         */
+        int addVertex(double x, double y, double z) {
+            if (vertexSize + 3 > vertices.length) vertices = Arrays.copyOf(vertices, vertices.length * 2);
+            vertices[vertexSize++] = x;
+            vertices[vertexSize++] = y;
+            vertices[vertexSize++] = z;
+            return vertexSize / 3 - 1;
+        }
+
+        /**
+         * Appends a vertex index into the index section.
+         *
+         * @param index the vertex index
+         */
+        void addIndex(int index) {
+            if (indexSize == indices.length) indices = Arrays.copyOf(indices, indices.length * 2);
+            indices[indexSize++] = index;
+        }
+
+        /**
+         * Writes a group record header with a placeholder for the amount of its records.
+         *
+         * @return the position of the amount placeholder
+         */
+        int putGroupHeader() {
+            putByte(GROUP);
+            int position = meta.position();
+            putInt(0);
+            return position;
+        }
+
+        /**
+         * Writes a mesh record.
+         */
+        void putMesh(int material, Color emission, int firstTriangle, int triangleCount) {
+            putByte(MESH);
+            putInt(material);
+            putColor(emission);
+            putInt(firstTriangle);
+            putInt(triangleCount);
+        }
+
+        /**
+         * Writes the common header of a geometry record - tag, material index and emission.
+         */
+        void putHeader(byte tag, Geometry geometry) {
+            putByte(tag);
+            putInt(materialIndex(geometry.getMaterial()));
+            putColor(geometry.getEmission());
+        }
+
+        void putColor(Color color) {
+            putDouble3(color.getRgb());
+        }
+
+        void putTransform(Transform transform) {
+            for (double element : transform.getMatrix()) putDouble(element);
+        }
+
+        void putPoint(Point point) {
+            ensure(3 * Double.BYTES);
+            meta.putDouble(point.getX()).putDouble(point.getY()).putDouble(point.getZ());
+        }
+
+        void putDouble3(Double3 value) {
+            ensure(3 * Double.BYTES);
+            meta.putDouble(value.getD1()).putDouble(value.getD2()).putDouble(value.getD3());
+        }
+
+        void putDouble(double value) {
+            ensure(Double.BYTES);
+            meta.putDouble(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            meta.putInt(value);
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            meta.put(value);
+        }
+
+        /**
+         * Grows the meta section buffer if needed.
+         *
+         * @param bytes the amount of bytes about to be written
+         */
+        void ensure(int bytes) {
+            if (meta.remaining() >= bytes) return;
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(meta.capacity() * 2, meta.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            meta = grown.put(meta.flip());
+        }
+    }
+
+    /** Builds a scene from the sections of the binary format */
+    private static class Reader {
+        /** The meta section */
+        final ByteBuffer meta;
+        /** The vertex section */
+        final DoubleBuffer vertices;
+        /** The index section */
+        final IntBuffer indices;
+        /** The material table */
+        Material[] materials;
+        /** Shared geometries of the read instances, by their index */
+        final List<Intersectable> prototypes = new ArrayList<>();
+
+        Reader(ByteBuffer meta, DoubleBuffer vertices, IntBuffer indices) {
+            this.meta = meta;
+            this.vertices = vertices;
+            this.indices = indices;
+        }
+
+        /**
+         * Reads the whole scene.
+         *
+         * @return the scene
+         */
+        Scene readScene() {
+            byte[] name = new byte[meta.getInt()];
+            meta.get(name);
+            Scene scene = new Scene(new String(name, StandardCharsets.UTF_8))
+                    .setBackground(getColor())
+                    .setAmbientLight(new AmbientLight(getColor(), 1d));
+
+            materials = new Material[meta.getInt()];
+            for (int i = 0; i < materials.length; ++i)
+                materials[i] = new Material()
+                        .setKd(getDouble3()).setKs(getDouble3()).setKt(getDouble3()).setKr(getDouble3())
+                        .setShininess(meta.getInt()).setRoughness(meta.getDouble());
+
+            if (!(readGeometry() instanceof Geometries geometries))
+                throw new IllegalArgumentException("Binary scene root must be a geometries group");
+            scene.setGeometries(geometries);
+
+            int lights = meta.getInt();
+            for (int i = 0; i < lights; ++i) scene.lights.add(readLight());
+            return scene;
+        }
+
+        /**
+         * Reads a geometry (or a geometries tree) record.
+         *
+         * @return the geometry
+         */
+        Intersectable readGeometry() {
+            byte tag = meta.get();
+            if (tag == GROUP) {
+                Intersectable[] children = new Intersectable[meta.getInt()];
+                for (int i = 0; i < children.length; ++i) children[i] = readGeometry();
+                return new Geometries(children);
+            }
+            if (tag == INSTANCE) {
+                int index = meta.getInt();
+                if (index == prototypes.size()) prototypes.add(readGeometry());
+                Instance instance = new Instance(prototypes.get(index), getTransform());
+                return meta.get() == 0 ? instance : instance.setMotion(instance.getTransform(), getTransform());
+            }
+
+            Material material = materials[meta.getInt()];
+            Color emission = getColor();
+            Geometry geometry = switch (tag) {
+                case MESH -> new Mesh(vertices, indices, meta.getInt(), meta.getInt());
+                case SPHERE -> new Sphere(meta.getDouble(), getPoint());
+                case PLANE -> new Plane(getPoint(), getVector());
+                case POLYGON -> {
+                    Point[] points = new Point[meta.getInt()];
+                    for (int i = 0; i < points.length; ++i) points[i] = getPoint();
+                    yield new Polygon(points);
+                }
+                case TUBE -> new Tube((float) meta.getDouble(), new Ray(getPoint(), getVector()));
+                case CYLINDER -> new Cylinder((float) meta.getDouble(), new Ray(getPoint(), getVector()),
+                        meta.getDouble());
+                default -> throw new IllegalArgumentException("Unknown geometry tag " + tag);
+            };
+            return geometry.setMaterial(material).setEmission(emission);
+        }
+
+        /**
+         * Reads a light source record.
+         *
+         * @return the light source
+         */
+        LightSource readLight() {
+            byte tag = meta.get();
+            if (tag == DIRECTIONAL) return new DirectionalLight(getColor(), getVector());
+            if (tag != POINT && tag != SPOT) throw new IllegalArgumentException("Unknown light tag " + tag);
+
+            Color intensity = getColor();
+            Point position = getPoint();
+            double kC = meta.getDouble(), kL = meta.getDouble(), kQ = meta.getDouble();
+            double width = meta.getDouble(), height = meta.getDouble(), k = meta.getDouble();
+            double influenceThreshold = meta.getDouble();
+            PointLight light = tag == SPOT
+                    ? new SpotLight(intensity, position, getVector(), width, height, k)
+                    : new PointLight(intensity, position, width, height, k);
+            return light.setkC(kC).setKl(kL).setKq(kQ).setInfluenceThreshold(influenceThreshold);
+        }
+
+        Color getColor() {
+            return new Color(meta.getDouble(), meta.getDouble(), meta.getDouble());
+        }
+
+        Double3 getDouble3() {
+            return new Double3(meta.getDouble(), meta.getDouble(), meta.getDouble());
+        }
+
+        Point getPoint() {
+            return new Point(meta.getDouble(), meta.getDouble(), meta.getDouble());
+        }
+
+        Vector getVector() {
+            return new Vector(meta.getDouble(), meta.getDouble(), meta.getDouble());
+        }
+
+        Transform getTransform() {
+            double[] matrix = new double[12];
+            for (int i = 0; i < matrix.length; ++i) matrix[i] = meta.getDouble();
+            return Transform.fromMatrix(matrix);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bounding volume hierarchy of {@link geometries.Geometries} and {@link geometries.Mesh}.
+ */
+public class BvhTest {
+
+    /**
+     * Creates a scattered collection of small spheres and triangles.
+     *
+     * @param seed random seed
+     * @return the geometries
+     */
+    private static Geometries scatter(long seed) {
+        Random random = new Random(seed);
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 300; ++i) {
+            Point p = new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50);
+            if (i % 2 == 0) geometries.add(new Sphere(random.nextDouble() * 3 + 0.5, p));
+            else geometries.add(new Triangle(p, p.add(new Vector(3, 0, 1)), p.add(new Vector(0, 3, -1))));
+        }
+        return geometries;
+    }
+
+    /**
+     * Counts the intersections of a ray with the geometries.
+     */
+    private static int count(Intersectable geometries, Ray ray) {
+        List<Intersectable.GeoPoint> hits = geometries.findGeoIntersections(ray);
+        return hits == null ? 0 : hits.size();
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBvh(BvhBuilder)}.
+     */
+    @Test
+    void testGeometriesBvh() {
+        Geometries linear = scatter(1);
+        Geometries accelerated = scatter(1);
+        BvhStats stats = accelerated.buildBvh(new SahBvhBuilder().setParallelThreshold(16));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the hierarchy covers all the geometries
+        assertNotNull(stats, "TC01: bounded collection must be accelerated");
+        assertEquals(300, stats.primitives(), "TC01: wrong amount of primitives");
+        assertEquals(stats.nodes(), 2 * stats.leaves() - 1, "TC01: hierarchy must be a binary tree");
+        assertTrue(stats.sahCost() < 300, "TC01: hierarchy must be cheaper than a linear scan");
+
+        // TC02: rays find the same intersections with and without the hierarchy
+        Random random = new Random(2);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 80),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            assertEquals(count(linear, ray), count(accelerated, ray), "TC02: wrong intersections of ray " + i);
+            // TC03: the ordered traversal finds the closest intersection
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(linear.findGeoIntersections(ray));
+            Intersectable.GeoPoint closest = accelerated.findClosestGeoIntersection(ray);
+            if (expected == null) assertNull(closest, "TC03: no intersection expected for ray " + i);
+            else assertEquals(expected.point, closest.point, "TC03: wrong closest intersection of ray " + i);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC04: an unbounded geometry is kept out of the hierarchy of the bounded ones
+        Geometries unbounded = scatter(1);
+        unbounded.add(new Plane(new Point(0, 0, -100), new Vector(0, 0, 1)));
+        assertEquals(300, unbounded.buildBvh().primitives(), "TC04: bounded geometries must be accelerated");
+        Ray ray = new Ray(new Point(0, 0, 80), new Vector(0, 0, -1));
+        assertEquals(count(linear, ray) + 1, count(unbounded, ray), "TC04: wrong intersections");
+        assertEquals(ray.findClosestGeoPoint(linear.findGeoIntersections(ray)).point,
+                unbounded.findClosestGeoIntersection(ray).point, "TC04: wrong closest intersection");
+        // TC05: the closest hit of an unbounded geometry in front of all the bounded ones
+        unbounded.add(new Plane(new Point(0, 0, 70), new Vector(0, 0, 1)));
+        unbounded.buildBvh();
+        assertEquals(new Point(0, 0, 70), unbounded.findClosestGeoIntersection(ray).point,
+                "TC05: wrong closest intersection");
+
+        // TC06: adding a geometry drops the hierarchy
+        accelerated.add(new Sphere(1, new Point(0, 0, 0)));
+        assertNull(accelerated.getBvhStats(), "TC06: hierarchy must be dropped");
+
+        // TC07: hierarchies nested deeper than the reused traversal stacks find the geometries of every level
+        Geometries deep = new Geometries(new Sphere(1, new Point(0, 0, 0)), new Sphere(1, new Point(5, 0, 0)));
+        for (int level = 1; level < 10; ++level)
+            deep = new Geometries(deep, new Sphere(1, new Point(0, 5 * level, 0)));
+        deep.buildBvh();
+        Ray inner = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        assertEquals(2, count(deep, inner), "TC07: wrong intersections of the innermost level");
+        assertEquals(new Point(5, 0, 1), deep.findClosestGeoIntersection(inner).point, "TC07: wrong closest intersection");
+        assertEquals(new Point(0, 45, 1), deep.findClosestGeoIntersection(new Ray(new Point(0, 45, 10),
+                new Vector(0, 0, -1))).point, "TC07: wrong closest intersection of the outermost level");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#buildBvh(BvhBuilder)}.
+     */
+    @Test
+    void testMeshBvh() {
+        // a 20x20 grid of quads
+        int n = 20;
+        double[] vertices = new double[(n + 1) * (n + 1) * 3];
+        int[] indices = new int[n * n * 6];
+        for (int y = 0; y <= n; ++y)
+            for (int x = 0; x <= n; ++x) {
+                int v = (y * (n + 1) + x) * 3;
+                vertices[v] = x;
+                vertices[v + 1] = y;
+                vertices[v + 2] = Math.sin(x) * Math.cos(y);
+            }
+        for (int y = 0, t = 0; y < n; ++y)
+            for (int x = 0; x < n; ++x, t += 6) {
+                int v = y * (n + 1) + x;
+                indices[t] = v;
+                indices[t + 1] = v + 1;
+                indices[t + 2] = v + n + 1;
+                indices[t + 3] = v + 1;
+                indices[t + 4] = v + n + 2;
+                indices[t + 5] = v + n + 1;
+            }
+        Mesh linear = new Mesh(vertices, indices);
+        Mesh accelerated = new Mesh(vertices, indices);
+        BvhStats stats = accelerated.buildBvh(new SahBvhBuilder());
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the hierarchy covers all the triangles
+        assertEquals(n * n * 2, stats.primitives(), "TC01: wrong amount of primitives");
+        assertTrue(stats.maxDepth() < 30, "TC01: hierarchy is too deep");
+
+        // TC02: rays find the same intersections with and without the hierarchy
+        Random random = new Random(3);
+        for (int i = 0; i < 300; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * n, random.nextDouble() * n, 5),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            assertEquals(count(linear, ray), count(accelerated, ray), "TC02: wrong intersections of ray " + i);
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(linear.findGeoIntersections(ray));
+            Intersectable.GeoPoint closest = accelerated.findClosestGeoIntersection(ray);
+            if (expected == null) assertNull(closest, "TC02: no intersection expected for ray " + i);
+            else assertEquals(expected.point, closest.point, "TC02: wrong closest intersection of ray " + i);
+        }
+
+        // TC03: the bounding box of the mesh contains all its vertices
+        BoundingBox box = accelerated.getBoundingBox();
+        assertEquals(0d, box.minX, 1e-12, "TC03: wrong bounding box");
+        assertEquals(n, box.maxY, 1e-12, "TC03: wrong bounding box");
+
+        // TC04: the normal at a point on the mesh is the normal of its face
+        Ray down = new Ray(new Point(3.3, 7.6, 5), new Vector(0, 0, -1));
+        Intersectable.GeoPoint hit = accelerated.findClosestGeoIntersection(down);
+        assertEquals(hit.geometry.getNormal(hit.point), accelerated.getNormal(hit.point), "TC04: wrong mesh normal");
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[0], new int[0]).getNormal(Point.ZERO),
+                "TC04: a mesh with no triangles has no normal");
+    }
+
+    /**
+     * Test method for {@link geometries.LbvhBuilder}.
+     */
+    @Test
+    void testLbvh() {
+        Geometries linear = scatter(4);
+        Geometries accelerated = scatter(4);
+        // duplicate geometries share their Morton codes
+        Sphere duplicate = new Sphere(1, new Point(1, 2, 3));
+        linear.add(duplicate, duplicate, duplicate);
+        accelerated.add(duplicate, duplicate, duplicate);
+        BvhStats stats = accelerated.buildBvh(new LbvhBuilder().setMaxLeafSize(2).setParallelThreshold(16));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the hierarchy covers all the geometries
+        assertEquals(303, stats.primitives(), "TC01: wrong amount of primitives");
+        assertEquals(stats.nodes(), 2 * stats.leaves() - 1, "TC01: hierarchy must be a binary tree");
+        assertTrue(stats.sahCost() < 303, "TC01: hierarchy must be cheaper than a linear scan");
+
+        // TC02: rays find the same intersections with and without the hierarchy
+        Random random = new Random(5);
+        for (int i = 0; i < 500; ++i) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 80),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            assertEquals(count(linear, ray), count(accelerated, ray), "TC02: wrong intersections of ray " + i);
+            Intersectable.GeoPoint expected = ray.findClosestGeoPoint(linear.findGeoIntersections(ray));
+            Intersectable.GeoPoint closest = accelerated.findClosestGeoIntersection(ray);
+            if (expected == null) assertNull(closest, "TC02: no intersection expected for ray " + i);
+            else assertEquals(expected.point, closest.point, "TC02: wrong closest intersection of ray " + i);
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC03: a single geometry
+        Geometries single = new Geometries(new Sphere(1, Point.ZERO));
+        assertEquals(1, single.buildBvh(new LbvhBuilder()).leaves(), "TC03: single geometry must be a leaf");
+        assertEquals(2, count(single, new Ray(new Point(0, 0, 5), new Vector(0, 0, -1))), "TC03: wrong intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBvh(BvhBuilder)} with empty geometries.
+     */
+    @Test
+    void testEmptyChild() {
+        Geometries linear = scatter(7);
+        Geometries empty = new Geometries();
+        Mesh noTriangles = new Mesh(new double[0], new int[0]);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: empty geometries are kept out of the hierarchy of both builders
+        for (BvhBuilder builder : new BvhBuilder[]{new SahBvhBuilder(), new LbvhBuilder()}) {
+            Geometries accelerated = scatter(7);
+            accelerated.add(new Geometries(), new Mesh(new double[0], new int[0]));
+            BvhStats stats = accelerated.buildBvh(builder);
+            assertEquals(300, stats.primitives(), "TC01: wrong amount of primitives");
+            assertEquals(stats.nodes(), 2 * stats.leaves() - 1, "TC01: hierarchy must be a binary tree");
+            assertTrue(stats.leaves() > 1, "TC01: hierarchy must not be a single leaf");
+            assertTrue(stats.sahCost() < 300, "TC01: hierarchy must be cheaper than a linear scan");
+            Random random = new Random(8);
+            for (int i = 0; i < 100; ++i) {
+                Ray ray = new Ray(new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, 80),
+                        new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+                assertEquals(count(linear, ray), count(accelerated, ray), "TC01: wrong intersections of ray " + i);
+            }
+        }
+
+        // TC02: a refit rebuilds the hierarchy when an empty geometry is filled
+        Geometries accelerated = scatter(7);
+        accelerated.add(empty, noTriangles);
+        accelerated.buildBvh();
+        empty.add(new Sphere(1, new Point(0, 0, 200)));
+        assertEquals(301, accelerated.refitBvh().primitives(), "TC02: filled geometry must be accelerated");
+        Ray ray = new Ray(new Point(0, 0, 300), new Vector(0, 0, -1));
+        assertEquals(new Point(0, 0, 201), accelerated.findClosestGeoIntersection(ray).point,
+                "TC02: filled geometry is missed");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: only empty geometries
+        assertNull(new Geometries(new Geometries()).buildBvh(), "TC11: empty geometries must not be accelerated");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#refitBvh(BvhBuilder, double)}.
+     */
+    @Test
+    void testRefit() {
+        Sphere shared = new Sphere(1, Point.ZERO);
+        Instance[] instances = new Instance[200];
+        Geometries geometries = new Geometries();
+        Random random = new Random(6);
+        Point[] positions = new Point[instances.length];
+        for (int i = 0; i < instances.length; ++i) {
+            positions[i] = new Point(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50, random.nextDouble() * 10);
+            instances[i] = new Instance(shared, Transform.translation(positions[i].subtract(Point.ZERO)));
+            geometries.add(instances[i]);
+        }
+        double builtCost = geometries.buildBvh().sahCost();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: after a small motion the refitted hierarchy finds the moved geometries
+        for (int i = 0; i < instances.length; ++i)
+            instances[i].setTransform(Transform.translation(positions[i].add(new Vector(0.5, 0.5, 0)).subtract(Point.ZERO)));
+        BvhStats stats = geometries.refitBvh();
+        assertEquals(instances.length, stats.primitives(), "TC01: topology must be kept");
+        for (int i = 0; i < instances.length; i += 7) {
+            Point p = positions[i].add(new Vector(1.2, 0.5, 0));
+            Ray ray = new Ray(new Point(p.getX(), p.getY(), 50), new Vector(0, 0, -1));
+            assertNotNull(geometries.findClosestGeoIntersection(ray), "TC01: moved geometry " + i + " is missed");
+        }
+
+        // TC02: a large motion inflates the refitted hierarchy
+        for (Instance instance : instances)
+            instance.setTransform(Transform.translation(new Vector(random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100 - 50, random.nextDouble() * 10)));
+        assertTrue(geometries.refitBvh().sahCost() > 1.5 * builtCost, "TC02: shuffled hierarchy must be inflated");
+
+        // TC03: the quality check rebuilds an inflated hierarchy
+        for (Instance instance : instances)
+            instance.setTransform(Transform.translation(new Vector(random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100 - 50, random.nextDouble() * 10)));
+        assertTrue(geometries.refitBvh(1.5).sahCost() < 1.5 * builtCost, "TC03: inflated hierarchy must be rebuilt");
+
+        // TC05: a nested collection dropped by an addition is rebuilt with the builder of its parent
+        int[] builds = {0};
+        BvhBuilder counting = new BvhBuilder() {
+            @Override
+            Bvh build(double[] bounds, int count) {
+                ++builds[0];
+                return new LbvhBuilder().build(bounds, count);
+            }
+        };
+        Geometries nested = scatter(9);
+        Geometries parent = new Geometries(nested, new Sphere(1, new Point(0, 0, 100)));
+        parent.buildBvh(counting);
+        nested.add(new Sphere(1, new Point(0, 0, -100)));
+        builds[0] = 0;
+        parent.refitBvh();
+        assertEquals(1, builds[0], "TC05: nested collection must be rebuilt by the parent builder");
+        assertEquals(301, nested.getBvhStats().primitives(), "TC05: wrong nested hierarchy");
+
+        // TC06: the bounds of an accelerated collection follow its refitted hierarchy
+        instances[0].setTransform(Transform.translation(new Vector(500, 0, 0)));
+        geometries.refitBvh();
+        assertEquals(501d, geometries.getBoundingBox().maxX, 1e-9, "TC06: bounds must follow the refit");
+        assertEquals(601d, new Instance(geometries, Transform.translation(new Vector(100, 0, 0))).getBoundingBox().maxX,
+                1e-9, "TC06: wrong bounds of an instance of the collection");
+
+        // =============== Boundary Values Tests ==================
+        // TC04: the inflation threshold may not be below 1
+        assertThrows(IllegalArgumentException.class, () -> geometries.refitBvh(0.5), "TC04: wrong threshold");
+    }
+}
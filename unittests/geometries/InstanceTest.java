@@ -0,0 +1,134 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link geometries.Instance} class.
+ */
+public class InstanceTest {
+
+    /** Places a unit sphere at (10,0,0) scaled by 2 */
+    private final Transform transform = Transform.scaling(2, 2, 2)
+            .then(Transform.rotation(new Vector(0, 0, 1), 90))
+            .then(Transform.translation(new Vector(10, 0, 0)));
+
+    /**
+     * Test method for {@link geometries.Instance#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        Sphere unit = new Sphere(1, Point.ZERO);
+        unit.setMaterial(new Material().setKd(0.3));
+        Instance instance = new Instance(unit, transform);
+        Sphere expected = new Sphere(2, new Point(10, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a ray crossing the placed sphere hits it twice at the same points as an explicit sphere
+        Ray ray = new Ray(new Point(10.5, -5, 0.5), new Vector(0, 1, 0));
+        List<Intersectable.GeoPoint> hits = instance.findGeoIntersections(ray);
+        assertEquals(2, hits.size(), "TC01: wrong amount of intersections");
+        List<Point> points = expected.findIntersections(ray);
+        for (Intersectable.GeoPoint gp : hits)
+            assertTrue(points.contains(gp.point), "TC01: wrong intersection point " + gp.point);
+
+        // TC02: the hit geometry shares the material and has a world-space normal
+        Intersectable.GeoPoint closest = instance.findClosestGeoIntersection(ray);
+        assertEquals(ray.findClosestGeoPoint(hits).point, closest.point, "TC02: wrong closest intersection");
+        assertSame(unit.getMaterial(), closest.geometry.getMaterial(), "TC02: material must be shared");
+        assertEquals(expected.getNormal(closest.point), closest.geometry.getNormal(closest.point),
+                "TC02: wrong normal");
+
+        // TC03: the maximal distance is measured in the scene, not in the local space
+        assertNull(instance.findGeoIntersections(ray, 2), "TC03: intersection beyond the maximal distance");
+        assertEquals(1, instance.findGeoIntersections(ray, 6).size(), "TC03: wrong amount of intersections");
+
+        // TC04: the bounding box is transformed
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(8, box.minX, 1e-9, "TC04: wrong bounding box");
+        assertEquals(2, box.maxY, 1e-9, "TC04: wrong bounding box");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: a ray missing the placed sphere
+        assertNull(instance.findGeoIntersections(new Ray(new Point(0, -5, 0), new Vector(0, 1, 0))),
+                "TC05: no intersections expected");
+
+        // TC06: a singular transformation is rejected
+        assertThrows(IllegalArgumentException.class,
+                () -> Transform.scaling(1, 1, 1e-20), "TC06: singular transformation");
+    }
+
+    /**
+     * Test method for a two-level hierarchy of instances over a shared collection.
+     */
+    @Test
+    void testTwoLevel() {
+        Geometries shared = new Geometries(
+                new Sphere(1, new Point(0, 0, 1)),
+                new Triangle(new Point(-2, -2, 0), new Point(2, -2, 0), new Point(0, 2, 0)));
+        Geometries scene = new Geometries();
+        for (int i = 0; i < 50; ++i)
+            scene.add(new Instance(shared, Transform.rotation(new Vector(0, 0, 1), i * 7)
+                    .then(Transform.translation(new Vector(i * 5 + 5, 0, 0)))));
+        BvhStats stats = scene.buildBvh();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the top level is built over the instances and the shared collection is built once
+        assertEquals(50, stats.primitives(), "TC01: wrong amount of instances");
+        assertNotNull(shared.getBvhStats(), "TC01: shared collection must be accelerated");
+
+        // TC02: a ray through an instance hits its sphere and its triangle
+        Ray ray = new Ray(new Point(100, 0, 10), new Vector(0, 0, -1));
+        assertEquals(3, scene.findGeoIntersections(ray).size(), "TC02: wrong amount of intersections");
+        assertEquals(new Point(100, 0, 2), scene.findClosestGeoIntersection(ray).point,
+                "TC02: wrong closest intersection");
+    }
+
+    /**
+     * Test method for {@link geometries.Instance#setMotion(Transform, Transform)}.
+     */
+    @Test
+    void testMotion() {
+        Instance instance = new Instance(new Sphere(1, Point.ZERO), Transform.IDENTITY)
+                .setMotion(Transform.IDENTITY, Transform.translation(new Vector(10, 0, 0)));
+        Geometries scene = new Geometries(instance);
+        scene.buildBvh();
+        Vector down = new Vector(0, 0, -1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the bounding box covers the whole motion
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(-1, box.minX, 1e-9, "TC01: wrong motion bounds start");
+        assertEquals(11, box.maxX, 1e-9, "TC01: wrong motion bounds end");
+
+        // TC02: a ray meets the instance placed at the time of the ray
+        assertEquals(new Point(5, 0, 1),
+                scene.findClosestGeoIntersection(new Ray(new Point(5, 0, 10), down, 0.5)).point,
+                "TC02: wrong intersection in the middle of the motion");
+        assertNull(scene.findGeoIntersections(new Ray(new Point(5, 0, 10), down, 0)),
+                "TC02: the instance is not at its start place");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the ends of the motion interval are the two transformations
+        assertEquals(new Point(0, 0, 1), scene.findClosestGeoIntersection(new Ray(new Point(0, 0, 10), down)).point,
+                "TC11: wrong intersection at the start");
+        assertEquals(new Point(10, 0, 1),
+                scene.findClosestGeoIntersection(new Ray(new Point(10, 0, 10), down, 1)).point,
+                "TC11: wrong intersection at the end");
+
+        // TC12: setting a transformation drops the motion
+        instance.setTransform(Transform.IDENTITY);
+        assertFalse(instance.isMoving(), "TC12: motion is not dropped");
+        assertNull(scene.findGeoIntersections(new Ray(new Point(10, 0, 10), down, 1)), "TC12: instance still moves");
+
+        // TC13: a singular end of the motion is rejected
+        Transform flat = Transform.fromMatrix(new double[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0});
+        assertThrows(IllegalArgumentException.class, () -> instance.setMotion(Transform.IDENTITY, flat),
+                "TC13: singular motion end");
+        assertFalse(instance.isMoving(), "TC13: rejected motion is set");
+    }
+}
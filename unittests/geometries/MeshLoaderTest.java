@@ -0,0 +1,112 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link geometries.MeshLoader} class.
+ */
+public class MeshLoaderTest {
+
+    /**
+     * Test method for {@link geometries.MeshLoader#loadObj(Path)}.
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        Path file = Files.createTempFile("mesh", ".obj");
+        try {
+            Files.writeString(file, """
+                    # unit square and a triangle above it
+                    o square
+                    v 0 0 0
+                    v 1.0 0 0
+                    v 1 1e0 0
+                    v 0.0 1 0
+                    vn 0 0 1
+                    f 1/1/1 2/2/1 3/3/1 4/4/1
+                    v 0 0 2 # trailing comment
+                    v 1 0 2
+                    v 0 1 2
+                    f -3 -2 -1
+                    """);
+            Mesh mesh = MeshLoader.load(file, new Material().setKd(0.5), new Color(10, 0, 0));
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: the quad is split into two triangles and the relative face is read
+            assertEquals(3, mesh.getTriangleCount(), "TC01: wrong amount of triangles");
+            assertEquals(7, mesh.getVertexCount(), "TC01: wrong amount of vertices");
+            assertEquals(4, mesh.getVertexIndex(2, 0), "TC01: relative index is not resolved");
+            assertEquals(1d, mesh.getCoordinate(2, 1), "TC01: wrong vertex coordinate");
+
+            // TC02: material and emission are assigned to the whole mesh
+            assertEquals(0.5, mesh.getMaterial().kD.getD1(), 1e-12, "TC02: wrong material");
+            var hits = mesh.findGeoIntersections(new Ray(new Point(0.3, 0.2, 5), new Vector(0, 0, -1)));
+            assertEquals(2, hits.size(), "TC02: wrong amount of intersections");
+            assertEquals(10d, hits.get(0).geometry.getEmission().getRgb().getD1(), 1e-12, "TC02: wrong emission");
+
+            // =============== Boundary Values Tests ==================
+            // TC03: a face referring to a missing vertex
+            Files.writeString(file, "v 0 0 0\nv 1 0 0\nf 1 2 3\n");
+            assertThrows(IllegalArgumentException.class, () -> MeshLoader.loadObj(file), "TC03: missing vertex");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.MeshLoader#loadPly(Path)}.
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        String header = """
+                ply
+                format binary_little_endian 1.0
+                comment unit square
+                element vertex 4
+                property float x
+                property float y
+                property float z
+                property uchar red
+                element face 2
+                property list uchar int vertex_indices
+                end_header
+                """;
+        byte[] text = header.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer body = ByteBuffer.allocate(text.length + 4 * 13 + 2 * 13).order(ByteOrder.LITTLE_ENDIAN);
+        body.put(text);
+        float[][] vertices = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}};
+        for (float[] v : vertices) body.putFloat(v[0]).putFloat(v[1]).putFloat(v[2]).put((byte) 255);
+        body.put((byte) 3).putInt(0).putInt(1).putInt(2);
+        body.put((byte) 3).putInt(0).putInt(2).putInt(3);
+
+        Path file = Files.createTempFile("mesh", ".ply");
+        try {
+            Files.write(file, body.array());
+            Mesh mesh = MeshLoader.load(file);
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: a binary triangle mesh
+            assertEquals(2, mesh.getTriangleCount(), "TC01: wrong amount of triangles");
+            assertEquals(4, mesh.getVertexCount(), "TC01: wrong amount of vertices");
+            assertEquals(3, mesh.getVertexIndex(1, 2), "TC01: wrong vertex index");
+            assertEquals(1, mesh.findGeoIntersections(new Ray(new Point(0.8, 0.2, 1), new Vector(0, 0, -1)))
+                    .size(), "TC01: wrong intersections");
+
+            // =============== Boundary Values Tests ==================
+            // TC02: an ASCII PLY file is not supported
+            Files.writeString(file, header.replace("binary_little_endian", "ascii"));
+            assertThrows(IllegalArgumentException.class, () -> MeshLoader.loadPly(file), "TC02: ascii PLY");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
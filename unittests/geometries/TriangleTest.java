@@ -67,6 +67,10 @@ class TriangleTest {
         Triangle triangle = new Triangle(new Point(0, 0, 2), new Point(0, 2, 0), new Point (2,0,0));
         List<GeoPoint> intersections = triangle.findGeoIntersections(new Ray(new Point(0,0,0),new Vector(0.5,0.5,1)));
 
-
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: the hit record carries the precomputed normal of the triangle
+        assertEquals(1, intersections.size(), "TC01: wrong number of intersections");
+        assertSame(triangle.getNormal(), intersections.getFirst().normal, "TC01: normal is not precomputed");
+        assertSame(intersections.getFirst().normal, intersections.getFirst().getNormal(), "TC01: normal is calculated again");
     }
 }
\ No newline at end of file
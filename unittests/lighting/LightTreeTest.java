@@ -0,0 +1,65 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link lighting.LightTree} class.
+ */
+public class LightTreeTest {
+
+    /**
+     * Test method for {@link lighting.LightTree#select(Point, double, int, int[], double[])}.
+     */
+    @Test
+    void testSelect() {
+        // a row of street lights with quadratic attenuation, and a moon
+        LightSource[] lights = new LightSource[101];
+        lights[0] = new DirectionalLight(new Color(10, 10, 10), new Vector(0, 0, -1));
+        for (int i = 1; i < lights.length; ++i)
+            lights[i] = new PointLight(new Color(500, 400, 300), new Point(i * 10, 0, 5)).setKq(0.01);
+        LightTree tree = new LightTree(lights);
+        int[] selected = new int[lights.length];
+        double[] weights = new double[lights.length];
+        Point street = new Point(10, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: far dim lights are culled, near lights and the moon are kept
+        int count = tree.select(street, 10, 0, selected, weights);
+        assertTrue(count > 1 && count < 20, "TC01: wrong amount of culled lights");
+        assertEquals(0, selected[0], "TC01: light with no position must be kept");
+        for (int s = 1; s < count; ++s) {
+            PointLight light = (PointLight) lights[selected[s]];
+            assertTrue(light.getPosition().distance(street) < 100, "TC01: far light is not culled");
+            assertEquals(1, weights[s], "TC01: wrong weight of a kept light");
+        }
+
+        // TC02: sampled lights stand for all the candidates - weighted by their intensity they sum to the total
+        count = tree.select(street, 0, 4, selected, weights);
+        assertTrue(count >= 2 && count <= 5, "TC02: wrong amount of sampled lights");
+        for (int s = 1; s < count; ++s) assertTrue(selected[s - 1] < selected[s], "TC02: lights are not ordered");
+        double expected = 0;
+        for (int i = 1; i < lights.length; ++i)
+            expected += 1 / (1 + 0.01 * street.distanceSquared(((PointLight) lights[i]).getPosition()));
+        double estimate = 0;
+        for (int s = 1; s < count; ++s) {
+            PointLight light = (PointLight) lights[selected[s]];
+            estimate += weights[s] / (1 + 0.01 * street.distanceSquared(light.getPosition()));
+        }
+        assertEquals(expected, estimate, expected * 1e-9, "TC02: wrong sampling weights");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no culling selects all the lights in order
+        count = tree.select(street, 0, 0, selected, weights);
+        assertEquals(lights.length, count, "TC11: lights are culled");
+        for (int s = 0; s < count; ++s) assertEquals(s, selected[s], "TC11: wrong light order");
+
+        // TC12: fewer candidates than samples are not sampled
+        count = tree.select(street, 10, 50, selected, weights);
+        for (int s = 0; s < count; ++s) assertEquals(1, weights[s], "TC12: candidates are sampled");
+    }
+}
@@ -0,0 +1,55 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link lighting.PointLight} class.
+ */
+public class PointLightTest {
+
+    /**
+     * Test method for {@link lighting.PointLight#getInfluenceRadius()}.
+     */
+    @Test
+    void testInfluenceRadius() {
+        PointLight light = new PointLight(new Color(100, 50, 20), Point.ZERO).setKq(0.01).setInfluenceThreshold(1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: quadratic attenuation - 100 / (1 + 0.01·d²) = 1 at d = sqrt(9900)
+        assertEquals(Math.sqrt(9900), light.getInfluenceRadius(), 1e-9, "TC01: wrong quadratic radius");
+
+        // TC02: linear attenuation - 100 / (1 + 0.5·d) = 1 at d = 198
+        light.setKq(0).setKl(0.5);
+        assertEquals(198, light.getInfluenceRadius(), 1e-9, "TC02: wrong linear radius");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: no threshold influences the whole scene
+        assertEquals(Double.POSITIVE_INFINITY, light.setInfluenceThreshold(0).getInfluenceRadius(),
+                "TC11: wrong radius without threshold");
+
+        // TC12: no attenuation influences the whole scene
+        assertEquals(Double.POSITIVE_INFINITY, light.setKl(0).setInfluenceThreshold(1).getInfluenceRadius(),
+                "TC12: wrong radius without attenuation");
+
+        // TC13: a light dimmer than the threshold influences nothing
+        assertEquals(0, light.setInfluenceThreshold(200).getInfluenceRadius(), "TC13: wrong radius of a dim light");
+    }
+
+    /**
+     * Test method for {@link lighting.PointLight#influences(Point)}.
+     */
+    @Test
+    void testInfluences() {
+        PointLight light = new PointLight(new Color(100, 100, 100), Point.ZERO).setKq(0.01).setInfluenceThreshold(1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point inside the radius
+        assertTrue(light.influences(new Point(0, 50, 0)), "TC01: near point is not influenced");
+        // TC02: a point outside the radius
+        assertFalse(light.influences(new Point(0, 0, 120)), "TC02: far point is influenced");
+    }
+}
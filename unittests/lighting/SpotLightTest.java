@@ -0,0 +1,38 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link lighting.SpotLight} class.
+ */
+public class SpotLightTest {
+
+    /**
+     * Test method for {@link lighting.SpotLight#influences(Point)}.
+     */
+    @Test
+    void testInfluences() {
+        SpotLight light = new SpotLight(new Color(100, 100, 100), Point.ZERO, new Vector(0, 0, -1))
+                .setKq(0.01).setInfluenceThreshold(1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point in front of the light
+        assertTrue(light.influences(new Point(0, 0, -50)), "TC01: point in the cone is not influenced");
+        // TC02: a point behind the light
+        assertFalse(light.influences(new Point(0, 0, 10)), "TC02: point behind the light is influenced");
+        // TC03: a point in front of the light, dimmed below the threshold by the cone factor
+        assertFalse(light.influences(new Point(90, 0, -5)), "TC03: point at a grazing angle is influenced");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a point beside the light
+        assertFalse(light.influences(new Point(10, 0, 0)), "TC11: point beside the light is influenced");
+        // TC12: without a threshold every point in front of the light is influenced
+        assertTrue(light.setInfluenceThreshold(0).influences(new Point(1000, 0, -1)),
+                "TC12: point in front of the light is not influenced");
+    }
+}
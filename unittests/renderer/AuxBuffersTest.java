@@ -0,0 +1,102 @@
+package renderer;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.AuxBuffers} class.
+ */
+public class AuxBuffersTest {
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setAuxBuffers(boolean)}.
+     */
+    @Test
+    void testAuxBuffers() {
+        Scene scene = new Scene("aux buffers");
+        Sphere left = new Sphere(20, new Point(-25, 0, -100));
+        left.setEmission(new Color(0, 100, 0)).setMaterial(new Material().setKd(0.3));
+        Sphere right = new Sphere(20, new Point(25, 0, -100));
+        right.setMaterial(new Material().setKd(0.6));
+        scene.geometries.add(left, right);
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false)
+                .setImageWriter(new ImageWriter("auxBuffers", 20, 20));
+        Camera camera = builder.setAuxBuffers(true).setMultithreading(2).build().renderImage();
+        AuxBuffers buffers = camera.getAuxBuffers();
+        // pixels near the centers of the spheres
+        int leftPixel = 10 * 20 + 5, rightPixel = 10 * 20 + 15;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the surface of the primary hit is recorded
+        assertEquals(83.3, buffers.getDepth()[leftPixel], 0.1, "TC01: wrong depth");
+        assertTrue(buffers.getNormal()[3 * leftPixel + 2] > 0.9, "TC01: normal does not face the camera");
+        assertEquals(0.3f, buffers.getAlbedo()[3 * leftPixel], 1e-6, "TC01: wrong albedo");
+        assertEquals(0.6f, buffers.getAlbedo()[3 * rightPixel], 1e-6, "TC01: wrong albedo");
+        assertEquals(100, buffers.getEmission()[3 * leftPixel + 1], 1e-6, "TC01: wrong emission");
+        assertEquals(0, buffers.getEmission()[3 * rightPixel + 1], "TC01: wrong emission");
+        assertEquals(100, buffers.getColor()[3 * leftPixel + 1], 1e-4, "TC01: wrong color");
+
+        // TC02: geometries are numbered in the order of their first pixel
+        int[] ids = buffers.getGeometryIds();
+        assertEquals(0, ids[0], "TC02: background has a geometry");
+        assertSame(left, buffers.getGeometry(ids[leftPixel]), "TC02: wrong left geometry");
+        assertSame(right, buffers.getGeometry(ids[rightPixel]), "TC02: wrong right geometry");
+        assertEquals(1, ids[leftPixel], "TC02: wrong left geometry ID");
+        assertEquals(2, ids[rightPixel], "TC02: wrong right geometry ID");
+
+        // TC03: the buffers are written to files
+        buffers.writeToFiles("auxBuffers");
+        File depth = new File(System.getProperty("user.dir") + "/images/auxBuffers-depth.pfm");
+        assertEquals("Pf\n20 20\n-1.0\n".length() + 4 * 20 * 20, depth.length(), "TC03: wrong depth file");
+        File normal = new File(System.getProperty("user.dir") + "/images/auxBuffers-normal.pfm");
+        assertEquals("PF\n20 20\n-1.0\n".length() + 12 * 20 * 20, normal.length(), "TC03: wrong normal file");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the buffers are not recorded by default
+        assertNull(builder.setAuxBuffers(false).build().renderImage().getAuxBuffers(), "TC11: buffers are recorded");
+    }
+
+    /**
+     * Test method for the auxiliary buffers of {@link renderer.BatchRenderer} and {@link renderer.ProgressiveRenderer}.
+     */
+    @Test
+    void testTileRenders() {
+        Scene scene = new Scene("aux tiles");
+        Sphere sphere = new Sphere(30, new Point(0, 0, -100));
+        scene.geometries.add(sphere.setMaterial(new Material().setKd(0.5)));
+        Camera camera = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false)
+                .setAuxBuffers(true)
+                .setImageWriter(new ImageWriter("auxTiles", 20, 20))
+                .build().renderImage();
+        AuxBuffers first = camera.getAuxBuffers();
+        int center = 10 * 20 + 10;
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a tiled render after a full render records new buffers
+        new BatchRenderer().addCameras(camera).setMultithreading(2).setTileSize(8).renderImages();
+        AuxBuffers tiled = camera.getAuxBuffers();
+        assertNotSame(first, tiled, "TC01: buffers of the earlier render are reused");
+        assertEquals(70, tiled.getDepth()[center], 1, "TC01: wrong depth");
+        assertSame(sphere, tiled.getGeometry(tiled.getGeometryIds()[center]), "TC01: wrong geometry");
+
+        // TC02: a progressive render records no buffers
+        new ProgressiveRenderer(camera).setMultithreading(0).render();
+        assertNull(camera.getAuxBuffers(), "TC02: stale buffers are kept");
+    }
+}
@@ -0,0 +1,73 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.BatchRenderer} class.
+ */
+public class BatchRendererTest {
+
+    /**
+     * Test method for {@link renderer.BatchRenderer#renderImages()}.
+     */
+    @Test
+    void testRenderImages() throws IOException {
+        Scene scene = new Scene("batch").setAmbientLight(new AmbientLight(new Color(30, 30, 30), Double3.ONE));
+        Material material = new Material().setKd(0.5).setKs(0.3).setShininess(30);
+        scene.geometries.add(
+                new Sphere(30, new Point(0, 0, 30)).setEmission(new Color(20, 40, 80)).setMaterial(material),
+                new Triangle(new Point(-80, -60, 0), new Point(80, -60, 0), new Point(0, 60, 90))
+                        .setEmission(new Color(60, 20, 20)).setMaterial(material),
+                new Plane(new Point(0, 0, -1), new Vector(0, 0, 1)).setMaterial(material));
+        scene.lights.add(new DirectionalLight(new Color(400, 300, 200), new Vector(1, 1, -2)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, -400, 200))
+                .setDirection(new Vector(0, 2, -1), new Vector(0, 1, 2))
+                .setVpSize(200, 200).setVpDistance(300)
+                .setUseSoftShadows(false);
+        Camera front = builder.setImageWriter(new ImageWriter("batchFront", 50, 50)).build();
+        Camera rolled = builder.rotate(30).setImageWriter(new ImageWriter("batchRolled", 40, 40)).build();
+        builder.setImageWriter(new ImageWriter("singleFront", 50, 50)).rotate(-30).build().renderImage().writeToImage();
+
+        new BatchRenderer().addCameras(front, rolled).setMultithreading(3).setTileSize(8).renderImages().writeToImages();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a batch image equals the image rendered by its camera alone
+        BufferedImage batch = ImageIO.read(ImageWriter.imageFile("batchFront"));
+        BufferedImage single = ImageIO.read(ImageWriter.imageFile("singleFront"));
+        for (int x = 0; x < 50; ++x)
+            for (int y = 0; y < 50; ++y)
+                assertEquals(single.getRGB(x, y), batch.getRGB(x, y), "TC01: wrong pixel " + x + "," + y);
+
+        // TC02: the scene is prepared once for all the cameras
+        assertNotNull(scene.geometries.getBvhStats(), "TC02: scene acceleration must be built");
+
+        // =============== Boundary Values Tests ==================
+        // TC03: an image of a different size is completely rendered
+        BufferedImage other = ImageIO.read(ImageWriter.imageFile("batchRolled"));
+        assertEquals(40, other.getWidth(), "TC03: wrong image size");
+        assertNotEquals(0, other.getRGB(39, 39) & 0xFFFFFF, "TC03: last tile is not rendered");
+
+        // TC04: cameras sampling adaptively or under a time budget are rejected
+        Camera adaptive = builder.setAdaptiveSampling(16, 1).build();
+        assertThrows(IllegalArgumentException.class, () -> new BatchRenderer().addCameras(adaptive).renderImages(),
+                "TC04: adaptive sampling is not supported");
+        Camera budget = builder.setAdaptiveSampling(1, 1).setTimeBudget(100).build();
+        assertThrows(IllegalArgumentException.class, () -> new BatchRenderer().addCameras(budget).renderImages(),
+                "TC04: a time budget is not supported");
+    }
+}
@@ -1,14 +1,20 @@
 package renderer;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 
 import primitives.*;
 import renderer.*;
 import scene.Scene;
+import geometries.Instance;
+import geometries.Sphere;
 //import scene.Scene;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
 
 /**
  * Testing Camera Class
@@ -68,4 +74,117 @@ class CameraTest {
 
     }
 
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setDepthOfField(double, double, int)}.
+     */
+    @Test
+    void testDepthOfField() throws IOException {
+        Scene scene = new Scene("depth of field");
+        scene.geometries.add(
+                new Sphere(50, new Point(0, 0, -500)).setEmission(new Color(0, 200, 0)),
+                new Sphere(300, new Point(400, 0, -3000)).setEmission(new Color(0, 0, 200)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false);
+        builder.setImageWriter(new ImageWriter("pinhole", 40, 40)).build().renderImage().writeToImage();
+        builder.setDepthOfField(20, 500, 64).setSampleTolerance(0.5)
+                .setImageWriter(new ImageWriter("depthOfField", 40, 40)).build().renderImage().writeToImage();
+        BufferedImage pinhole = ImageIO.read(ImageWriter.imageFile("pinhole"));
+        BufferedImage lens = ImageIO.read(ImageWriter.imageFile("depthOfField"));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a pixel in focus is sharp
+        assertEquals(pinhole.getRGB(20, 20), lens.getRGB(20, 20), "TC01: pixel in focus is blurred");
+
+        // TC02: the far edge is blurred
+        int blurred = 0;
+        for (int x = 0; x < 40; ++x)
+            for (int y = 0; y < 40; ++y)
+                if (pinhole.getRGB(x, y) != lens.getRGB(x, y)) ++blurred;
+        assertTrue(blurred > 0, "TC02: far edge is not blurred");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: wrong depth of field parameters
+        assertThrows(IllegalArgumentException.class, () -> builder.setDepthOfField(-1, 500, 4), "TC11: negative aperture");
+        assertThrows(IllegalArgumentException.class, () -> builder.setDepthOfField(1, 0, 4), "TC11: zero focal distance");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setShutter(double, double, int)}.
+     */
+    @Test
+    void testMotionBlur() throws IOException {
+        Scene scene = new Scene("motion blur");
+        scene.geometries.add(new Instance(new Sphere(10, Point.ZERO).setEmission(new Color(0, 200, 0)),
+                Transform.IDENTITY).setMotion(Transform.translation(new Vector(-20, 0, -100)),
+                Transform.translation(new Vector(20, 0, -100))));
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false);
+        builder.setImageWriter(new ImageWriter("shutterStart", 40, 40)).build().renderImage().writeToImage();
+        builder.setShutter(0, 1, 64).setSampleTolerance(0)
+                .setImageWriter(new ImageWriter("motionBlur", 40, 40)).build().renderImage().writeToImage();
+        BufferedImage still = ImageIO.read(ImageWriter.imageFile("shutterStart"));
+        BufferedImage blurred = ImageIO.read(ImageWriter.imageFile("motionBlur"));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the whole path of the sphere is partly covered, and its start is no longer fully covered
+        int green = blurred.getRGB(20, 20) >> 8 & 0xFF;
+        assertTrue(green > 0 && green < 200, "TC01: middle of the path is not blurred");
+        assertEquals(200, still.getRGB(12, 20) >> 8 & 0xFF, "TC01: wrong sphere at the shutter opening");
+        assertTrue((blurred.getRGB(12, 20) >> 8 & 0xFF) < 200, "TC01: start of the path is not blurred");
+
+        // TC02: rows away from the path are not affected
+        assertEquals(still.getRGB(20, 2), blurred.getRGB(20, 2), "TC02: background is blurred");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: wrong shutter intervals
+        assertThrows(IllegalArgumentException.class, () -> builder.setShutter(0.5, 0.4, 4), "TC11: inverted shutter");
+        assertThrows(IllegalArgumentException.class, () -> builder.setShutter(0, 1.5, 4), "TC11: shutter past the motion");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setAdaptiveSampling(int, double)}
+     * and {@link renderer.Camera.Builder#setTimeBudget(long)}.
+     */
+    @Test
+    void testAdaptiveSampling() {
+        Scene scene = new Scene("adaptive sampling");
+        scene.geometries.add(new Sphere(30, new Point(0, 0, -100)).setEmission(new Color(0, 200, 0)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false)
+                .setImageWriter(new ImageWriter("adaptiveSampling", 20, 20));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: flat pixels converge after two rounds and pixels on the edge of the sphere take more samples
+        int[] counts = builder.setAdaptiveSampling(64, 1).build().renderImage().getSampleCounts();
+        assertEquals(5, counts[0], "TC01: wrong samples of a background pixel");
+        assertEquals(5, counts[10 * 20 + 10], "TC01: wrong samples of a sphere pixel");
+        int edge = 0;
+        for (int count : counts) edge = Math.max(edge, count);
+        assertTrue(edge > 5, "TC01: edge pixels did not take more samples");
+
+        // TC02: the render stops at the time budget with a complete image
+        long start = System.currentTimeMillis();
+        Camera camera = builder.setAdaptiveSampling(Integer.MAX_VALUE, 0).setTimeBudget(200).setMultithreading(2)
+                .build().renderImage();
+        assertTrue(System.currentTimeMillis() - start < 5000, "TC02: time budget is not kept");
+        for (int count : camera.getSampleCounts()) assertTrue(count >= 1, "TC02: a pixel has no sample");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: wrong parameters
+        assertThrows(IllegalArgumentException.class, () -> builder.setAdaptiveSampling(0, 1), "TC11: zero samples");
+        assertThrows(IllegalArgumentException.class, () -> builder.setTimeBudget(-1), "TC11: negative budget");
+    }
 }
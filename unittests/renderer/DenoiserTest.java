@@ -0,0 +1,123 @@
+package renderer;
+
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.Denoiser} class.
+ */
+public class DenoiserTest {
+    /** Resolution of the test buffers */
+    private static final int N = 32;
+
+    /**
+     * Fills the surface of a pixel of test buffers.
+     */
+    private static void surface(AuxBuffers buffers, int pixel, double nx, double ny, double nz, double depth) {
+        buffers.normal[3 * pixel] = (float) nx;
+        buffers.normal[3 * pixel + 1] = (float) ny;
+        buffers.normal[3 * pixel + 2] = (float) nz;
+        buffers.depth[pixel] = (float) depth;
+        for (int c = 0; c < 3; ++c) buffers.albedo[3 * pixel + c] = 0.5f;
+    }
+
+    /**
+     * Calculates the standard deviation of the red component of a color buffer.
+     */
+    private static double deviation(float[] color) {
+        double sum = 0, squares = 0;
+        for (int pixel = 0; pixel < N * N; ++pixel) {
+            sum += color[3 * pixel];
+            squares += color[3 * pixel] * color[3 * pixel];
+        }
+        double mean = sum / (N * N);
+        return Math.sqrt(squares / (N * N) - mean * mean);
+    }
+
+    /**
+     * Test method for {@link renderer.Denoiser#denoise(AuxBuffers)}.
+     */
+    @Test
+    void testDenoise() {
+        Random random = new Random(7);
+        Denoiser denoiser = new Denoiser().setMultithreading(2).setTileSize(8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the noise of a flat surface is smoothed
+        AuxBuffers flat = new AuxBuffers(N, N);
+        for (int pixel = 0; pixel < N * N; ++pixel) {
+            surface(flat, pixel, 0, 0, 1, 10);
+            for (int c = 0; c < 3; ++c) flat.color[3 * pixel + c] = (float) (100 + random.nextGaussian() * 20);
+        }
+        float[] smooth = denoiser.denoise(flat);
+        assertTrue(deviation(smooth) < deviation(flat.color) / 4, "TC01: noise is not smoothed");
+
+        // TC02: an edge between surfaces of different normals is kept
+        AuxBuffers edge = new AuxBuffers(N, N);
+        for (int pixel = 0; pixel < N * N; ++pixel) {
+            boolean left = pixel % N < N / 2;
+            surface(edge, pixel, left ? 0 : 1, 0, left ? 1 : 0, 10);
+            for (int c = 0; c < 3; ++c) edge.color[3 * pixel + c] = left ? 50 : 200;
+        }
+        float[] kept = denoiser.denoise(edge);
+        int row = N / 2 * N;
+        assertEquals(50, kept[3 * (row + N / 2 - 1)], 1, "TC02: left side of the edge is blurred");
+        assertEquals(200, kept[3 * (row + N / 2)], 1, "TC02: right side of the edge is blurred");
+
+        // TC03: the buffers are not changed
+        assertEquals(50, edge.color[3 * (row + N / 2 - 1)], "TC03: the color buffer is changed");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: the background is not mixed with a surface of the same color distance
+        AuxBuffers background = new AuxBuffers(N, N);
+        for (int pixel = 0; pixel < N * N; ++pixel) {
+            boolean hit = pixel % N >= N / 2;
+            if (hit) surface(background, pixel, 0, 0, 1, 10);
+            for (int c = 0; c < 3; ++c) background.color[3 * pixel + c] = hit ? 110 : 100;
+        }
+        float[] separated = new Denoiser().setMultithreading(0).setIterations(1).denoise(background);
+        assertEquals(100, separated[3 * (row + N / 2 - 1)], 1e-4, "TC11: background is mixed with a surface");
+
+        // TC12: wrong parameters
+        assertThrows(IllegalArgumentException.class, () -> denoiser.setIterations(0), "TC12: zero iterations");
+        assertThrows(IllegalArgumentException.class, () -> denoiser.setSigmas(1, 0, 1, 1), "TC12: zero tolerance");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setDenoiser(Denoiser)}.
+     */
+    @Test
+    void testCameraDenoiser() {
+        Scene scene = new Scene("denoiser");
+        scene.geometries.add(new Sphere(30, new Point(0, 0, -100)).setEmission(new Color(0, 200, 0))
+                .setMaterial(new Material().setKd(0.4)));
+        Camera camera = Camera.getBuilder()
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(100)
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setUseSoftShadows(false)
+                .setDenoiser(new Denoiser().setMultithreading(0))
+                .setImageWriter(new ImageWriter("denoised", 20, 20))
+                .build().renderImage();
+        AuxBuffers buffers = camera.getAuxBuffers();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the surface seen by a pixel is recorded
+        int center = 10 * 20 + 10;
+        assertEquals(70, buffers.getDepth()[center], 1, "TC01: wrong depth");
+        assertTrue(buffers.getNormal()[3 * center + 2] > 0.9, "TC01: normal does not face the camera");
+        assertEquals(0.4f, buffers.getAlbedo()[3 * center], 1e-6, "TC01: wrong albedo");
+        assertEquals(200, buffers.getColor()[3 * center + 1], 1e-4, "TC01: wrong color");
+
+        // TC02: a pixel seeing the background has no surface
+        assertEquals(Float.POSITIVE_INFINITY, buffers.getDepth()[0], "TC02: background has a depth");
+        assertEquals(0, buffers.getNormal()[0], "TC02: background has a normal");
+    }
+}
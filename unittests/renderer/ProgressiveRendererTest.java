@@ -0,0 +1,103 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.ProgressiveRenderer} class.
+ */
+public class ProgressiveRendererTest {
+
+    /**
+     * Copies the pixels of an image writer.
+     */
+    private static int[] pixels(ImageWriter imageWriter, String name) throws IOException {
+        imageWriter.writeToImage();
+        BufferedImage image = ImageIO.read(ImageWriter.imageFile(name));
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Test method for {@link renderer.ProgressiveRenderer#render()}.
+     */
+    @Test
+    void testRender() throws IOException {
+        Scene scene = new Scene("progressive").setAmbientLight(new AmbientLight(new Color(30, 30, 30), Double3.ONE));
+        Material material = new Material().setKd(0.5).setKs(0.3).setShininess(30);
+        scene.geometries.add(
+                new Sphere(30, new Point(0, 0, 30)).setEmission(new Color(20, 40, 80)).setMaterial(material),
+                new Plane(new Point(0, 0, -1), new Vector(0, 0, 1)).setMaterial(material));
+        scene.lights.add(new DirectionalLight(new Color(400, 300, 200), new Vector(1, 1, -2)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, -400, 200))
+                .setDirection(new Vector(0, 2, -1), new Vector(0, 1, 2))
+                .setVpSize(200, 200).setVpDistance(300)
+                .setUseSoftShadows(false);
+        builder.setImageWriter(new ImageWriter("progressiveSingle", 30, 30)).build().renderImage().writeToImage();
+
+        List<int[]> passes = new ArrayList<>();
+        new ProgressiveRenderer(builder.setImageWriter(new ImageWriter("progressivePreview", 30, 30)).build())
+                .setBlockSize(4).setMultithreading(2).setTileSize(8)
+                .setCallback((imageWriter, pass) -> {
+                    try {
+                        passes.add(pixels(imageWriter, "progressivePreview"));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .render();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the block size is halved in every pass until every pixel is traced
+        assertEquals(3, passes.size(), "TC01: wrong amount of passes");
+
+        // TC02: the first pass fills each block with the color of its corner pixel
+        int[] coarse = passes.getFirst();
+        for (int y = 0; y < 30; ++y)
+            for (int x = 0; x < 30; ++x)
+                assertEquals(coarse[(y - y % 4) * 30 + x - x % 4], coarse[y * 30 + x], "TC02: wrong pixel " + x + "," + y);
+
+        // TC03: the last coarse pass is the image rendered by the camera
+        BufferedImage single = ImageIO.read(ImageWriter.imageFile("progressiveSingle"));
+        int[] last = passes.getLast();
+        for (int y = 0; y < 30; ++y)
+            for (int x = 0; x < 30; ++x)
+                assertEquals(single.getRGB(x, y), last[y * 30 + x], "TC03: wrong pixel " + x + "," + y);
+
+        // TC04: refinement passes are added for the samples and the file is written
+        int[] count = {0};
+        new ProgressiveRenderer(builder.setImageWriter(new ImageWriter("progressiveRefined", 30, 30)).build())
+                .setBlockSize(2).setSamples(3).setMultithreading(0).setFlushInterval(1)
+                .setCallback((imageWriter, pass) -> assertEquals(count[0]++, pass, "TC04: wrong pass number"))
+                .render();
+        assertEquals(4, count[0], "TC04: wrong amount of passes");
+        assertEquals(30, ImageIO.read(ImageWriter.imageFile("progressiveRefined")).getWidth(),
+                "TC04: image file is not written");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a block of one pixel renders the image in a single pass
+        count[0] = 0;
+        new ProgressiveRenderer(builder.setImageWriter(new ImageWriter("progressiveSingle", 30, 30)).build())
+                .setBlockSize(1).setMultithreading(0).setCallback((imageWriter, pass) -> ++count[0]).render();
+        assertEquals(1, count[0], "TC11: wrong amount of passes");
+
+        // TC12: wrong parameters
+        ProgressiveRenderer renderer = new ProgressiveRenderer(builder.build());
+        assertThrows(IllegalArgumentException.class, () -> renderer.setBlockSize(0), "TC12: zero block size");
+        assertThrows(IllegalArgumentException.class, () -> renderer.setSamples(0), "TC12: zero samples");
+    }
+}
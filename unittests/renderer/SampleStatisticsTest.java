@@ -0,0 +1,42 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+import primitives.Double3;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.SampleStatistics} class.
+ */
+public class SampleStatisticsTest {
+
+    /**
+     * Test method for {@link renderer.SampleStatistics#converged(double)}.
+     */
+    @Test
+    void testConverged() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the mean of the samples is kept accurately around a large offset
+        SampleStatistics statistics = new SampleStatistics();
+        for (int i = 0; i < 1000; ++i) statistics.add(new Double3(1e8 + i % 2, 5, 1e8 + i % 2));
+        assertEquals(1000, statistics.getCount(), "TC01: wrong amount of samples");
+        assertEquals(new Color(1e8 + 0.5, 5, 1e8 + 0.5).getRgb(), statistics.getMean().getRgb(), "TC01: wrong mean");
+
+        // TC02: the standard error of the mean is compared with the tolerance
+        // (the sample deviation is about 0.5, so the standard error is about 0.016)
+        assertTrue(statistics.converged(0.02), "TC02: the mean converged");
+        assertFalse(statistics.converged(0.01), "TC02: the mean did not converge");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: less than a batch of equal samples did not converge
+        SampleStatistics few = new SampleStatistics();
+        for (int i = 1; i < SampleStatistics.BATCH; ++i) few.add(Double3.ONE);
+        assertFalse(few.converged(1), "TC11: too few samples");
+        few.add(Double3.ONE);
+        assertTrue(few.converged(1), "TC11: a batch of equal samples converged");
+
+        // TC12: a zero tolerance is never met
+        assertFalse(few.converged(0), "TC12: zero tolerance");
+    }
+}
@@ -0,0 +1,58 @@
+package renderer;
+
+import geometries.Instance;
+import geometries.Sphere;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.SequenceRenderer} class.
+ */
+public class SequenceRendererTest {
+
+    /**
+     * Test method for {@link renderer.SequenceRenderer#render()}.
+     */
+    @Test
+    void testRender() throws IOException {
+        Scene scene = new Scene("sequence");
+        Instance ball = new Instance(new Sphere(20, Point.ZERO).setEmission(new Color(0, 0, 255)), Transform.IDENTITY);
+        scene.geometries.add(ball);
+        Camera.Builder camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, 0, 1000))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(100, 100).setVpDistance(1000);
+
+        new SequenceRenderer(scene)
+                .setCameraPath(camera, builder -> builder.rotate(90))
+                .addChange(2, s -> ball.setTransform(Transform.translation(new Vector(40, 0, 0))))
+                .setFrames("sequenceTest", 3, 40, 40)
+                .setMultithreading(2)
+                .setTileSize(7)
+                .render();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the ball is in the middle of the first frames, the camera roll does not move it
+        assertEquals(255, ImageIO.read(ImageWriter.imageFile("sequenceTest0000")).getRGB(20, 20) & 0xFF,
+                "TC01: ball is missing");
+        assertEquals(255, ImageIO.read(ImageWriter.imageFile("sequenceTest0001")).getRGB(20, 20) & 0xFF,
+                "TC01: ball is missing");
+
+        // TC02: the ball moved out of the middle of the last frame, and the refitted acceleration finds it
+        BufferedImage last = ImageIO.read(ImageWriter.imageFile("sequenceTest0002"));
+        assertEquals(0, last.getRGB(20, 20) & 0xFF, "TC02: ball did not move");
+        int blue = 0;
+        for (int x = 0; x < 40; ++x)
+            for (int y = 0; y < 40; ++y)
+                if ((last.getRGB(x, y) & 0xFF) == 255) ++blue;
+        assertTrue(blue > 0, "TC02: moved ball is missing");
+    }
+}
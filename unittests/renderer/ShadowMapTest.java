@@ -0,0 +1,96 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.DirectionalLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.ShadowMap} class.
+ */
+public class ShadowMapTest {
+
+    /**
+     * Test method for {@link renderer.ShadowMap#lookup(Point)}.
+     */
+    @Test
+    void testLookup() {
+        Scene scene = new Scene("shadow map");
+        scene.geometries.add(
+                new Triangle(new Point(-100, -100, 0), new Point(100, -100, 0), new Point(0, 100, 0)),
+                new Sphere(10, new Point(0, 0, 30)),
+                new Sphere(10, new Point(0, -60, 30)).setMaterial(new Material().setKt(0.5)));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        ShadowMap map = ShadowMap.render(scene.compile(), 200)[0];
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a point far from the occluders is lit
+        assertEquals(Double3.ONE, map.lookup(new Point(0, 50, 0)), "TC01: wrong lit point");
+        // TC02: a point under the opaque sphere is in full shadow
+        assertEquals(Double3.ZERO, map.lookup(new Point(0, 0, 0)), "TC02: wrong shadowed point");
+        // TC03: a point under the transparent sphere is traced
+        assertNull(map.lookup(new Point(0, -60, 0)), "TC03: transparent occluder is not traced");
+        // TC04: the top of the sphere is lit
+        assertEquals(Double3.ONE, map.lookup(new Point(0, 0, 40)), "TC04: wrong lit occluder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a point at the shadow edge is traced
+        assertNull(map.lookup(new Point(10, 0, 0)), "TC11: shadow edge is not traced");
+        // TC12: a point outside the map is traced
+        assertNull(map.lookup(new Point(500, 0, 0)), "TC12: point outside the map is not traced");
+
+        // TC13: a receiver near the edge of a low occluder is not lit
+        Scene contact = new Scene("contact shadow");
+        contact.geometries.add(
+                new Triangle(new Point(-100, -100, 0), new Point(100, -100, 0), new Point(0, 100, 0)),
+                new Triangle(new Point(-100, -100, 0.5), new Point(0, -100, 0.5), new Point(0, 100, 0.5)),
+                new Triangle(new Point(-100, -100, 0.5), new Point(0, 100, 0.5), new Point(-100, 100, 0.5)));
+        contact.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        ShadowMap plate = ShadowMap.render(contact.compile(), 200)[0];
+        for (double x : new double[]{-1, -0.5, -0.1})
+            assertNotEquals(Double3.ONE, plate.lookup(new Point(x, 0, 0)), "TC13: light leaks under the plate at " + x);
+        assertEquals(Double3.ZERO, plate.lookup(new Point(-10, 0, 0)), "TC13: wrong shadowed point");
+        assertEquals(Double3.ONE, plate.lookup(new Point(10, 0, 0)), "TC13: wrong lit point");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setShadowMapResolution(int)}.
+     */
+    @Test
+    void testRender() throws IOException {
+        Scene scene = new Scene("shadow map render");
+        Material material = new Material().setKd(0.5).setKs(0.3).setShininess(30);
+        scene.geometries.add(
+                new Triangle(new Point(-100, -100, 0), new Point(100, -100, 0), new Point(0, 100, 0))
+                        .setEmission(new Color(20, 20, 20)).setMaterial(material),
+                new Sphere(15, new Point(0, 0, 30)).setEmission(new Color(40, 20, 20)).setMaterial(material));
+        scene.lights.add(new DirectionalLight(new Color(300, 300, 300), new Vector(1, 1, -3)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(new Point(0, -300, 200))
+                .setDirection(new Vector(0, 3, -2), new Vector(0, 2, 3))
+                .setVpSize(200, 200).setVpDistance(300)
+                .setUseSoftShadows(false);
+        Camera traced = builder.setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("shadowMapTraced", 60, 60)).build();
+        Camera mapped = builder.setRayTracer(new SimpleRayTracer(scene).setShadowMapResolution(256))
+                .setImageWriter(new ImageWriter("shadowMapMapped", 60, 60)).build();
+        traced.renderImage().writeToImage();
+        mapped.renderImage().writeToImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the image with the shadow map equals the traced image
+        BufferedImage expected = ImageIO.read(ImageWriter.imageFile("shadowMapTraced"));
+        BufferedImage actual = ImageIO.read(ImageWriter.imageFile("shadowMapMapped"));
+        for (int x = 0; x < 60; ++x)
+            for (int y = 0; y < 60; ++y)
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "TC01: wrong pixel " + x + "," + y);
+    }
+}
@@ -0,0 +1,144 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.SimpleRayTracer} class.
+ */
+public class SimpleRayTracerTest {
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setIterative(boolean)}.
+     */
+    @Test
+    void testIterative() {
+        Scene scene = new Scene("iterative").setAmbientLight(new AmbientLight(new Color(20, 20, 20), 0.1));
+        scene.geometries.add(
+                new Sphere(400, new Point(-950, -900, -1000)).setEmission(new Color(0, 50, 100))
+                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20).setKt(0.5)),
+                new Sphere(200, new Point(-950, -900, -1000)).setEmission(new Color(100, 50, 20))
+                        .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500), new Point(670, 670, 3000))
+                        .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKr(0.7)),
+                new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500), new Point(-1500, -1500, -2000))
+                        .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKr(new Double3(0.5, 0, 0.4))));
+        scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4))
+                .setKl(0.00001).setKq(0.000005));
+        SimpleRayTracer recursive = new SimpleRayTracer(scene);
+        SimpleRayTracer iterative = new SimpleRayTracer(scene).setIterative(true);
+        Point camera = new Point(0, 0, 10000);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: both evaluations of reflected and refracted ray trees give the same colors
+        for (int i = -10; i <= 10; ++i)
+            for (int j = -10; j <= 10; ++j) {
+                Ray ray = new Ray(camera, new Point(i * 120, j * 120, -1000).subtract(camera));
+                Double3 expected = recursive.traceRay(ray, false).getRgb();
+                Double3 actual = iterative.traceRay(ray, false).getRgb();
+                assertEquals(expected.getD1(), actual.getD1(), 1e-9, "TC01: wrong red at " + i + "," + j);
+                assertEquals(expected.getD2(), actual.getD2(), 1e-9, "TC01: wrong green at " + i + "," + j);
+                assertEquals(expected.getD3(), actual.getD3(), 1e-9, "TC01: wrong blue at " + i + "," + j);
+            }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single recursion level and a ray budget are applied the same way
+        TerminationPolicy policy = new TerminationPolicy().setMaxLevel(3).setRayBudget(2);
+        recursive.setTerminationPolicy(policy);
+        iterative.setTerminationPolicy(policy);
+        for (int i = -10; i <= 10; ++i) {
+            Ray ray = new Ray(camera, new Point(i * 120, -i * 60, -1000).subtract(camera));
+            assertEquals(recursive.traceRay(ray, false).getRgb(), iterative.traceRay(ray, false).getRgb(),
+                    "TC11: wrong color at " + i);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setGlossySampling(int, double)}.
+     */
+    @Test
+    void testGlossy() {
+        Scene scene = new Scene("glossy");
+        Material floor = new Material().setKr(1.0);
+        scene.geometries.add(
+                new Triangle(new Point(-1000, -1000, 0), new Point(1000, -1000, 0), new Point(0, 1000, 0))
+                        .setMaterial(floor),
+                new Sphere(10, new Point(0, 0, 50)).setEmission(new Color(200, 0, 0)));
+        // the mirror reflection of the ray passes beside the sphere
+        Ray ray = new Ray(new Point(13, 0, 100), new Vector(0, 0, -1));
+        SimpleRayTracer tracer = new SimpleRayTracer(scene).setGlossySampling(64, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a perfect mirror does not reflect the sphere
+        assertEquals(0, tracer.traceRay(ray, false).getRgb().getD1(), 1e-9, "TC01: mirror reflects the sphere");
+
+        // TC02: a rough mirror reflects a blurred sphere
+        floor.setRoughness(0.3);
+        tracer.compileScene();
+        assertTrue(tracer.traceRay(ray, false).getRgb().getD1() > 0, "TC02: rough mirror does not blur");
+
+        // TC03: the iterative evaluation samples the cones as well
+        assertTrue(new SimpleRayTracer(scene).setGlossySampling(64, 0).setIterative(true).traceRay(ray, false).getRgb().getD1() > 0,
+                "TC03: iterative evaluation does not blur");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single sample traces only the ideal ray
+        assertEquals(0, tracer.setGlossySampling(1, 0).traceRay(ray, false).getRgb().getD1(), 1e-9,
+                "TC11: single sample is not the ideal ray");
+    }
+
+    /**
+     * Test method for the occluder cache of {@link renderer.SimpleRayTracer}.
+     */
+    @Test
+    void testOccluderCache() {
+        Scene scene = new Scene("occluder cache");
+        Material glass = new Material().setKt(0.5);
+        scene.geometries.add(
+                new Triangle(new Point(-1000, -1000, 0), new Point(1000, -1000, 0), new Point(0, 1000, 0))
+                        .setMaterial(new Material().setKd(0.5)),
+                new Sphere(5, new Point(-20, 0, 50)),
+                new Sphere(5, new Point(20, 0, 50)),
+                new Sphere(5, new Point(0, 20, 50)).setMaterial(glass));
+        scene.lights.add(new PointLight(new Color(200, 200, 200), new Point(0, 0, 100)));
+        // floor points shadowed by the first sphere (twice - the second time by the cached occluder),
+        // by the second sphere (the cached occluder misses), lit (the cached occluder misses and nothing
+        // else blocks), behind the glass sphere, and by the first sphere again
+        double[][] points = {{-40, 0}, {-40.5, 0.5}, {40, 0}, {0, -40}, {0, 40}, {-40, 0}};
+        SimpleRayTracer warm = new SimpleRayTracer(scene);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the cached occluders give the same shadows as a full search
+        Color[] colors = new Color[points.length];
+        for (int i = 0; i < points.length; ++i) {
+            Ray ray = new Ray(new Point(points[i][0], points[i][1], 200), new Vector(0, 0, -1));
+            colors[i] = warm.traceRay(ray, false);
+            Color cold = new SimpleRayTracer(scene).traceRay(ray, false);
+            assertEquals(cold.getRgb(), colors[i].getRgb(), "TC01: wrong shadow at point " + i);
+        }
+        assertEquals(Double3.ZERO, colors[1].getRgb(), "TC01: point is not shadowed by the cached occluder");
+        assertEquals(Double3.ZERO, colors[2].getRgb(), "TC01: point is not shadowed by another occluder");
+        assertTrue(colors[3].getRgb().getD1() > 0, "TC01: lit point is shadowed by the cached occluder");
+        assertTrue(colors[4].getRgb().getD1() > 0 && colors[4].getRgb().getD1() < colors[3].getRgb().getD1(),
+                "TC01: wrong shadow of a transparent occluder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: compiling the scene again drops the cache - a cached occluder may not be opaque anymore
+        Sphere blocker = new Sphere(5, new Point(0, -20, 50));
+        scene.geometries.add(blocker);
+        Ray ray = new Ray(new Point(0, -40, 200), new Vector(0, 0, -1));
+        warm.compileScene();
+        assertEquals(Double3.ZERO, warm.traceRay(ray, false).getRgb(), "TC11: point is not shadowed");
+        blocker.setMaterial(new Material().setKt(1.0));
+        warm.compileScene();
+        assertEquals(colors[3].getRgb(), warm.traceRay(ray, false).getRgb(), "TC11: stale occluder is used");
+    }
+}
@@ -0,0 +1,70 @@
+package renderer;
+
+import geometries.Triangle;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link renderer.TerminationPolicy} class.
+ */
+public class TerminationPolicyTest {
+
+    /**
+     * Sums the red component of the colors traced along a fan of rays bouncing between two mirrors.
+     *
+     * @param tracer the ray tracer
+     * @param trials amount of times each ray is traced
+     * @return the mean sum
+     */
+    private static double trace(SimpleRayTracer tracer, int trials) {
+        double sum = 0;
+        for (int trial = 0; trial < trials; ++trial)
+            for (int i = 0; i < 50; ++i) {
+                double angle = i * 2 * Math.PI / 50;
+                Ray ray = new Ray(new Point(0, 0, 5), new Vector(Math.cos(angle), Math.sin(angle), 1));
+                sum += tracer.traceRay(ray, false).getRgb().getD1();
+            }
+        return sum / trials;
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setTerminationPolicy(TerminationPolicy)}.
+     */
+    @Test
+    void testTermination() {
+        Scene scene = new Scene("mirrors");
+        Material mirror = new Material().setKr(0.8);
+        scene.geometries.add(
+                new Triangle(new Point(-1000, -1000, 0), new Point(1000, -1000, 0), new Point(0, 1000, 0))
+                        .setEmission(new Color(10, 0, 0)).setMaterial(mirror),
+                new Triangle(new Point(-1000, -1000, 10), new Point(0, 1000, 10), new Point(1000, -1000, 10))
+                        .setEmission(new Color(10, 0, 0)).setMaterial(mirror));
+        double full = trace(new SimpleRayTracer(scene), 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Russian roulette keeps the expected color
+        double roulette = trace(new SimpleRayTracer(scene)
+                .setTerminationPolicy(new TerminationPolicy().setRoulette(0.6)), 40);
+        assertEquals(full, roulette, full * 0.03, "TC01: roulette changes the expected color");
+
+        // TC02: a ray budget cuts the ray tree
+        double budget = trace(new SimpleRayTracer(scene)
+                .setTerminationPolicy(new TerminationPolicy().setRayBudget(3)), 1);
+        assertTrue(budget < full, "TC02: ray budget is not applied");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single recursion level traces no secondary rays
+        double local = trace(new SimpleRayTracer(scene)
+                .setTerminationPolicy(new TerminationPolicy().setMaxLevel(1)), 1);
+        assertEquals(50 * 10, local, 1e-9, "TC11: secondary rays are traced");
+
+        // TC12: wrong policy values
+        assertThrows(IllegalArgumentException.class, () -> new TerminationPolicy().setMaxLevel(0),
+                "TC12: zero recursion level");
+        assertThrows(IllegalArgumentException.class, () -> new TerminationPolicy().setRoulette(2),
+                "TC12: roulette attenuation above 1");
+    }
+}
@@ -0,0 +1,77 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link scene.CompiledScene} class.
+ */
+public class CompiledSceneTest {
+
+    /**
+     * Test method for {@link scene.Scene#compile()}.
+     */
+    @Test
+    void testCompile() {
+        Scene scene = new Scene("compiled").setBackground(new Color(1, 2, 3))
+                .setAmbientLight(new AmbientLight(new Color(10, 10, 10), 0.5));
+        Material shiny = new Material().setKd(0.5).setKs(0.5).setShininess(20);
+        Sphere sphere = new Sphere(1, new Point(0, 0, -5));
+        sphere.setMaterial(shiny);
+        Triangle triangle = new Triangle(new Point(-1, -1, -10), new Point(1, -1, -10), new Point(0, 1, -10));
+        triangle.setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(20)).setEmission(new Color(5, 0, 0));
+        Mesh mesh = new Mesh(new double[]{-1, -1, -20, 1, -1, -20, 0, 1, -20}, new int[]{0, 1, 2});
+        mesh.setMaterial(new Material().setKt(0.7));
+        scene.geometries.add(sphere, triangle, new Instance(mesh, Transform.IDENTITY),
+                new Plane(new Point(0, 0, -30), new Vector(0, 0, 1)));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1)));
+        CompiledScene compiled = scene.compile();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: equal materials are interned into one table entry
+        assertEquals(3, compiled.getMaterialCount(), "TC01: wrong material table size");
+        assertSame(compiled.getMaterial(sphere), compiled.getMaterial(triangle), "TC01: materials are not interned");
+
+        // TC02: the acceleration structure is built over the bounded geometries
+        assertEquals(3, compiled.getGeometries().getBvhStats().primitives(), "TC02: acceleration is not built");
+
+        // TC03: materials, emissions and lights of intersection views are resolved through their owners
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, 0, -1));
+        Intersectable.GeoPoint face = scene.geometries.findGeoIntersections(ray).stream()
+                .filter(gp -> gp.point.getZ() == -20).findFirst().orElseThrow();
+        assertEquals(new Double3(0.7), compiled.getMaterial(face.geometry).kT, "TC03: wrong face material");
+        assertEquals(new Double3(5, 0, 0), compiled.getEmission(triangle).getRgb(), "TC03: wrong emission");
+        assertEquals(1, compiled.getLightCount(), "TC03: wrong amount of lights");
+
+        // TC04: later changes of the scene do not affect the snapshot
+        shiny.kD = new Double3(0.9);
+        sphere.setMaterial(new Material());
+        scene.lights.clear();
+        scene.setBackground(Color.BLACK);
+        assertEquals(new Double3(0.5), compiled.getMaterial(sphere).kD, "TC04: material is not frozen");
+        assertEquals(1, compiled.getLightCount(), "TC04: lights are not frozen");
+        assertEquals(new Double3(1, 2, 3), compiled.getBackground().getRgb(), "TC04: background is not frozen");
+        assertEquals(new Double3(5, 5, 5), compiled.getAmbientIntensity().getRgb(), "TC04: wrong ambient light");
+
+        // =============== Boundary Values Tests ==================
+        // TC05: a geometry added after the compilation has its own material
+        Sphere added = new Sphere(1, Point.ZERO);
+        added.setMaterial(new Material().setKr(0.3));
+        assertEquals(new Double3(0.3), compiled.getMaterial(added).kR, "TC05: wrong material of a new geometry");
+
+        // TC06: a geometry added to a nested collection after a compilation is found by the next one
+        Geometries nested = new Geometries(new Sphere(1, new Point(50, 0, 0)));
+        scene.geometries.add(nested);
+        scene.compile();
+        nested.add(new Sphere(1, new Point(-50, 0, 0)));
+        Intersectable.GeoPoint hit = scene.compile().getGeometries()
+                .findClosestGeoIntersection(new Ray(new Point(-50, 0, 10), new Vector(0, 0, -1)));
+        assertNotNull(hit, "TC06: nested addition is not accelerated");
+        assertEquals(new Point(-50, 0, 1), hit.point, "TC06: wrong nested intersection");
+    }
+}
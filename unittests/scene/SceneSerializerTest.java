@@ -0,0 +1,165 @@
+package scene;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.DirectionalLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link scene.SceneSerializer} class.
+ */
+public class SceneSerializerTest {
+
+    /**
+     * Test method for {@link scene.SceneSerializer#save(Scene, Path)} and {@link scene.SceneSerializer#load(Path)}.
+     */
+    @Test
+    void testSaveLoad() throws IOException {
+        Material material = new Material().setKd(0.5).setKs(0.5).setShininess(60);
+        Scene scene = new Scene("serialized scene")
+                .setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene.geometries.add(
+                new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0))
+                        .setMaterial(material).setEmission(new Color(100, 0, 0)),
+                new Triangle(new Point(1, 0, 0), new Point(1, 1, 0), new Point(0, 1, 0))
+                        .setMaterial(material).setEmission(new Color(100, 0, 0)),
+                new Sphere(1, new Point(5, 5, 5)).setMaterial(new Material().setKt(0.3)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)),
+                new Geometries(new Sphere(2, new Point(-5, -5, -5))));
+        scene.lights.add(new DirectionalLight(new Color(50, 50, 50), new Vector(1, 1, -1)));
+        scene.lights.add(new SpotLight(new Color(500, 300, 0), new Point(0, 0, 10), new Vector(0, 0, -1))
+                .setKl(0.001).setKq(0.0001));
+
+        Path file = Files.createTempFile("scene", ".bin");
+        try {
+            SceneSerializer.save(scene, file);
+            Scene loaded = SceneSerializer.load(file);
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: scene attributes are preserved
+            assertEquals(scene.name, loaded.name, "TC01: wrong scene name");
+            assertEquals(scene.background.getRgb(), loaded.background.getRgb(), "TC01: wrong background");
+            assertEquals(scene.ambientLight.getIntensity().getRgb(), loaded.ambientLight.getIntensity().getRgb(),
+                    "TC01: wrong ambient light");
+            assertEquals(2, loaded.lights.size(), "TC01: wrong amount of lights");
+            assertInstanceOf(SpotLight.class, loaded.lights.get(1), "TC01: wrong light type");
+            assertEquals(0.0001, ((SpotLight) loaded.lights.get(1)).getKq(), 1e-12, "TC01: wrong attenuation");
+
+            // TC02: consecutive triangles of the same material are merged into a single mesh
+            List<Intersectable> children = loaded.geometries.getGeometries();
+            assertEquals(4, children.size(), "TC02: wrong amount of geometries");
+            Mesh mesh = assertInstanceOf(Mesh.class, children.get(0), "TC02: triangles are not merged");
+            assertEquals(2, mesh.getTriangleCount(), "TC02: wrong amount of triangles");
+            assertEquals(4, mesh.getVertexCount(), "TC02: shared vertices are not merged");
+            assertEquals(0.5, mesh.getMaterial().kD.getD1(), 1e-12, "TC02: wrong mesh material");
+
+            // TC03: the loaded geometries are intersected as the original ones
+            Ray[] rays = {
+                    new Ray(new Point(0.25, 0.25, 1), new Vector(0, 0, -1)),
+                    new Ray(new Point(0.75, 0.75, 1), new Vector(0, 0, -1)),
+                    new Ray(new Point(0, 0, 0.5), new Vector(1, 1, 1)),
+                    new Ray(new Point(0, 0, 0.5), new Vector(-1, -1, -1))};
+            for (Ray ray : rays)
+                assertEquals(scene.geometries.findIntersections(ray).size(),
+                        loaded.geometries.findIntersections(ray).size(), "TC03: wrong intersections for " + ray);
+
+            // =============== Boundary Values Tests ==================
+            // TC04: an empty scene
+            SceneSerializer.save(new Scene("empty"), file);
+            assertNull(SceneSerializer.load(file).geometries.findIntersections(rays[0]), "TC04: empty scene");
+
+            // TC05: triangles of distinct but equal materials are merged into a single mesh
+            Scene strip = new Scene("strip");
+            for (int i = 0; i < 100; ++i)
+                strip.geometries.add(new Triangle(new Point(i, 0, 0), new Point(i + 1, 0, 0), new Point(i, 1, 0)));
+            SceneSerializer.save(strip, file);
+            List<Intersectable> merged = SceneSerializer.load(file).geometries.getGeometries();
+            assertEquals(1, merged.size(), "TC05: triangles of equal materials are not merged");
+            assertEquals(100, ((Mesh) merged.get(0)).getTriangleCount(), "TC05: wrong amount of triangles");
+
+            // TC06: a header with sections beyond the buffer is rejected
+            byte[] bytes = Files.readAllBytes(file);
+            long[][] corruptions = {{8, bytes.length}, {16, -1}, {32, 1L << 40}, {40, 1L << 33}, {48, bytes.length}};
+            for (long[] corruption : corruptions) {
+                ByteBuffer corrupt = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+                corrupt.putLong((int) corruption[0], corruption[1]);
+                assertThrows(IllegalArgumentException.class, () -> SceneSerializer.read(corrupt),
+                        "TC06: wrong header field at " + corruption[0]);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Test method for {@link scene.SceneSerializer#save(Scene, Path)} and {@link scene.SceneSerializer#load(Path)}
+     * with instances and light influence.
+     */
+    @Test
+    void testInstances() throws IOException {
+        Geometries shared = new Geometries(
+                new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0)),
+                new Sphere(0.5, new Point(0, 0, 2)).setMaterial(new Material().setKd(0.7)));
+        Scene scene = new Scene("instances");
+        scene.geometries.add(
+                new Instance(shared, Transform.translation(new Vector(10, 0, 0))),
+                new Instance(shared, Transform.scaling(2, 2, 2)),
+                new Instance(shared, Transform.IDENTITY)
+                        .setMotion(Transform.IDENTITY, Transform.translation(new Vector(0, 5, 0))));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)).setKq(0.01)
+                .setInfluenceThreshold(2));
+
+        Path file = Files.createTempFile("scene", ".bin");
+        try {
+            SceneSerializer.save(scene, file);
+            Scene loaded = SceneSerializer.load(file);
+            List<Intersectable> children = loaded.geometries.getGeometries();
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: the instances share a single loaded geometry
+            assertEquals(3, children.size(), "TC01: wrong amount of geometries");
+            Instance first = assertInstanceOf(Instance.class, children.get(0), "TC01: instance is not loaded");
+            Instance second = assertInstanceOf(Instance.class, children.get(1), "TC01: instance is not loaded");
+            assertSame(first.getPrototype(), second.getPrototype(), "TC01: shared geometry is duplicated");
+
+            // TC02: the instances are placed by their transformations
+            Ray[] rays = {
+                    new Ray(new Point(10.25, 0.25, 5), new Vector(0, 0, -1)),
+                    new Ray(new Point(1.5, 0.25, 5), new Vector(0, 0, -1)),
+                    new Ray(new Point(0, 0, 10), new Vector(0, 0, -1))};
+            for (Ray ray : rays)
+                assertEquals(scene.geometries.findIntersections(ray).size(),
+                        loaded.geometries.findIntersections(ray).size(), "TC02: wrong intersections for " + ray);
+            Point hit = loaded.geometries.findClosestGeoIntersection(rays[2]).point;
+            assertEquals(new Point(0, 0, 5), hit, "TC02: wrong closest intersection");
+            assertEquals(0.7, ((Instance.Placed) loaded.geometries.findClosestGeoIntersection(rays[2]).geometry)
+                    .getMaterial().kD.getD1(), 1e-12, "TC02: wrong shared material");
+
+            // TC03: the motion of an instance is kept
+            Instance moving = assertInstanceOf(Instance.class, children.get(2), "TC03: instance is not loaded");
+            assertTrue(moving.isMoving(), "TC03: motion is dropped");
+            assertEquals(new Point(0, 5, 0), moving.getTransform(1).apply(Point.ZERO), "TC03: wrong motion");
+
+            // TC04: the light influence threshold is kept
+            PointLight light = assertInstanceOf(PointLight.class, loaded.lights.get(0), "TC04: wrong light type");
+            assertEquals(2, light.getInfluenceThreshold(), "TC04: influence threshold is dropped");
+            assertEquals(((PointLight) scene.lights.get(0)).getInfluenceRadius(), light.getInfluenceRadius(), 1e-9,
+                    "TC04: wrong influence radius");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}